@@ -0,0 +1,37 @@
+package my.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import my.utils.MyBeansUtil.EmptyEnum;
+import my.utils.MyBeansUtil.NullEnum;
+
+/**
+ * コピー処理生成の指定<br>
+ * （インターフェースに付与すると、MyCopierProcessorがコンパイル時に実装クラス「インターフェース名Impl」を生成。<br>
+ * 宣言できるメソッド：「Target copy(Source)」（新規生成してコピー）、「void copy(Source, Target)」（既存へコピー）。<br>
+ * 同名プロパティ（継承クラスを含む public の get/is ⇒ set）を直接呼び出すため、リフレクションは使用しない）<br>
+ * 例）@MyCopier(nullEnum = NullEnum.Exclude) public interface EmpCopier { EmpDto copy(Emp emp); }<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;EmpCopier copier = new EmpCopierImpl();
+ * @author 7days
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface MyCopier {
+
+    /**
+     * nullのコピー有無
+     * @return nullのコピー有無
+     */
+    NullEnum nullEnum() default NullEnum.Target;
+
+    /**
+     * 空白のコピー有無
+     * @return 空白のコピー有無
+     */
+    EmptyEnum emptyEnum() default EmptyEnum.Target;
+}
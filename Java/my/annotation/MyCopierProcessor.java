@@ -0,0 +1,291 @@
+package my.annotation;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+import my.utils.MyBeansUtil.EmptyEnum;
+import my.utils.MyBeansUtil.NullEnum;
+
+/**
+ * コピー処理生成のアノテーションプロセッサ<br>
+ * （@MyCopierを付与したインターフェースの実装クラスを生成。<br>
+ * 生成するコピー処理はMyBeansUtil.copyと同じ対応付け・null/空白の判定。<br>
+ * ただし型に互換性がないプロパティはコピー処理を生成せず、コンパイル時に警告[MyBeansUtil.copyは実行時に値がある時、例外]。<br>
+ * 生成する型に引数なしコンストラクタがない時はコンパイルエラー）
+ * @author 7days
+ */
+@SupportedAnnotationTypes("my.annotation.MyCopier")
+public class MyCopierProcessor extends AbstractProcessor {
+
+    /** 生成クラスの接尾辞 */
+    private static final String IMPL_SUFFIX = "Impl";
+    /** Getterメソッド */
+    private static final String GET = "get";
+    /** Isメソッド */
+    private static final String IS = "is";
+    /** Setterメソッド */
+    private static final String SET = "set";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+                           RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(MyCopier.class)) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                error(element, "@MyCopier is only applicable to interfaces");
+                continue;
+            }
+            try {
+                generate((TypeElement) element);
+            } catch (IOException e) {
+                error(element, "copier generate error : " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 実装クラスの生成
+     * @param type インターフェース
+     * @throws IOException
+     */
+    private void generate(TypeElement type) throws IOException {
+        MyCopier copier = type.getAnnotation(MyCopier.class);
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String implName = type.getSimpleName() + IMPL_SUFFIX;
+
+        StringBuilder bf = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            bf.append("package ").append(packageName).append(";\n\n");
+        }
+        bf.append("/**\n");
+        bf.append(" * ").append(type.getSimpleName()).append("の実装（MyCopierProcessorで生成）\n");
+        bf.append(" */\n");
+        bf.append("public class ").append(implName).append(" implements ").append(type.getQualifiedName()).append(" {\n");
+
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (!method.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            List<TypeMirror> params = new ArrayList<TypeMirror>();
+            for (VariableElement param : method.getParameters()) {
+                params.add(param.asType());
+            }
+            boolean create = params.size() == 1 && method.getReturnType().getKind() == TypeKind.DECLARED;
+            boolean update = params.size() == 2 && method.getReturnType().getKind() == TypeKind.VOID;
+            if (!create && !update) {
+                error(method, "copier method must be 'Target copy(Source)' or 'void copy(Source, Target)'");
+                continue;
+            }
+            TypeMirror source = params.get(0);
+            TypeMirror target = create ? method.getReturnType() : params.get(1);
+            if (create && !isInstantiable(target, pkg)) {
+                error(method, "copier target must have an accessible no-arg constructor : " + target);
+                continue;
+            }
+
+            bf.append("\n    @Override\n");
+            bf.append("    public ").append(method.getReturnType()).append(" ").append(method.getSimpleName()).append("(");
+            bf.append(source).append(" source");
+            if (update) {
+                bf.append(", ").append(target).append(" target");
+            }
+            bf.append(") {\n");
+            bf.append("        if (source == null) {\n");
+            bf.append(create ? "            return null;\n" : "            return;\n");
+            bf.append("        }\n");
+            if (create) {
+                bf.append("        ").append(target).append(" target = new ").append(target).append("();\n");
+            }
+            appendProperties(bf, method, source, target, copier.nullEnum(), copier.emptyEnum());
+            if (create) {
+                bf.append("        return target;\n");
+            }
+            bf.append("    }\n");
+        }
+        bf.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? implName : packageName + "." + implName;
+        try (PrintWriter pw = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter())) {
+            pw.print(bf);
+        }
+    }
+
+    /**
+     * プロパティ毎のコピー処理の出力
+     * @param bf 出力先
+     * @param method コピーメソッド
+     * @param source 値を渡す型
+     * @param target 値を受け取る型
+     * @param nullEnum nullのコピー有無
+     * @param emptyEnum 空白のコピー有無
+     */
+    private void appendProperties(StringBuilder bf,
+                                  ExecutableElement method,
+                                  TypeMirror source,
+                                  TypeMirror target,
+                                  NullEnum nullEnum,
+                                  EmptyEnum emptyEnum) {
+        Map<String, ExecutableElement> setters = getAccessors(target, true);
+        int no = 0;
+        for (Map.Entry<String, ExecutableElement> entry : getAccessors(source, false).entrySet()) {
+            ExecutableElement getter = entry.getValue();
+            ExecutableElement setter = setters.get(entry.getKey());
+            if (setter == null) {
+                continue;
+            }
+            TypeMirror from = getter.getReturnType();
+            TypeMirror to = setter.getParameters().get(0).asType();
+            if (!processingEnv.getTypeUtils().isAssignable(from, to)) {
+                processingEnv.getMessager().printMessage(Kind.WARNING, "type mismatch, not copied : " + entry.getKey() + " " + from + " ⇒ " + to,
+                                                         method);
+                continue;
+            }
+
+            String get = "source." + getter.getSimpleName() + "()";
+            String set = "target." + setter.getSimpleName();
+            if (from.getKind().isPrimitive()) {
+                // プリミティブ型はnull・空白にならない
+                bf.append("        ").append(set).append("(").append(get).append(");\n");
+                continue;
+            }
+
+            // null・空白の判定（MyBeansUtil.isSetValueと同じ）
+            String var = "v" + (no++);
+            List<String> conditions = new ArrayList<String>();
+            if (nullEnum == NullEnum.Exclude || to.getKind().isPrimitive()) {
+                conditions.add(var + " != null");
+            }
+            if (emptyEnum == EmptyEnum.Exclude) {
+                conditions.add(conditions.isEmpty() ? var + " == null || !\"\".equals(" + var + ".toString())"
+                                   : "!\"\".equals(" + var + ".toString())");
+            }
+            bf.append("        ").append(from).append(" ").append(var).append(" = ").append(get).append(";\n");
+            if (conditions.isEmpty()) {
+                bf.append("        ").append(set).append("(").append(var).append(");\n");
+            } else {
+                bf.append("        if (").append(String.join(" && ", conditions)).append(") {\n");
+                bf.append("            ").append(set).append("(").append(var).append(");\n");
+                bf.append("        }\n");
+            }
+        }
+    }
+
+    /**
+     * 生成クラスから引数なしコンストラクタで生成可能か判定<br>
+     * （具象クラス・static以外の内部クラスでない・クラスと引数なしコンストラクタがpublic、または同一パッケージでprivate以外）
+     * @param type 型
+     * @param pkg 生成クラスのパッケージ
+     * @return 判定結果
+     */
+    private boolean isInstantiable(TypeMirror type,
+                                   PackageElement pkg) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)
+            || (element.getNestingKind().isNested() && !element.getModifiers().contains(Modifier.STATIC))) {
+            return false;
+        }
+        boolean samePackage = processingEnv.getElementUtils().getPackageOf(element).equals(pkg);
+        if (!samePackage && !element.getModifiers().contains(Modifier.PUBLIC)) {
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements())) {
+            if (!constructor.getParameters().isEmpty()) {
+                continue;
+            }
+            Set<Modifier> modifiers = constructor.getModifiers();
+            return modifiers.contains(Modifier.PUBLIC) || (samePackage && !modifiers.contains(Modifier.PRIVATE));
+        }
+        return false;
+    }
+
+    /**
+     * Getter・Setterの取得<br>
+     * （継承クラスを含む public・非static。Objectのメソッドを除く）
+     * @param type 型
+     * @param setter Setterの取得有無 [true:Setter false:Getter]
+     * @return [key：プロパティ名 / value：メソッド]
+     */
+    private Map<String, ExecutableElement> getAccessors(TypeMirror type,
+                                                        boolean setter) {
+        Map<String, ExecutableElement> map = new LinkedHashMap<String, ExecutableElement>();
+        if (type.getKind() != TypeKind.DECLARED) {
+            return map;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(element))) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)
+                || ((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals(Object.class.getName())) {
+                continue;
+            }
+            String name = method.getSimpleName().toString();
+            String body;
+            if (setter) {
+                if (!name.startsWith(SET) || method.getParameters().size() != 1) {
+                    continue;
+                }
+                body = name.substring(SET.length());
+            } else {
+                if (!method.getParameters().isEmpty() || method.getReturnType().getKind() == TypeKind.VOID) {
+                    continue;
+                }
+                if (name.startsWith(GET)) {
+                    body = name.substring(GET.length());
+                } else if (name.startsWith(IS)) {
+                    body = name.substring(IS.length());
+                } else {
+                    continue;
+                }
+            }
+            if (body.isEmpty()) {
+                continue;
+            }
+            String key = body.substring(0, 1).toLowerCase() + body.substring(1);
+            if (!map.containsKey(key)) {
+                map.put(key, method);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * エラーの出力
+     * @param element 対象
+     * @param message メッセージ
+     */
+    private void error(Element element,
+                       String message) {
+        processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+    }
+}
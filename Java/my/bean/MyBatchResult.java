@@ -0,0 +1,107 @@
+package my.bean;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * バッチ実行結果格納クラス
+ * @author 7days
+ */
+public class MyBatchResult {
+
+    /** バッチ毎の実行件数 */
+    private final List<int[]> updateCounts = new ArrayList<int[]>();
+    /** 失敗行 [key：行番号（0始まり） / value：エラー] */
+    private final Map<Integer, SQLException> failedRows = new TreeMap<Integer, SQLException>();
+    /** 処理行数 */
+    private int rowCount = 0;
+
+    /**
+     * バッチ毎の実行件数を取得します。<br>
+     * （executeBatchの戻り値。失敗行を特定できずに1行ずつ再実行した時は、行毎の件数[失敗行はEXECUTE_FAILED]）
+     * @return バッチ毎の実行件数
+     */
+    public List<int[]> getUpdateCounts() {
+        return Collections.unmodifiableList(updateCounts);
+    }
+
+    /**
+     * バッチ毎の実行件数を追加します。
+     * @param counts 実行件数
+     * @return thisClassObj
+     */
+    public MyBatchResult addUpdateCounts(int[] counts) {
+        updateCounts.add(counts);
+        return this;
+    }
+
+    /**
+     * 失敗行を取得します。
+     * @return 失敗行 [key：行番号（0始まり） / value：エラー]
+     */
+    public Map<Integer, SQLException> getFailedRows() {
+        return Collections.unmodifiableMap(failedRows);
+    }
+
+    /**
+     * 失敗行を追加します。
+     * @param row 行番号（0始まり）
+     * @param e エラー
+     * @return thisClassObj
+     */
+    public MyBatchResult addFailedRow(int row,
+                                      SQLException e) {
+        failedRows.put(row, e);
+        return this;
+    }
+
+    /**
+     * 処理行数を取得します。
+     * @return 処理行数
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 処理行数を設定します。
+     * @param rowCount 処理行数
+     * @return thisClassObj
+     */
+    public MyBatchResult setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+        return this;
+    }
+
+    /**
+     * 合計実行件数を取得します。<br>
+     * （件数不明[SUCCESS_NO_INFO]の行は1件として計上）
+     * @return 合計実行件数
+     */
+    public long getTotalUpdateCount() {
+        long total = 0;
+        for (int[] counts : updateCounts) {
+            for (int count : counts) {
+                if (count >= 0) {
+                    total += count;
+                } else if (count == Statement.SUCCESS_NO_INFO) {
+                    total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 失敗行の有無
+     * @return 結果 [true:失敗行あり false:全行成功]
+     */
+    public boolean hasFailure() {
+        return !failedRows.isEmpty();
+    }
+}
@@ -0,0 +1,151 @@
+package my.bean;
+
+/**
+ * 差分取得情報格納クラス<br>
+ * （最終取得位置（ウォーターマーク）以降の行のみを取得する検索の定義）
+ * @author 7days
+ */
+public class MyChangeQuery {
+
+    /** 名前（最終取得位置の保存キー） */
+    private String name = null;
+    /** SQL文（バインド変数「?」形式） */
+    private String sql = null;
+    /** パラメータ */
+    private Object[] params = new Object[0];
+    /** 最終取得位置の項目（更新日時・連番等 日時または数値） */
+    private String watermarkColumn = null;
+    /** キー項目（重複除外に使用 未指定の時、全項目） */
+    private String[] keyColumns = new String[0];
+    /** 再取得範囲（最終取得位置から遡る範囲 日時の時はミリ秒 遅延登録された行の取りこぼし防止） */
+    private long overlap = 0;
+    /** 最終取得位置の保存先（プロパティファイル） */
+    private String storeFile = null;
+
+    /**
+     * 名前を取得します。
+     * @return 名前
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 名前（最終取得位置の保存キー）を設定します。
+     * @param name 名前
+     * @return thisClassObj
+     */
+    public MyChangeQuery setName(String name) {
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * SQL文を取得します。
+     * @return SQL文
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * SQL文（バインド変数「?」形式）を設定します。
+     * @param sql SQL文
+     * @return thisClassObj
+     */
+    public MyChangeQuery setSql(String sql) {
+        this.sql = sql;
+        return this;
+    }
+
+    /**
+     * パラメータを取得します。
+     * @return パラメータ
+     */
+    public Object[] getParams() {
+        return params;
+    }
+
+    /**
+     * パラメータを設定します。
+     * @param params パラメータ
+     * @return thisClassObj
+     */
+    public MyChangeQuery setParams(Object... params) {
+        this.params = params;
+        return this;
+    }
+
+    /**
+     * 最終取得位置の項目を取得します。
+     * @return 最終取得位置の項目
+     */
+    public String getWatermarkColumn() {
+        return watermarkColumn;
+    }
+
+    /**
+     * 最終取得位置の項目（更新日時・連番等 日時または数値）を設定します。
+     * @param watermarkColumn 最終取得位置の項目
+     * @return thisClassObj
+     */
+    public MyChangeQuery setWatermarkColumn(String watermarkColumn) {
+        this.watermarkColumn = watermarkColumn;
+        return this;
+    }
+
+    /**
+     * キー項目を取得します。
+     * @return キー項目
+     */
+    public String[] getKeyColumns() {
+        return keyColumns;
+    }
+
+    /**
+     * キー項目（重複除外に使用 未指定の時、全項目）を設定します。
+     * @param keyColumns キー項目
+     * @return thisClassObj
+     */
+    public MyChangeQuery setKeyColumns(String... keyColumns) {
+        this.keyColumns = keyColumns;
+        return this;
+    }
+
+    /**
+     * 再取得範囲を取得します。
+     * @return 再取得範囲
+     */
+    public long getOverlap() {
+        return overlap;
+    }
+
+    /**
+     * 再取得範囲（最終取得位置から遡る範囲 日時の時はミリ秒 遅延登録された行の取りこぼし防止）を設定します。
+     * @param overlap 再取得範囲
+     * @return thisClassObj
+     */
+    public MyChangeQuery setOverlap(long overlap) {
+        this.overlap = overlap;
+        return this;
+    }
+
+    /**
+     * 最終取得位置の保存先を取得します。
+     * @return 最終取得位置の保存先
+     */
+    public String getStoreFile() {
+        return storeFile;
+    }
+
+    /**
+     * 最終取得位置の保存先（プロパティファイル）を設定します。
+     * @param storeFile 最終取得位置の保存先
+     * @return thisClassObj
+     */
+    public MyChangeQuery setStoreFile(String storeFile) {
+        this.storeFile = storeFile;
+        return this;
+    }
+
+}
@@ -0,0 +1,881 @@
+package my.bean;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列指向の検索結果格納クラス<br>
+ * （項目情報は１回のみ保持し、値は列毎の配列で保持。<br>
+ * 数値・日付はプリミティブ配列とnullビットマップ、文字列は種類が少ない時に辞書化。<br>
+ * 精度指定なしのNUMBER等は仮数[long]と位取り[byte]で保持。DATE型は時刻を含む日時として保持（Oracle））
+ * @author 7days
+ */
+public class MyColumnarResult {
+
+    /** 初期行数 */
+    private static final int INITIAL_CAPACITY = 256;
+    /** 辞書化の上限種類数（超過時、辞書化を中止） */
+    private static final int DICTIONARY_MAX_SIZE = 65536;
+
+    /** 列の格納型 */
+    public static enum ColumnType {
+        /** int */
+        INT,
+        /** long */
+        LONG,
+        /** double */
+        DOUBLE,
+        /** 10進数（仮数・位取り） */
+        DECIMAL,
+        /** 日付（エポックミリ秒） */
+        DATE,
+        /** 日時（エポックミリ秒） */
+        TIMESTAMP,
+        /** 文字列 */
+        STRING
+    }
+
+    /** 項目名（列順） */
+    private final String[] columnNames;
+    /** 項目名 ⇒ 列番号 */
+    private final Map<String, Integer> columnIndexMap;
+    /** 列データ */
+    private final Column[] columns;
+    /** 行数 */
+    private int rowCount = 0;
+
+    /**
+     * コンストラクタ
+     * @param columnNames 項目名（列順）
+     * @param columnTypes 列の格納型（列順）
+     */
+    public MyColumnarResult(String[] columnNames,
+                            ColumnType[] columnTypes) {
+        this.columnNames = columnNames.clone();
+        this.columnIndexMap = new HashMap<String, Integer>();
+        this.columns = new Column[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnIndexMap.put(columnNames[i], i);
+            columns[i] = createColumn(columnTypes[i]);
+        }
+    }
+
+    /**
+     * ResultSetの全行を読み込み、列指向の検索結果を生成
+     * @param result ResultSet
+     * @return 検索結果
+     * @throws SQLException
+     */
+    public static MyColumnarResult create(ResultSet result) throws SQLException {
+
+        // 項目情報の取得（１回のみ）
+        ResultSetMetaData metaData = result.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] columnNames = new String[columnCount];
+        ColumnType[] columnTypes = new ColumnType[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = metaData.getColumnName(i + 1);
+            columnTypes[i] = toColumnType(metaData.getColumnType(i + 1),
+                                          metaData.getPrecision(i + 1),
+                                          metaData.getScale(i + 1));
+        }
+
+        // 値の取得
+        MyColumnarResult columnar = new MyColumnarResult(columnNames, columnTypes);
+        while (result.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                columnar.columns[i].read(result, i + 1, columnar.rowCount);
+            }
+            columnar.rowCount++;
+        }
+        columnar.trimToSize();
+
+        return columnar;
+    }
+
+    /**
+     * 行数を取得します。
+     * @return 行数
+     */
+    public int size() {
+        return rowCount;
+    }
+
+    /**
+     * 列数を取得します。
+     * @return 列数
+     */
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    /**
+     * 項目名を取得します。
+     * @param column 列番号（0始まり）
+     * @return 項目名
+     */
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    /**
+     * 列の格納型を取得します。
+     * @param column 列番号（0始まり）
+     * @return 列の格納型
+     */
+    public ColumnType getColumnType(int column) {
+        return columns[column].type;
+    }
+
+    /**
+     * 列番号を取得します。
+     * @param columnName 項目名
+     * @return 列番号（0始まり 存在しない時、-1）
+     */
+    public int getColumnIndex(String columnName) {
+        Integer index = columnIndexMap.get(columnName);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * nullの判定
+     * @param row 行番号（0始まり）
+     * @param column 列番号（0始まり）
+     * @return 結果 [true:null false:null以外]
+     */
+    public boolean isNull(int row,
+                          int column) {
+        checkRow(row);
+        return columns[column].isNull(row);
+    }
+
+    /**
+     * 値を文字列で取得します。<br>
+     * （ResultSet#getStringと同等の表記）
+     * @param row 行番号（0始まり）
+     * @param column 列番号（0始まり）
+     * @return 値（nullの時、null）
+     */
+    public String getString(int row,
+                            int column) {
+        checkRow(row);
+        return columns[column].getString(row);
+    }
+
+    /**
+     * 値を文字列で取得します。
+     * @param row 行番号（0始まり）
+     * @param columnName 項目名
+     * @return 値（nullの時、null）
+     */
+    public String getString(int row,
+                            String columnName) {
+        return getString(row, toColumnIndex(columnName));
+    }
+
+    /**
+     * 値をintで取得します。
+     * @param row 行番号（0始まり）
+     * @param column 列番号（0始まり）
+     * @return 値（nullの時、0）
+     */
+    public int getInt(int row,
+                      int column) {
+        return (int) getLong(row, column);
+    }
+
+    /**
+     * 値をlongで取得します。
+     * @param row 行番号（0始まり）
+     * @param column 列番号（0始まり）
+     * @return 値（nullの時、0）
+     */
+    public long getLong(int row,
+                        int column) {
+        checkRow(row);
+        return columns[column].getLong(row);
+    }
+
+    /**
+     * 値をdoubleで取得します。
+     * @param row 行番号（0始まり）
+     * @param column 列番号（0始まり）
+     * @return 値（nullの時、0）
+     */
+    public double getDouble(int row,
+                            int column) {
+        checkRow(row);
+        return columns[column].getDouble(row);
+    }
+
+    /**
+     * 値を日時で取得します。
+     * @param row 行番号（0始まり）
+     * @param column 列番号（0始まり）
+     * @return 値（nullの時、null）
+     */
+    public Timestamp getTimestamp(int row,
+                                  int column) {
+        checkRow(row);
+        if (columns[column].isNull(row)) {
+            return null;
+        }
+        return new Timestamp(columns[column].getLong(row));
+    }
+
+    /**
+     * 行をMap形式で取得します。<br>
+     * （doSelectの１行と同形式。呼び出し毎に生成）
+     * @param row 行番号（0始まり）
+     * @return Map [key：項目名 / value：値]
+     */
+    public Map<String, String> getRow(int row) {
+        checkRow(row);
+        Map<String, String> map = new HashMap<String, String>();
+        for (int i = 0; i < columns.length; i++) {
+            map.put(columnNames[i], columns[i].getString(row));
+        }
+        return map;
+    }
+
+    /**
+     * MapのList形式で参照します。<br>
+     * （doSelectの結果と同形式の読み取り専用ビュー。行Mapは参照毎に生成）
+     * @return listMap
+     */
+    public List<Map<String, String>> asList() {
+        return new AbstractList<Map<String, String>>() {
+            @Override
+            public Map<String, String> get(int index) {
+                return getRow(index);
+            }
+
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        };
+    }
+
+    /**
+     * 行の追加<br>
+     * （値は文字列で指定し、列の格納型に変換）
+     * @param values 値（列順）
+     */
+    public void addRow(String... values) {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].set(rowCount, values[i]);
+        }
+        rowCount++;
+    }
+
+    /**
+     * 余剰領域の解放
+     */
+    public void trimToSize() {
+        for (Column column : columns) {
+            column.trim(rowCount);
+        }
+    }
+
+    /**
+     * 列の格納型の判定<br>
+     * （DATE型はOracleでは時刻を含み、ResultSet#getStringも時刻を含むため日時[TIMESTAMP]で保持）
+     * @param sqlType java.sql.Types
+     * @param precision 精度
+     * @param scale 位取り
+     * @return 列の格納型
+     */
+    protected static ColumnType toColumnType(int sqlType,
+                                             int precision,
+                                             int scale) {
+        switch (sqlType) {
+        case Types.TINYINT:
+        case Types.SMALLINT:
+        case Types.INTEGER:
+            return ColumnType.INT;
+        case Types.BIGINT:
+            return ColumnType.LONG;
+        case Types.NUMERIC:
+        case Types.DECIMAL:
+            if (scale == 0 && precision > 0 && precision <= 9) return ColumnType.INT;
+            if (scale == 0 && precision > 0 && precision <= 18) return ColumnType.LONG;
+            if (scale > 0 && precision > 0 && precision <= 15) return ColumnType.DOUBLE;
+            // 精度指定なし（精度0）・桁数超過
+            return ColumnType.DECIMAL;
+        case Types.DATE:
+        case Types.TIMESTAMP:
+            return ColumnType.TIMESTAMP;
+        default:
+            return ColumnType.STRING;
+        }
+    }
+
+    /**
+     * 列データの生成
+     * @param type 列の格納型
+     * @return 列データ
+     */
+    private static Column createColumn(ColumnType type) {
+        switch (type) {
+        case INT:
+            return new IntColumn();
+        case LONG:
+        case DATE:
+        case TIMESTAMP:
+            return new LongColumn(type);
+        case DOUBLE:
+            return new DoubleColumn();
+        case DECIMAL:
+            return new DecimalColumn();
+        default:
+            return new StringColumn();
+        }
+    }
+
+    /**
+     * 列番号の取得（存在しない時、例外）
+     * @param columnName 項目名
+     * @return 列番号
+     */
+    private int toColumnIndex(String columnName) {
+        Integer index = columnIndexMap.get(columnName);
+        if (index == null) {
+            throw new IllegalArgumentException("column not found : " + columnName);
+        }
+        return index;
+    }
+
+    /**
+     * 行番号の範囲チェック
+     * @param row 行番号
+     */
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("row : " + row + ", size : " + rowCount);
+        }
+    }
+
+    /**
+     * 列データ（基底）
+     */
+    private static abstract class Column {
+
+        /** 列の格納型 */
+        final ColumnType type;
+        /** nullビットマップ */
+        long[] nulls = new long[INITIAL_CAPACITY / 64];
+
+        Column(ColumnType type) {
+            this.type = type;
+        }
+
+        /** ResultSetから値を読み込み */
+        abstract void read(ResultSet result,
+                           int index,
+                           int row) throws SQLException;
+
+        /** 文字列から値を設定 */
+        abstract void set(int row,
+                          String value);
+
+        /** 値を文字列で取得 */
+        abstract String getString(int row);
+
+        /** 値をlongで取得 */
+        long getLong(int row) {
+            String value = getString(row);
+            return value == null ? 0 : new BigDecimal(value).longValue();
+        }
+
+        /** 値をdoubleで取得 */
+        double getDouble(int row) {
+            String value = getString(row);
+            return value == null ? 0 : Double.parseDouble(value);
+        }
+
+        /** 領域の確保 */
+        abstract void ensure(int capacity);
+
+        /** 余剰領域の解放 */
+        abstract void trim(int size);
+
+        boolean isNull(int row) {
+            return (nulls[row >>> 6] & (1L << row)) != 0;
+        }
+
+        void setNull(int row,
+                     boolean isNull) {
+            if ((row >>> 6) >= nulls.length) {
+                nulls = Arrays.copyOf(nulls, Math.max(nulls.length * 2, (row >>> 6) + 1));
+            }
+            if (isNull) {
+                nulls[row >>> 6] |= (1L << row);
+            } else {
+                nulls[row >>> 6] &= ~(1L << row);
+            }
+        }
+
+        void trimNulls(int size) {
+            nulls = Arrays.copyOf(nulls, (size + 63) >>> 6);
+        }
+
+        static int grow(int length,
+                        int capacity) {
+            return Math.max(capacity, length + (length >> 1) + 1);
+        }
+    }
+
+    /**
+     * 列データ（int）
+     */
+    private static class IntColumn extends Column {
+
+        int[] values = new int[INITIAL_CAPACITY];
+
+        IntColumn() {
+            super(ColumnType.INT);
+        }
+
+        @Override
+        void read(ResultSet result,
+                  int index,
+                  int row) throws SQLException {
+            ensure(row + 1);
+            values[row] = result.getInt(index);
+            setNull(row, result.wasNull());
+        }
+
+        @Override
+        void set(int row,
+                 String value) {
+            ensure(row + 1);
+            values[row] = value == null ? 0 : Integer.parseInt(value);
+            setNull(row, value == null);
+        }
+
+        @Override
+        String getString(int row) {
+            return isNull(row) ? null : String.valueOf(values[row]);
+        }
+
+        @Override
+        long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        void ensure(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void trim(int size) {
+            values = Arrays.copyOf(values, size);
+            trimNulls(size);
+        }
+    }
+
+    /**
+     * 列データ（long、日付・日時はエポックミリ秒）
+     */
+    private static class LongColumn extends Column {
+
+        long[] values = new long[INITIAL_CAPACITY];
+
+        LongColumn(ColumnType type) {
+            super(type);
+        }
+
+        @Override
+        void read(ResultSet result,
+                  int index,
+                  int row) throws SQLException {
+            ensure(row + 1);
+            if (type == ColumnType.LONG) {
+                values[row] = result.getLong(index);
+                setNull(row, result.wasNull());
+            } else {
+                Timestamp value = result.getTimestamp(index);
+                values[row] = value == null ? 0 : value.getTime();
+                setNull(row, value == null);
+            }
+        }
+
+        @Override
+        void set(int row,
+                 String value) {
+            ensure(row + 1);
+            if (value == null) {
+                values[row] = 0;
+            } else if (type == ColumnType.LONG) {
+                values[row] = Long.parseLong(value);
+            } else if (type == ColumnType.DATE) {
+                values[row] = java.sql.Date.valueOf(value).getTime();
+            } else {
+                values[row] = Timestamp.valueOf(value).getTime();
+            }
+            setNull(row, value == null);
+        }
+
+        @Override
+        String getString(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            if (type == ColumnType.LONG) {
+                return String.valueOf(values[row]);
+            } else if (type == ColumnType.DATE) {
+                return new java.sql.Date(values[row]).toString();
+            }
+            return new Timestamp(values[row]).toString();
+        }
+
+        @Override
+        long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        void ensure(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void trim(int size) {
+            values = Arrays.copyOf(values, size);
+            trimNulls(size);
+        }
+    }
+
+    /**
+     * 列データ（double）
+     */
+    private static class DoubleColumn extends Column {
+
+        double[] values = new double[INITIAL_CAPACITY];
+
+        DoubleColumn() {
+            super(ColumnType.DOUBLE);
+        }
+
+        @Override
+        void read(ResultSet result,
+                  int index,
+                  int row) throws SQLException {
+            ensure(row + 1);
+            values[row] = result.getDouble(index);
+            setNull(row, result.wasNull());
+        }
+
+        @Override
+        void set(int row,
+                 String value) {
+            ensure(row + 1);
+            values[row] = value == null ? 0 : Double.parseDouble(value);
+            setNull(row, value == null);
+        }
+
+        @Override
+        String getString(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            // NUMBER型の文字列表記に合わせる（末尾0、指数表記なし）
+            BigDecimal value = BigDecimal.valueOf(values[row]).stripTrailingZeros();
+            return value.signum() == 0 ? "0" : value.toPlainString();
+        }
+
+        @Override
+        long getLong(int row) {
+            return (long) values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        void ensure(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void trim(int size) {
+            values = Arrays.copyOf(values, size);
+            trimNulls(size);
+        }
+    }
+
+    /**
+     * 列データ（10進数）<br>
+     * （値が収まる間は仮数[long]と位取り[byte]で保持し、収まらない値の時にBigDecimal配列へ切替）
+     */
+    private static class DecimalColumn extends Column {
+
+        /** 仮数 */
+        long[] unscaled = new long[INITIAL_CAPACITY];
+        /** 位取り */
+        byte[] scales = new byte[INITIAL_CAPACITY];
+        /** BigDecimal配列（切替後） */
+        BigDecimal[] values = null;
+
+        DecimalColumn() {
+            super(ColumnType.DECIMAL);
+        }
+
+        @Override
+        void read(ResultSet result,
+                  int index,
+                  int row) throws SQLException {
+            setValue(row, result.getBigDecimal(index));
+        }
+
+        @Override
+        void set(int row,
+                 String value) {
+            setValue(row, value == null ? null : new BigDecimal(value));
+        }
+
+        /**
+         * 値の設定
+         * @param row 行番号
+         * @param value 値
+         */
+        private void setValue(int row,
+                              BigDecimal value) {
+            ensure(row + 1);
+            setNull(row, value == null);
+            BigDecimal normalized = value == null ? null : normalize(value);
+            if (values != null) {
+                values[row] = normalized;
+                return;
+            }
+            if (normalized == null) {
+                unscaled[row] = 0;
+                scales[row] = 0;
+                return;
+            }
+            if (normalized.scale() > Byte.MAX_VALUE || normalized.unscaledValue().bitLength() >= Long.SIZE) {
+                // 収まらない時、BigDecimal配列へ切替
+                toPlain(row);
+                values[row] = normalized;
+                return;
+            }
+            unscaled[row] = normalized.unscaledValue().longValue();
+            scales[row] = (byte) normalized.scale();
+        }
+
+        /**
+         * 値の取得
+         * @param row 行番号
+         * @return 値（nullの時、null）
+         */
+        private BigDecimal getDecimal(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return values != null ? values[row] : BigDecimal.valueOf(unscaled[row], scales[row]);
+        }
+
+        @Override
+        String getString(int row) {
+            BigDecimal value = getDecimal(row);
+            if (value == null) {
+                return null;
+            }
+            // NUMBER型の文字列表記に合わせる（末尾0、指数表記なし）
+            return value.signum() == 0 ? "0" : value.toPlainString();
+        }
+
+        @Override
+        long getLong(int row) {
+            BigDecimal value = getDecimal(row);
+            return value == null ? 0 : value.longValue();
+        }
+
+        @Override
+        double getDouble(int row) {
+            BigDecimal value = getDecimal(row);
+            return value == null ? 0 : value.doubleValue();
+        }
+
+        @Override
+        void ensure(int capacity) {
+            if (values != null) {
+                if (capacity > values.length) {
+                    values = Arrays.copyOf(values, grow(values.length, capacity));
+                }
+            } else if (capacity > unscaled.length) {
+                unscaled = Arrays.copyOf(unscaled, grow(unscaled.length, capacity));
+                scales = Arrays.copyOf(scales, unscaled.length);
+            }
+        }
+
+        @Override
+        void trim(int size) {
+            if (values != null) {
+                values = Arrays.copyOf(values, size);
+            } else {
+                unscaled = Arrays.copyOf(unscaled, size);
+                scales = Arrays.copyOf(scales, size);
+            }
+            trimNulls(size);
+        }
+
+        /**
+         * 末尾0の除去（位取りは0以上）
+         * @param value 値
+         * @return 値
+         */
+        private static BigDecimal normalize(BigDecimal value) {
+            BigDecimal stripped = value.stripTrailingZeros();
+            return stripped.scale() < 0 ? stripped.setScale(0) : stripped;
+        }
+
+        /**
+         * BigDecimal配列への切替
+         * @param size 切替時点の行数
+         */
+        private void toPlain(int size) {
+            values = new BigDecimal[unscaled.length];
+            for (int i = 0; i < size; i++) {
+                values[i] = isNull(i) ? null : BigDecimal.valueOf(unscaled[i], scales[i]);
+            }
+            unscaled = null;
+            scales = null;
+        }
+    }
+
+    /**
+     * 列データ（文字列）<br>
+     * （種類が少ない間は辞書化したコードで保持し、上限を超えた時に文字列配列へ切替）
+     */
+    private static class StringColumn extends Column {
+
+        /** 辞書コード（null：-1） */
+        int[] codes = new int[INITIAL_CAPACITY];
+        /** 辞書 [コード ⇒ 値] */
+        List<String> dictionary = new ArrayList<String>();
+        /** 辞書 [値 ⇒ コード] */
+        Map<String, Integer> dictionaryIndex = new HashMap<String, Integer>();
+        /** 文字列配列（辞書化中止後） */
+        String[] values = null;
+
+        StringColumn() {
+            super(ColumnType.STRING);
+        }
+
+        @Override
+        void read(ResultSet result,
+                  int index,
+                  int row) throws SQLException {
+            set(row, result.getString(index));
+        }
+
+        @Override
+        void set(int row,
+                 String value) {
+            ensure(row + 1);
+            if (values != null) {
+                values[row] = value;
+                return;
+            }
+
+            if (value == null) {
+                codes[row] = -1;
+                return;
+            }
+            Integer code = dictionaryIndex.get(value);
+            if (code == null) {
+                if (dictionary.size() >= DICTIONARY_MAX_SIZE
+                    || (row >= INITIAL_CAPACITY && dictionary.size() > row / 2)) {
+                    // 種類が多い時、辞書化を中止
+                    toPlain(row);
+                    values[row] = value;
+                    return;
+                }
+                code = dictionary.size();
+                dictionary.add(value);
+                dictionaryIndex.put(value, code);
+            }
+            codes[row] = code;
+        }
+
+        @Override
+        String getString(int row) {
+            if (values != null) {
+                return values[row];
+            }
+            int code = codes[row];
+            return code < 0 ? null : dictionary.get(code);
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return getString(row) == null;
+        }
+
+        @Override
+        void ensure(int capacity) {
+            if (values != null) {
+                if (capacity > values.length) {
+                    values = Arrays.copyOf(values, grow(values.length, capacity));
+                }
+            } else if (capacity > codes.length) {
+                codes = Arrays.copyOf(codes, grow(codes.length, capacity));
+            }
+        }
+
+        @Override
+        void trim(int size) {
+            if (values != null) {
+                values = Arrays.copyOf(values, size);
+            } else {
+                codes = Arrays.copyOf(codes, size);
+            }
+            nulls = new long[0];
+        }
+
+        /**
+         * 文字列配列への切替
+         * @param size 切替時点の行数
+         */
+        private void toPlain(int size) {
+            values = new String[codes.length];
+            for (int i = 0; i < size; i++) {
+                values[i] = codes[i] < 0 ? null : dictionary.get(codes[i]);
+            }
+            codes = null;
+            dictionary = null;
+            dictionaryIndex = null;
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package my.bean;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.apache.log4j.Logger;
 
 /**
@@ -22,6 +26,42 @@ public class MyDatabaseInfo implements Cloneable {
     public static final String KEY_DB_PASS = "dbPass";
     /** 設定KeyConst 接続モード（true:コミットあり　false:コミット無し） */
     public static final String KEY_DB_MODE = "dbMode";
+    /** 設定KeyConst プール最小接続数 */
+    public static final String KEY_DB_POOL_MIN_SIZE = "dbPoolMinSize";
+    /** 設定KeyConst プール最大接続数 */
+    public static final String KEY_DB_POOL_MAX_SIZE = "dbPoolMaxSize";
+    /** 設定KeyConst プール取得待ちタイムアウト（ミリ秒） */
+    public static final String KEY_DB_POOL_BORROW_TIMEOUT = "dbPoolBorrowTimeout";
+    /** 設定KeyConst プール接続検証SQL */
+    public static final String KEY_DB_POOL_VALIDATION_QUERY = "dbPoolValidationQuery";
+    /** 設定KeyConst プールアイドルタイムアウト（ミリ秒） */
+    public static final String KEY_DB_POOL_IDLE_TIMEOUT = "dbPoolIdleTimeout";
+    /** 設定KeyConst PreparedStatementキャッシュ上限数 */
+    public static final String KEY_DB_STATEMENT_CACHE_SIZE = "dbStatementCacheSize";
+    /** 設定KeyConst カーソル取得時のフェッチサイズ */
+    public static final String KEY_DB_FETCH_SIZE = "dbFetchSize";
+    /** 設定KeyConst バッチ実行件数 */
+    public static final String KEY_DB_BATCH_SIZE = "dbBatchSize";
+    /** 設定KeyConst 検索結果キャッシュの有効期限（ミリ秒） */
+    public static final String KEY_DB_QUERY_CACHE_TTL = "dbQueryCacheTtl";
+    /** 設定KeyConst 検索結果キャッシュの容量上限（バイト） */
+    public static final String KEY_DB_QUERY_CACHE_MAX_BYTES = "dbQueryCacheMaxBytes";
+    /** 設定KeyConst スロークエリの閾値（ミリ秒） */
+    public static final String KEY_DB_SLOW_QUERY_THRESHOLD = "dbSlowQueryThreshold";
+    /** 設定KeyConst コミット後にプライマリから参照する期間（ミリ秒） */
+    public static final String KEY_DB_PRIMARY_READ_AFTER_COMMIT = "dbPrimaryReadAfterCommit";
+    /** 設定KeyConst ウォームアップ時に準備するSQL文 */
+    public static final String KEY_DB_WARMUP_STATEMENTS = "dbWarmupStatements";
+    /** 設定KeyConst ウォームアップ時に実行するSQL文 */
+    public static final String KEY_DB_WARMUP_QUERIES = "dbWarmupQueries";
+    /** 設定KeyConst JDBCドライバクラス */
+    public static final String KEY_DB_DRIVER_CLASS = "dbDriverClass";
+    /** 設定KeyConst SQL実行記録の出力先 */
+    public static final String KEY_DB_CAPTURE_FILE = "dbCaptureFile";
+    /** 設定KeyConst IN句の分割件数 */
+    public static final String KEY_DB_IN_LIST_SIZE = "dbInListSize";
+    /** 設定KeyConst 検索結果のメモリ保持の容量上限（バイト） */
+    public static final String KEY_DB_SPILL_THRESHOLD = "dbSpillThreshold";
 
     /** データベース名 */
     private String dbName = "";
@@ -33,6 +73,42 @@ public class MyDatabaseInfo implements Cloneable {
     private String dbPass = "";
     /** 接続モード（true:コミットあり　false:コミット無し） */
     private boolean mode = false;
+    /** プール最小接続数 */
+    private int poolMinSize = 1;
+    /** プール最大接続数 */
+    private int poolMaxSize = 1;
+    /** プール取得待ちタイムアウト（ミリ秒） */
+    private long poolBorrowTimeout = 30000;
+    /** プール接続検証SQL（空白の時、検証しない） */
+    private String poolValidationQuery = "select 1 from dual";
+    /** プールアイドルタイムアウト（ミリ秒 0以下の時、破棄しない） */
+    private long poolIdleTimeout = 600000;
+    /** PreparedStatementキャッシュ上限数（コネクション毎 0以下の時、キャッシュしない） */
+    private int statementCacheSize = 50;
+    /** カーソル取得時のフェッチサイズ（1回の通信で取得する行数） */
+    private int fetchSize = 500;
+    /** バッチ実行件数（1回のexecuteBatchで送信する行数） */
+    private int batchSize = 1000;
+    /** 検索結果キャッシュの有効期限（ミリ秒 0以下の時、キャッシュしない） */
+    private long queryCacheTtl = 0;
+    /** 検索結果キャッシュの容量上限（バイト 概算） */
+    private long queryCacheMaxBytes = 64L * 1024 * 1024;
+    /** スロークエリの閾値（ミリ秒 0以下の時、出力しない） */
+    private long slowQueryThreshold = 1000;
+    /** コミット後にプライマリから参照する期間（ミリ秒 レプリカの反映遅延を考慮） */
+    private long primaryReadAfterCommit = 1000;
+    /** ウォームアップ時に準備するSQL文（全接続のPreparedStatementキャッシュに登録） */
+    private List<String> warmupStatements = Collections.emptyList();
+    /** ウォームアップ時に実行するSQL文（参照SQLのみ） */
+    private List<String> warmupQueries = Collections.emptyList();
+    /** JDBCドライバクラス */
+    private String driverClass = "oracle.jdbc.driver.OracleDriver";
+    /** SQL実行記録の出力先（nullの時、記録しない） */
+    private String captureFile = null;
+    /** IN句の分割件数（1回のSQLでバインドするキー数 Oracleの上限は1000） */
+    private int inListSize = 1000;
+    /** 検索結果のメモリ保持の容量上限（バイト 概算 超過分は一時ファイルへ退避） */
+    private long spillThreshold = 64L * 1024 * 1024;
 
     /**
      * クローンオブジェクトの生成
@@ -135,4 +211,328 @@ public class MyDatabaseInfo implements Cloneable {
         return this;
     }
 
+    /**
+     * プール最小接続数を取得します。
+     * @return プール最小接続数
+     */
+    public int getPoolMinSize() {
+        return poolMinSize;
+    }
+
+    /**
+     * プール最小接続数を設定します。
+     * @param poolMinSize プール最小接続数
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setPoolMinSize(int poolMinSize) {
+        this.poolMinSize = poolMinSize;
+        return this;
+    }
+
+    /**
+     * プール最大接続数を取得します。
+     * @return プール最大接続数
+     */
+    public int getPoolMaxSize() {
+        return poolMaxSize;
+    }
+
+    /**
+     * プール最大接続数を設定します。
+     * @param poolMaxSize プール最大接続数
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setPoolMaxSize(int poolMaxSize) {
+        this.poolMaxSize = poolMaxSize;
+        return this;
+    }
+
+    /**
+     * プール取得待ちタイムアウト（ミリ秒）を取得します。
+     * @return プール取得待ちタイムアウト（ミリ秒）
+     */
+    public long getPoolBorrowTimeout() {
+        return poolBorrowTimeout;
+    }
+
+    /**
+     * プール取得待ちタイムアウト（ミリ秒）を設定します。
+     * @param poolBorrowTimeout プール取得待ちタイムアウト（ミリ秒）
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setPoolBorrowTimeout(long poolBorrowTimeout) {
+        this.poolBorrowTimeout = poolBorrowTimeout;
+        return this;
+    }
+
+    /**
+     * プール接続検証SQLを取得します。
+     * @return プール接続検証SQL
+     */
+    public String getPoolValidationQuery() {
+        return poolValidationQuery;
+    }
+
+    /**
+     * プール接続検証SQL（空白の時、検証しない）を設定します。
+     * @param poolValidationQuery プール接続検証SQL
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setPoolValidationQuery(String poolValidationQuery) {
+        this.poolValidationQuery = poolValidationQuery;
+        return this;
+    }
+
+    /**
+     * プールアイドルタイムアウト（ミリ秒）を取得します。
+     * @return プールアイドルタイムアウト（ミリ秒）
+     */
+    public long getPoolIdleTimeout() {
+        return poolIdleTimeout;
+    }
+
+    /**
+     * プールアイドルタイムアウト（ミリ秒 0以下の時、破棄しない）を設定します。
+     * @param poolIdleTimeout プールアイドルタイムアウト（ミリ秒）
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setPoolIdleTimeout(long poolIdleTimeout) {
+        this.poolIdleTimeout = poolIdleTimeout;
+        return this;
+    }
+
+    /**
+     * PreparedStatementキャッシュ上限数を取得します。
+     * @return PreparedStatementキャッシュ上限数
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * PreparedStatementキャッシュ上限数（コネクション毎 0以下の時、キャッシュしない）を設定します。
+     * @param statementCacheSize PreparedStatementキャッシュ上限数
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+        return this;
+    }
+
+    /**
+     * カーソル取得時のフェッチサイズを取得します。
+     * @return フェッチサイズ
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * カーソル取得時のフェッチサイズ（1回の通信で取得する行数）を設定します。
+     * @param fetchSize フェッチサイズ
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * バッチ実行件数を取得します。
+     * @return バッチ実行件数
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * バッチ実行件数（1回のexecuteBatchで送信する行数）を設定します。
+     * @param batchSize バッチ実行件数
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * 検索結果キャッシュの有効期限（ミリ秒）を取得します。
+     * @return 検索結果キャッシュの有効期限（ミリ秒）
+     */
+    public long getQueryCacheTtl() {
+        return queryCacheTtl;
+    }
+
+    /**
+     * 検索結果キャッシュの有効期限（ミリ秒 0以下の時、キャッシュしない）を設定します。
+     * @param queryCacheTtl 検索結果キャッシュの有効期限（ミリ秒）
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setQueryCacheTtl(long queryCacheTtl) {
+        this.queryCacheTtl = queryCacheTtl;
+        return this;
+    }
+
+    /**
+     * 検索結果キャッシュの容量上限（バイト）を取得します。
+     * @return 検索結果キャッシュの容量上限（バイト）
+     */
+    public long getQueryCacheMaxBytes() {
+        return queryCacheMaxBytes;
+    }
+
+    /**
+     * 検索結果キャッシュの容量上限（バイト 概算）を設定します。
+     * @param queryCacheMaxBytes 検索結果キャッシュの容量上限（バイト）
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setQueryCacheMaxBytes(long queryCacheMaxBytes) {
+        this.queryCacheMaxBytes = queryCacheMaxBytes;
+        return this;
+    }
+
+    /**
+     * スロークエリの閾値（ミリ秒）を取得します。
+     * @return スロークエリの閾値（ミリ秒）
+     */
+    public long getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    /**
+     * スロークエリの閾値（ミリ秒 0以下の時、出力しない）を設定します。
+     * @param slowQueryThreshold スロークエリの閾値（ミリ秒）
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setSlowQueryThreshold(long slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+        return this;
+    }
+
+    /**
+     * コミット後にプライマリから参照する期間（ミリ秒）を取得します。
+     * @return コミット後にプライマリから参照する期間（ミリ秒）
+     */
+    public long getPrimaryReadAfterCommit() {
+        return primaryReadAfterCommit;
+    }
+
+    /**
+     * コミット後にプライマリから参照する期間（ミリ秒 0以下の時、直ちにレプリカから参照）を設定します。
+     * @param primaryReadAfterCommit コミット後にプライマリから参照する期間（ミリ秒）
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setPrimaryReadAfterCommit(long primaryReadAfterCommit) {
+        this.primaryReadAfterCommit = primaryReadAfterCommit;
+        return this;
+    }
+
+    /**
+     * ウォームアップ時に準備するSQL文を取得します。
+     * @return ウォームアップ時に準備するSQL文
+     */
+    public List<String> getWarmupStatements() {
+        return warmupStatements;
+    }
+
+    /**
+     * ウォームアップ時に準備するSQL文（全接続のPreparedStatementキャッシュに登録）を設定します。
+     * @param warmupStatements ウォームアップ時に準備するSQL文
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setWarmupStatements(List<String> warmupStatements) {
+        this.warmupStatements = Collections.unmodifiableList(new ArrayList<String>(warmupStatements));
+        return this;
+    }
+
+    /**
+     * ウォームアップ時に実行するSQL文を取得します。
+     * @return ウォームアップ時に実行するSQL文
+     */
+    public List<String> getWarmupQueries() {
+        return warmupQueries;
+    }
+
+    /**
+     * ウォームアップ時に実行するSQL文（参照SQLのみ）を設定します。
+     * @param warmupQueries ウォームアップ時に実行するSQL文
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setWarmupQueries(List<String> warmupQueries) {
+        this.warmupQueries = Collections.unmodifiableList(new ArrayList<String>(warmupQueries));
+        return this;
+    }
+
+    /**
+     * JDBCドライバクラスを取得します。
+     * @return JDBCドライバクラス
+     */
+    public String getDriverClass() {
+        return driverClass;
+    }
+
+    /**
+     * JDBCドライバクラスを設定します。
+     * @param driverClass JDBCドライバクラス
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setDriverClass(String driverClass) {
+        this.driverClass = driverClass;
+        return this;
+    }
+
+    /**
+     * SQL実行記録の出力先を取得します。
+     * @return SQL実行記録の出力先
+     */
+    public String getCaptureFile() {
+        return captureFile;
+    }
+
+    /**
+     * SQL実行記録の出力先（nullの時、記録しない）を設定します。
+     * @param captureFile SQL実行記録の出力先
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setCaptureFile(String captureFile) {
+        this.captureFile = captureFile;
+        return this;
+    }
+
+    /**
+     * IN句の分割件数を取得します。
+     * @return IN句の分割件数
+     */
+    public int getInListSize() {
+        return inListSize;
+    }
+
+    /**
+     * IN句の分割件数（1回のSQLでバインドするキー数 Oracleの上限は1000）を設定します。
+     * @param inListSize IN句の分割件数
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setInListSize(int inListSize) {
+        this.inListSize = inListSize;
+        return this;
+    }
+
+    /**
+     * 検索結果のメモリ保持の容量上限（バイト）を取得します。
+     * @return 検索結果のメモリ保持の容量上限（バイト）
+     */
+    public long getSpillThreshold() {
+        return spillThreshold;
+    }
+
+    /**
+     * 検索結果のメモリ保持の容量上限（バイト 概算 超過分は一時ファイルへ退避）を設定します。
+     * @param spillThreshold 検索結果のメモリ保持の容量上限（バイト）
+     * @return thisClassObj
+     */
+    public MyDatabaseInfo setSpillThreshold(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+        return this;
+    }
+
 }
@@ -0,0 +1,325 @@
+package my.bean;
+
+import my.utils.MyFileUtil.EncodeType;
+import my.utils.MyFileUtil.LineFeedType;
+
+/**
+ * 区切り文字ファイル出力情報格納クラス<br>
+ * （SQLの実行結果を分割して並列にファイル出力する時の設定）
+ * @author 7days
+ */
+public class MyExportInfo {
+
+    /**
+     * 分割方式
+     */
+    public enum PartitionType {
+        /** 分割しない */
+        NONE,
+        /** 分割キー項目の値の範囲で分割 */
+        KEY_RANGE,
+        /** テーブルのROWIDの範囲（エクステント単位）で分割 */
+        ROWID_RANGE,
+    }
+
+    /** 出力SQL文（分割方式がNONE・KEY_RANGEの時） */
+    private String sql = null;
+    /** パラメータ（バインド変数「?」形式） */
+    private Object[] params = new Object[0];
+    /** 出力テーブル名（分割方式がROWID_RANGEの時 自スキーマのテーブル） */
+    private String tableName = null;
+    /** 出力項目（分割方式がROWID_RANGEの時 カンマ区切り） */
+    private String columns = "*";
+    /** 抽出条件（分割方式がROWID_RANGEの時 バインド変数はパラメータで指定） */
+    private String where = null;
+    /** 分割方式 */
+    private PartitionType partitionType = PartitionType.NONE;
+    /** 分割キー項目（分割方式がKEY_RANGEの時 数値項目のみ） */
+    private String partitionColumn = null;
+    /** 分割数（並列実行数） */
+    private int partitionCount = 1;
+    /** 出力先パス（結合しない時、拡張子の前に分割番号を付与） */
+    private String outputPath = null;
+    /** 出力ファイルの結合有無（true:１ファイルに結合 false:分割毎に出力） */
+    private boolean merge = true;
+    /** 文字コード */
+    private EncodeType encode = EncodeType.DEFAULT;
+    /** 改行コード */
+    private LineFeedType lineFeed = LineFeedType.DEFAULT;
+    /** 区切り文字 */
+    private String delimiter = ",";
+    /** 値の囲み有無（「"」で囲み、値の「"」は「""」に変換） */
+    private boolean quote = true;
+    /** 項目名行の出力有無 */
+    private boolean header = true;
+
+    /**
+     * 出力SQL文を取得します。
+     * @return 出力SQL文
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * 出力SQL文（分割方式がNONE・KEY_RANGEの時）を設定します。
+     * @param sql 出力SQL文
+     * @return thisClassObj
+     */
+    public MyExportInfo setSql(String sql) {
+        this.sql = sql;
+        return this;
+    }
+
+    /**
+     * パラメータを取得します。
+     * @return パラメータ
+     */
+    public Object[] getParams() {
+        return params;
+    }
+
+    /**
+     * パラメータ（バインド変数「?」形式）を設定します。
+     * @param params パラメータ
+     * @return thisClassObj
+     */
+    public MyExportInfo setParams(Object... params) {
+        this.params = params;
+        return this;
+    }
+
+    /**
+     * 出力テーブル名を取得します。
+     * @return 出力テーブル名
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * 出力テーブル名（分割方式がROWID_RANGEの時 自スキーマのテーブル）を設定します。
+     * @param tableName 出力テーブル名
+     * @return thisClassObj
+     */
+    public MyExportInfo setTableName(String tableName) {
+        this.tableName = tableName;
+        return this;
+    }
+
+    /**
+     * 出力項目を取得します。
+     * @return 出力項目
+     */
+    public String getColumns() {
+        return columns;
+    }
+
+    /**
+     * 出力項目（分割方式がROWID_RANGEの時 カンマ区切り）を設定します。
+     * @param columns 出力項目
+     * @return thisClassObj
+     */
+    public MyExportInfo setColumns(String columns) {
+        this.columns = columns;
+        return this;
+    }
+
+    /**
+     * 抽出条件を取得します。
+     * @return 抽出条件
+     */
+    public String getWhere() {
+        return where;
+    }
+
+    /**
+     * 抽出条件（分割方式がROWID_RANGEの時 バインド変数はパラメータで指定）を設定します。
+     * @param where 抽出条件
+     * @return thisClassObj
+     */
+    public MyExportInfo setWhere(String where) {
+        this.where = where;
+        return this;
+    }
+
+    /**
+     * 分割方式を取得します。
+     * @return 分割方式
+     */
+    public PartitionType getPartitionType() {
+        return partitionType;
+    }
+
+    /**
+     * 分割方式を設定します。
+     * @param partitionType 分割方式
+     * @return thisClassObj
+     */
+    public MyExportInfo setPartitionType(PartitionType partitionType) {
+        this.partitionType = partitionType;
+        return this;
+    }
+
+    /**
+     * 分割キー項目を取得します。
+     * @return 分割キー項目
+     */
+    public String getPartitionColumn() {
+        return partitionColumn;
+    }
+
+    /**
+     * 分割キー項目（分割方式がKEY_RANGEの時 数値項目のみ。数値型以外は出力時にSQLException）を設定します。
+     * @param partitionColumn 分割キー項目
+     * @return thisClassObj
+     */
+    public MyExportInfo setPartitionColumn(String partitionColumn) {
+        this.partitionColumn = partitionColumn;
+        return this;
+    }
+
+    /**
+     * 分割数を取得します。
+     * @return 分割数
+     */
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * 分割数（並列実行数）を設定します。
+     * @param partitionCount 分割数
+     * @return thisClassObj
+     */
+    public MyExportInfo setPartitionCount(int partitionCount) {
+        this.partitionCount = partitionCount;
+        return this;
+    }
+
+    /**
+     * 出力先パスを取得します。
+     * @return 出力先パス
+     */
+    public String getOutputPath() {
+        return outputPath;
+    }
+
+    /**
+     * 出力先パス（結合しない時、拡張子の前に分割番号を付与）を設定します。
+     * @param outputPath 出力先パス
+     * @return thisClassObj
+     */
+    public MyExportInfo setOutputPath(String outputPath) {
+        this.outputPath = outputPath;
+        return this;
+    }
+
+    /**
+     * 出力ファイルの結合有無を取得します。
+     * @return 出力ファイルの結合有無
+     */
+    public boolean isMerge() {
+        return merge;
+    }
+
+    /**
+     * 出力ファイルの結合有無（true:１ファイルに結合 false:分割毎に出力）を設定します。
+     * @param merge 出力ファイルの結合有無
+     * @return thisClassObj
+     */
+    public MyExportInfo setMerge(boolean merge) {
+        this.merge = merge;
+        return this;
+    }
+
+    /**
+     * 文字コードを取得します。
+     * @return 文字コード
+     */
+    public EncodeType getEncode() {
+        return encode;
+    }
+
+    /**
+     * 文字コードを設定します。
+     * @param encode 文字コード
+     * @return thisClassObj
+     */
+    public MyExportInfo setEncode(EncodeType encode) {
+        this.encode = encode;
+        return this;
+    }
+
+    /**
+     * 改行コードを取得します。
+     * @return 改行コード
+     */
+    public LineFeedType getLineFeed() {
+        return lineFeed;
+    }
+
+    /**
+     * 改行コードを設定します。
+     * @param lineFeed 改行コード
+     * @return thisClassObj
+     */
+    public MyExportInfo setLineFeed(LineFeedType lineFeed) {
+        this.lineFeed = lineFeed;
+        return this;
+    }
+
+    /**
+     * 区切り文字を取得します。
+     * @return 区切り文字
+     */
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * 区切り文字を設定します。
+     * @param delimiter 区切り文字
+     * @return thisClassObj
+     */
+    public MyExportInfo setDelimiter(String delimiter) {
+        this.delimiter = delimiter;
+        return this;
+    }
+
+    /**
+     * 値の囲み有無を取得します。
+     * @return 値の囲み有無
+     */
+    public boolean isQuote() {
+        return quote;
+    }
+
+    /**
+     * 値の囲み有無（「"」で囲み、値の「"」は「""」に変換）を設定します。
+     * @param quote 値の囲み有無
+     * @return thisClassObj
+     */
+    public MyExportInfo setQuote(boolean quote) {
+        this.quote = quote;
+        return this;
+    }
+
+    /**
+     * 項目名行の出力有無を取得します。
+     * @return 項目名行の出力有無
+     */
+    public boolean isHeader() {
+        return header;
+    }
+
+    /**
+     * 項目名行の出力有無を設定します。
+     * @param header 項目名行の出力有無
+     * @return thisClassObj
+     */
+    public MyExportInfo setHeader(boolean header) {
+        this.header = header;
+        return this;
+    }
+}
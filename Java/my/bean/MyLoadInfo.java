@@ -0,0 +1,293 @@
+package my.bean;
+
+import my.utils.MyFileUtil.EncodeType;
+import my.utils.MyFileUtil.LineFeedType;
+
+/**
+ * 区切り文字ファイル登録情報格納クラス<br>
+ * （ファイルを読込みながら並列にバッチ登録する時の設定）
+ * @author 7days
+ */
+public class MyLoadInfo {
+
+    /** 入力ファイルパス */
+    private String inputPath = null;
+    /** 文字コード（入力・リジェクトファイル） */
+    private EncodeType encode = EncodeType.DEFAULT;
+    /** 登録SQL文（バインド変数「?」形式 項目の出現順に対応） */
+    private String sql = null;
+    /** 区切り文字 */
+    private String delimiter = ",";
+    /** 値の囲み有無（「"」で囲まれた値の区切り文字を値として扱い、「""」を「"」に変換） */
+    private boolean quote = true;
+    /** 読み飛ばす先頭行数（項目名行など） */
+    private int headerLines = 0;
+    /** 並列実行数（使用するコネクション数） */
+    private int threadCount = 4;
+    /** バッチ実行件数（0以下の時、DB接続情報の設定値） */
+    private int batchSize = 0;
+    /** コミット行数（並列実行毎） */
+    private int commitInterval = 10000;
+    /** 読込待ちのバッチ数（読込と登録の間のキュー上限） */
+    private int queueSize = 16;
+    /** リジェクトファイルパス（不正行・登録失敗行を出力 nullの時、出力しない） */
+    private String rejectPath = null;
+    /** リジェクトファイルの改行コード */
+    private LineFeedType lineFeed = LineFeedType.DEFAULT;
+    /** 再開有無（true:チェックポイントのコミット済行を読み飛ばす） */
+    private boolean restart = false;
+    /** チェックポイントファイルパス（nullの時、入力ファイルパス + 「.checkpoint」） */
+    private String checkpointPath = null;
+
+    /**
+     * 入力ファイルパスを取得します。
+     * @return 入力ファイルパス
+     */
+    public String getInputPath() {
+        return inputPath;
+    }
+
+    /**
+     * 入力ファイルパスを設定します。
+     * @param inputPath 入力ファイルパス
+     * @return thisClassObj
+     */
+    public MyLoadInfo setInputPath(String inputPath) {
+        this.inputPath = inputPath;
+        return this;
+    }
+
+    /**
+     * 文字コードを取得します。
+     * @return 文字コード
+     */
+    public EncodeType getEncode() {
+        return encode;
+    }
+
+    /**
+     * 文字コード（入力・リジェクトファイル）を設定します。
+     * @param encode 文字コード
+     * @return thisClassObj
+     */
+    public MyLoadInfo setEncode(EncodeType encode) {
+        this.encode = encode;
+        return this;
+    }
+
+    /**
+     * 登録SQL文を取得します。
+     * @return 登録SQL文
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * 登録SQL文（バインド変数「?」形式 項目の出現順に対応）を設定します。
+     * @param sql 登録SQL文
+     * @return thisClassObj
+     */
+    public MyLoadInfo setSql(String sql) {
+        this.sql = sql;
+        return this;
+    }
+
+    /**
+     * 区切り文字を取得します。
+     * @return 区切り文字
+     */
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * 区切り文字を設定します。
+     * @param delimiter 区切り文字
+     * @return thisClassObj
+     */
+    public MyLoadInfo setDelimiter(String delimiter) {
+        this.delimiter = delimiter;
+        return this;
+    }
+
+    /**
+     * 値の囲み有無を取得します。
+     * @return 値の囲み有無
+     */
+    public boolean isQuote() {
+        return quote;
+    }
+
+    /**
+     * 値の囲み有無（「"」で囲まれた値の区切り文字を値として扱い、「""」を「"」に変換）を設定します。
+     * @param quote 値の囲み有無
+     * @return thisClassObj
+     */
+    public MyLoadInfo setQuote(boolean quote) {
+        this.quote = quote;
+        return this;
+    }
+
+    /**
+     * 読み飛ばす先頭行数を取得します。
+     * @return 読み飛ばす先頭行数
+     */
+    public int getHeaderLines() {
+        return headerLines;
+    }
+
+    /**
+     * 読み飛ばす先頭行数（項目名行など）を設定します。
+     * @param headerLines 読み飛ばす先頭行数
+     * @return thisClassObj
+     */
+    public MyLoadInfo setHeaderLines(int headerLines) {
+        this.headerLines = headerLines;
+        return this;
+    }
+
+    /**
+     * 並列実行数を取得します。
+     * @return 並列実行数
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * 並列実行数（使用するコネクション数）を設定します。
+     * @param threadCount 並列実行数
+     * @return thisClassObj
+     */
+    public MyLoadInfo setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+        return this;
+    }
+
+    /**
+     * バッチ実行件数を取得します。
+     * @return バッチ実行件数
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * バッチ実行件数（0以下の時、DB接続情報の設定値）を設定します。
+     * @param batchSize バッチ実行件数
+     * @return thisClassObj
+     */
+    public MyLoadInfo setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * コミット行数を取得します。
+     * @return コミット行数
+     */
+    public int getCommitInterval() {
+        return commitInterval;
+    }
+
+    /**
+     * コミット行数（並列実行毎）を設定します。
+     * @param commitInterval コミット行数
+     * @return thisClassObj
+     */
+    public MyLoadInfo setCommitInterval(int commitInterval) {
+        this.commitInterval = commitInterval;
+        return this;
+    }
+
+    /**
+     * 読込待ちのバッチ数を取得します。
+     * @return 読込待ちのバッチ数
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * 読込待ちのバッチ数（読込と登録の間のキュー上限）を設定します。
+     * @param queueSize 読込待ちのバッチ数
+     * @return thisClassObj
+     */
+    public MyLoadInfo setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    /**
+     * リジェクトファイルパスを取得します。
+     * @return リジェクトファイルパス
+     */
+    public String getRejectPath() {
+        return rejectPath;
+    }
+
+    /**
+     * リジェクトファイルパス（不正行・登録失敗行を出力 nullの時、出力しない）を設定します。
+     * @param rejectPath リジェクトファイルパス
+     * @return thisClassObj
+     */
+    public MyLoadInfo setRejectPath(String rejectPath) {
+        this.rejectPath = rejectPath;
+        return this;
+    }
+
+    /**
+     * リジェクトファイルの改行コードを取得します。
+     * @return リジェクトファイルの改行コード
+     */
+    public LineFeedType getLineFeed() {
+        return lineFeed;
+    }
+
+    /**
+     * リジェクトファイルの改行コードを設定します。
+     * @param lineFeed リジェクトファイルの改行コード
+     * @return thisClassObj
+     */
+    public MyLoadInfo setLineFeed(LineFeedType lineFeed) {
+        this.lineFeed = lineFeed;
+        return this;
+    }
+
+    /**
+     * 再開有無を取得します。
+     * @return 再開有無
+     */
+    public boolean isRestart() {
+        return restart;
+    }
+
+    /**
+     * 再開有無（true:チェックポイントのコミット済行を読み飛ばす）を設定します。
+     * @param restart 再開有無
+     * @return thisClassObj
+     */
+    public MyLoadInfo setRestart(boolean restart) {
+        this.restart = restart;
+        return this;
+    }
+
+    /**
+     * チェックポイントファイルパスを取得します。
+     * @return チェックポイントファイルパス
+     */
+    public String getCheckpointPath() {
+        return checkpointPath;
+    }
+
+    /**
+     * チェックポイントファイルパス（nullの時、入力ファイルパス + 「.checkpoint」）を設定します。
+     * @param checkpointPath チェックポイントファイルパス
+     * @return thisClassObj
+     */
+    public MyLoadInfo setCheckpointPath(String checkpointPath) {
+        this.checkpointPath = checkpointPath;
+        return this;
+    }
+}
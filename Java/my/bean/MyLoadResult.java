@@ -0,0 +1,89 @@
+package my.bean;
+
+/**
+ * 区切り文字ファイル登録結果格納クラス
+ * @author 7days
+ */
+public class MyLoadResult {
+
+    /** 読込行数（先頭の読み飛ばし行を除く） */
+    private long readCount = 0;
+    /** 登録行数 */
+    private long loadCount = 0;
+    /** リジェクト行数（不正行・登録失敗行） */
+    private long rejectCount = 0;
+    /** 再開時の読み飛ばし行数（前回コミット済） */
+    private long skipCount = 0;
+
+    /**
+     * 読込行数を取得します。
+     * @return 読込行数
+     */
+    public long getReadCount() {
+        return readCount;
+    }
+
+    /**
+     * 読込行数（先頭の読み飛ばし行を除く）を設定します。
+     * @param readCount 読込行数
+     * @return thisClassObj
+     */
+    public MyLoadResult setReadCount(long readCount) {
+        this.readCount = readCount;
+        return this;
+    }
+
+    /**
+     * 登録行数を取得します。
+     * @return 登録行数
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * 登録行数を設定します。
+     * @param loadCount 登録行数
+     * @return thisClassObj
+     */
+    public MyLoadResult setLoadCount(long loadCount) {
+        this.loadCount = loadCount;
+        return this;
+    }
+
+    /**
+     * リジェクト行数を取得します。
+     * @return リジェクト行数
+     */
+    public long getRejectCount() {
+        return rejectCount;
+    }
+
+    /**
+     * リジェクト行数（不正行・登録失敗行）を設定します。
+     * @param rejectCount リジェクト行数
+     * @return thisClassObj
+     */
+    public MyLoadResult setRejectCount(long rejectCount) {
+        this.rejectCount = rejectCount;
+        return this;
+    }
+
+    /**
+     * 再開時の読み飛ばし行数を取得します。
+     * @return 再開時の読み飛ばし行数
+     */
+    public long getSkipCount() {
+        return skipCount;
+    }
+
+    /**
+     * 再開時の読み飛ばし行数（前回コミット済）を設定します。
+     * @param skipCount 再開時の読み飛ばし行数
+     * @return thisClassObj
+     */
+    public MyLoadResult setSkipCount(long skipCount) {
+        this.skipCount = skipCount;
+        return this;
+    }
+}
@@ -0,0 +1,92 @@
+package my.bean;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ページ検索結果格納クラス
+ * @author 7days
+ */
+public class MyPage {
+
+    /** ページの行データ */
+    private List<Map<String, String>> rows = null;
+    /** ページ最終行のキー値（次ページ検索時に指定。複合キーの時、Object[]） */
+    private Object lastKey = null;
+    /** 次ページの有無 */
+    private boolean hasNext = false;
+    /** 全件数（未取得の時、-1） */
+    private long totalCount = -1;
+
+    /**
+     * ページの行データを取得します。
+     * @return ページの行データ
+     */
+    public List<Map<String, String>> getRows() {
+        return rows;
+    }
+
+    /**
+     * ページの行データを設定します。
+     * @param rows ページの行データ
+     * @return thisClassObj
+     */
+    public MyPage setRows(List<Map<String, String>> rows) {
+        this.rows = rows;
+        return this;
+    }
+
+    /**
+     * ページ最終行のキー値を取得します。
+     * @return ページ最終行のキー値（DBの型のまま 複合キーの時、Object[] 行なしの時、null）
+     */
+    public Object getLastKey() {
+        return lastKey;
+    }
+
+    /**
+     * ページ最終行のキー値を設定します。
+     * @param lastKey ページ最終行のキー値
+     * @return thisClassObj
+     */
+    public MyPage setLastKey(Object lastKey) {
+        this.lastKey = lastKey;
+        return this;
+    }
+
+    /**
+     * 次ページの有無を取得します。
+     * @return 次ページの有無
+     */
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    /**
+     * 次ページの有無を設定します。
+     * @param hasNext 次ページの有無
+     * @return thisClassObj
+     */
+    public MyPage setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+        return this;
+    }
+
+    /**
+     * 全件数を取得します。
+     * @return 全件数（未取得の時、-1）
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * 全件数を設定します。
+     * @param totalCount 全件数
+     * @return thisClassObj
+     */
+    public MyPage setTotalCount(long totalCount) {
+        this.totalCount = totalCount;
+        return this;
+    }
+}
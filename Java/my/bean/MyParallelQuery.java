@@ -0,0 +1,122 @@
+package my.bean;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 並列検索情報格納クラス<br>
+ * （名前付きの独立したSELECT文の一覧と、並列数・期限・エラー時の方針）
+ * @author 7days
+ */
+public class MyParallelQuery {
+
+    /** エラー時の方針 */
+    public enum ErrorPolicy {
+        /** 最初のエラーで未実行の検索を中止し、例外を送出 */
+        FAIL_FAST,
+        /** 全件を実行し、エラーは結果に格納 */
+        COLLECT_ALL
+    }
+
+    /** SQL文 [key：名前 / value：SQL文]（登録順） */
+    private final Map<String, String> sqlMap = new LinkedHashMap<String, String>();
+    /** パラメータ [key：名前 / value：パラメータ] */
+    private final Map<String, Object[]> paramsMap = new LinkedHashMap<String, Object[]>();
+    /** 並列数（使用する最大接続数 0以下の時、プール最大接続数） */
+    private int parallelism = 0;
+    /** 全体の期限（ミリ秒 0以下の時、無制限） */
+    private long timeout = 0;
+    /** エラー時の方針 */
+    private ErrorPolicy errorPolicy = ErrorPolicy.FAIL_FAST;
+
+    /**
+     * 検索を追加します。
+     * @param name 名前（重複不可）
+     * @param sql SQL文
+     * @param params パラメータ（バインド変数「?」形式）
+     * @return thisClassObj
+     */
+    public MyParallelQuery add(String name,
+                               String sql,
+                               Object... params) {
+        if (sqlMap.containsKey(name)) {
+            throw new IllegalArgumentException("duplicate query name : " + name);
+        }
+        sqlMap.put(name, sql);
+        paramsMap.put(name, params);
+        return this;
+    }
+
+    /**
+     * SQL文を取得します。
+     * @return SQL文 [key：名前 / value：SQL文]（登録順）
+     */
+    public Map<String, String> getSqlMap() {
+        return Collections.unmodifiableMap(sqlMap);
+    }
+
+    /**
+     * パラメータを取得します。
+     * @param name 名前
+     * @return パラメータ
+     */
+    public Object[] getParams(String name) {
+        return paramsMap.get(name);
+    }
+
+    /**
+     * 並列数を取得します。
+     * @return 並列数
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 並列数（使用する最大接続数 0以下の時、プール最大接続数）を設定します。
+     * @param parallelism 並列数
+     * @return thisClassObj
+     */
+    public MyParallelQuery setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 全体の期限（ミリ秒）を取得します。
+     * @return 全体の期限（ミリ秒）
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * 全体の期限（ミリ秒 0以下の時、無制限）を設定します。
+     * @param timeout 全体の期限（ミリ秒）
+     * @return thisClassObj
+     */
+    public MyParallelQuery setTimeout(long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * エラー時の方針を取得します。
+     * @return エラー時の方針
+     */
+    public ErrorPolicy getErrorPolicy() {
+        return errorPolicy;
+    }
+
+    /**
+     * エラー時の方針を設定します。
+     * @param errorPolicy エラー時の方針
+     * @return thisClassObj
+     */
+    public MyParallelQuery setErrorPolicy(ErrorPolicy errorPolicy) {
+        this.errorPolicy = errorPolicy;
+        return this;
+    }
+
+}
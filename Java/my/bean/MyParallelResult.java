@@ -0,0 +1,97 @@
+package my.bean;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 並列検索結果格納クラス
+ * @author 7days
+ */
+public class MyParallelResult {
+
+    /** 実行結果 [key：名前 / value：実行結果]（登録順） */
+    private final Map<String, List<Map<String, String>>> results = new LinkedHashMap<String, List<Map<String, String>>>();
+    /** エラー [key：名前 / value：エラー]（期限切れ・中止を含む） */
+    private final Map<String, SQLException> errors = new LinkedHashMap<String, SQLException>();
+    /** 処理時間（ミリ秒） */
+    private long elapsedMillis = 0;
+
+    /**
+     * 実行結果を取得します。
+     * @param name 名前
+     * @return 実行結果（エラーの時、null）
+     */
+    public List<Map<String, String>> get(String name) {
+        return results.get(name);
+    }
+
+    /**
+     * 全ての実行結果を取得します。
+     * @return 実行結果 [key：名前 / value：実行結果]（登録順）
+     */
+    public Map<String, List<Map<String, String>>> getResults() {
+        return Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * 実行結果を追加します。
+     * @param name 名前
+     * @param result 実行結果
+     * @return thisClassObj
+     */
+    public MyParallelResult addResult(String name,
+                                      List<Map<String, String>> result) {
+        results.put(name, result);
+        return this;
+    }
+
+    /**
+     * エラーを取得します。
+     * @return エラー [key：名前 / value：エラー]
+     */
+    public Map<String, SQLException> getErrors() {
+        return Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * エラーを追加します。
+     * @param name 名前
+     * @param e エラー
+     * @return thisClassObj
+     */
+    public MyParallelResult addError(String name,
+                                     SQLException e) {
+        errors.put(name, e);
+        return this;
+    }
+
+    /**
+     * エラー有無を取得します。
+     * @return エラー有無
+     */
+    public boolean hasError() {
+        return !errors.isEmpty();
+    }
+
+    /**
+     * 処理時間（ミリ秒）を取得します。
+     * @return 処理時間（ミリ秒）
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 処理時間（ミリ秒）を設定します。
+     * @param elapsedMillis 処理時間（ミリ秒）
+     * @return thisClassObj
+     */
+    public MyParallelResult setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+        return this;
+    }
+
+}
@@ -0,0 +1,233 @@
+package my.manager;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import my.utils.MyStringUtil;
+
+import org.apache.log4j.Logger;
+
+/**
+ * 検索結果のBean変換クラス<br>
+ * （SQL文と格納クラスの組み合わせ毎に、項目名⇒Setterの対応と型毎の取得方法を初回のみ解決。<br>
+ * 項目名はキャメルケース化してSetterに対応付け（例：EMP_NAME ⇒ setEmpName）。<br>
+ * Setterがオーバーロードされている時は、値の取得方法の登録順で先の型を使用）
+ * @author 7days
+ */
+class MyBeanRowMapper<T> {
+
+    /** Logger */
+    private static final Logger logger = Logger.getLogger(MyBeanRowMapper.class);
+
+    /** Setterメソッド */
+    private static final String SET = "set";
+
+    /** 解決結果キャッシュ上限数 */
+    private static final int CACHE_MAX_SIZE = 1000;
+    /** 解決結果キャッシュ [格納クラス ⇒ [key：SQL文 / value：解決結果]] */
+    private static final ClassValue<Map<String, MyBeanRowMapper<?>>> CACHE = new ClassValue<Map<String, MyBeanRowMapper<?>>>() {
+        @Override
+        protected Map<String, MyBeanRowMapper<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<String, MyBeanRowMapper<?>>();
+        }
+    };
+
+    /** 型毎の値の取得方法（登録順がオーバーロード時の優先順 Stringは最後） */
+    private static final Map<Class<?>, ColumnReader> readerMap = new LinkedHashMap<Class<?>, ColumnReader>();
+    static {
+        readerMap.put(int.class, ResultSet::getInt);
+        readerMap.put(Integer.class, ResultSet::getInt);
+        readerMap.put(long.class, ResultSet::getLong);
+        readerMap.put(Long.class, ResultSet::getLong);
+        readerMap.put(double.class, ResultSet::getDouble);
+        readerMap.put(Double.class, ResultSet::getDouble);
+        readerMap.put(boolean.class, ResultSet::getBoolean);
+        readerMap.put(Boolean.class, ResultSet::getBoolean);
+        readerMap.put(BigDecimal.class, ResultSet::getBigDecimal);
+        readerMap.put(Timestamp.class, ResultSet::getTimestamp);
+        readerMap.put(java.util.Date.class, ResultSet::getTimestamp);
+        readerMap.put(java.sql.Date.class, ResultSet::getDate);
+        readerMap.put(LocalDateTime.class, (result, index) -> {
+            Timestamp value = result.getTimestamp(index);
+            return value == null ? null : value.toLocalDateTime();
+        });
+        readerMap.put(LocalDate.class, (result, index) -> {
+            java.sql.Date value = result.getDate(index);
+            return value == null ? null : value.toLocalDate();
+        });
+        readerMap.put(String.class, ResultSet::getString);
+    }
+
+    /** 値の取得方法 */
+    @FunctionalInterface
+    private interface ColumnReader {
+        /**
+         * 値の取得
+         * @param result ResultSet
+         * @param index 列番号（1始まり）
+         * @return 値
+         * @throws SQLException
+         */
+        Object read(ResultSet result,
+                    int index) throws SQLException;
+    }
+
+    /** 格納クラスのコンストラクタ */
+    private final Constructor<T> constructor;
+    /** 項目数 */
+    private final int columnCount;
+    /** 対応する列番号（1始まり） */
+    private final int[] indexes;
+    /** 対応するSetter */
+    private final Method[] setters;
+    /** 対応する値の取得方法 */
+    private final ColumnReader[] readers;
+    /** プリミティブ型の有無（NULLの時、設定しない） */
+    private final boolean[] primitives;
+
+    /**
+     * コンストラクタ<br>
+     * （項目名⇒Setterの対応を解決）
+     * @param beanClass 格納クラス
+     * @param metaData 検索結果の項目情報
+     * @throws SQLException
+     */
+    private MyBeanRowMapper(Class<T> beanClass,
+                            ResultSetMetaData metaData) throws SQLException {
+        try {
+            this.constructor = beanClass.getDeclaredConstructor();
+            this.constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new SQLException("bean constructor not found : " + beanClass.getName(), e);
+        }
+
+        // Setterの取得（継承クラスを含む public・引数１つ）[key：プロパティ名 / value：Setter]
+        List<Class<?>> typeOrder = new ArrayList<Class<?>>(readerMap.keySet());
+        Map<String, Method> setterMap = new HashMap<String, Method>();
+        for (Method method : beanClass.getMethods()) {
+            String name = method.getName();
+            if (!name.startsWith(SET) || name.length() == SET.length() || method.getParameterCount() != 1
+                || !readerMap.containsKey(method.getParameterTypes()[0])) {
+                continue;
+            }
+            String property = Character.toLowerCase(name.charAt(SET.length())) + name.substring(SET.length() + 1);
+            Method current = setterMap.get(property);
+            if (current == null || typeOrder.indexOf(method.getParameterTypes()[0]) < typeOrder.indexOf(current.getParameterTypes()[0])) {
+                setterMap.put(property, method);
+            }
+        }
+
+        // 項目名⇒Setterの対応
+        this.columnCount = metaData.getColumnCount();
+        List<Integer> indexList = new ArrayList<Integer>();
+        List<Method> setterList = new ArrayList<Method>();
+        for (int i = 1; i <= columnCount; i++) {
+            String camel = MyStringUtil.camelCaseLower(metaData.getColumnLabel(i));
+            if (camel.isEmpty()) {
+                continue;
+            }
+            Method setter = setterMap.get(camel);
+            if (setter == null) {
+                logger.debug("setter not found : " + beanClass.getSimpleName() + "." + camel);
+                continue;
+            }
+            setter.setAccessible(true);
+            indexList.add(i);
+            setterList.add(setter);
+        }
+
+        int size = indexList.size();
+        this.indexes = new int[size];
+        this.setters = setterList.toArray(new Method[size]);
+        this.readers = new ColumnReader[size];
+        this.primitives = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            Class<?> type = setters[i].getParameterTypes()[0];
+            indexes[i] = indexList.get(i);
+            readers[i] = readerMap.get(type);
+            primitives[i] = type.isPrimitive();
+        }
+    }
+
+    /**
+     * 解決結果の取得<br>
+     * （未解決・項目数が異なる時、解決してキャッシュ）
+     * @param <T>
+     * @param sql SQL文
+     * @param beanClass 格納クラス
+     * @param result ResultSet
+     * @return 解決結果
+     * @throws SQLException
+     */
+    @SuppressWarnings("unchecked")
+    static <T> MyBeanRowMapper<T> get(String sql,
+                                      Class<T> beanClass,
+                                      ResultSet result) throws SQLException {
+        Map<String, MyBeanRowMapper<?>> sqlMap = CACHE.get(beanClass);
+        MyBeanRowMapper<T> mapper = (MyBeanRowMapper<T>) sqlMap.get(sql);
+        ResultSetMetaData metaData = result.getMetaData();
+        if (mapper != null && mapper.columnCount == metaData.getColumnCount()) {
+            return mapper;
+        }
+
+        mapper = new MyBeanRowMapper<T>(beanClass, metaData);
+        if (sqlMap.size() >= CACHE_MAX_SIZE) {
+            sqlMap.clear();
+        }
+        sqlMap.put(sql, mapper);
+        return mapper;
+    }
+
+    /**
+     * 全行の変換
+     * @param result ResultSet
+     * @return 格納オブジェクトのリスト
+     * @throws SQLException
+     */
+    List<T> mapAll(ResultSet result) throws SQLException {
+        List<T> list = new ArrayList<T>();
+        while (result.next()) {
+            list.add(map(result));
+        }
+        return list;
+    }
+
+    /**
+     * 現在行の変換
+     * @param result ResultSet
+     * @return 格納オブジェクト
+     * @throws SQLException
+     */
+    T map(ResultSet result) throws SQLException {
+        try {
+            T bean = constructor.newInstance();
+            for (int i = 0; i < setters.length; i++) {
+                Object value = readers[i].read(result, indexes[i]);
+                if (result.wasNull()) {
+                    if (primitives[i]) {
+                        continue;
+                    }
+                    value = null;
+                }
+                setters[i].invoke(bean, value);
+            }
+            return bean;
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new SQLException("bean mapping error : " + constructor.getDeclaringClass().getName(), e);
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package my.manager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import my.bean.MyDatabaseInfo;
+
+import org.apache.log4j.Logger;
+
+/**
+ * コネクションプールクラス<br>
+ * （最小・最大接続数、取得待ちタイムアウト、取得時の接続検証、アイドル接続の破棄）
+ * @author 7days
+ */
+class MyConnectionPool {
+
+    /** Logger */
+    private static final Logger logger = Logger.getLogger(MyConnectionPool.class);
+
+    /** DB接続情報 */
+    private final MyDatabaseInfo dbInfo;
+
+    /** 排他ロック */
+    private final ReentrantLock lock = new ReentrantLock();
+    /** 返却待ち条件 */
+    private final Condition available = lock.newCondition();
+    /** アイドルコネクション（先頭が直近の返却） */
+    private final Deque<MyPooledConnection> idleList = new ArrayDeque<MyPooledConnection>();
+    /** 全コネクション（貸出中を含む） */
+    private final Set<MyPooledConnection> allList = new HashSet<MyPooledConnection>();
+    /** 生成中の接続数 */
+    private int creatingCount = 0;
+    /** クローズ済フラグ */
+    private boolean closed = false;
+
+    /** アイドル接続の破棄スレッド */
+    private ScheduledExecutorService evictor = null;
+
+    /** SQL実行時間の半減期（ナノ秒 未計測の間、実行時間を減衰させて再計測を促す） */
+    private static final long LATENCY_HALF_LIFE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** PreparedStatementキャッシュのヒット件数（全コネクションの合計） */
+    private final AtomicLong statementHitCount = new AtomicLong();
+    /** PreparedStatementキャッシュのミス件数（全コネクションの合計） */
+    private final AtomicLong statementMissCount = new AtomicLong();
+
+    /** SQL実行時間の指数移動平均（ナノ秒 未計測の時、0） */
+    private volatile double latencyNanos = 0;
+    /** SQL実行時間の記録時刻（System.nanoTime） */
+    private volatile long latencyTime = 0;
+
+    /**
+     * コンストラクタ
+     * @param dbInfo DB接続情報
+     */
+    MyConnectionPool(MyDatabaseInfo dbInfo) {
+        this.dbInfo = dbInfo;
+    }
+
+    /**
+     * プールの開始<br>
+     * （最小接続数までコネクションを生成）
+     * @throws SQLException
+     */
+    void open() throws SQLException {
+        List<MyPooledConnection> list = new ArrayList<MyPooledConnection>();
+        try {
+            for (int i = 0; i < Math.min(dbInfo.getPoolMinSize(), getMaxSize()); i++) {
+                list.add(borrow());
+            }
+        } finally {
+            for (MyPooledConnection pc : list) {
+                release(pc);
+            }
+        }
+
+        // アイドル接続の破棄スレッドの開始
+        long idleTimeout = dbInfo.getPoolIdleTimeout();
+        if (idleTimeout > 0) {
+            evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "MyConnectionPool-evictor");
+                t.setDaemon(true);
+                return t;
+            });
+            long interval = Math.max(idleTimeout / 2, 1000);
+            evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * コネクションの取得<br>
+     * （最大接続数に達している時、返却をタイムアウトまで待機）
+     * @return コネクション
+     * @throws SQLException
+     */
+    MyPooledConnection borrow() throws SQLException {
+        long timeout = dbInfo.getPoolBorrowTimeout();
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        while (true) {
+            MyPooledConnection pc = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("connection pool closed");
+                    }
+                    pc = idleList.pollFirst();
+                    if (pc != null) {
+                        break;
+                    }
+                    if (allList.size() + creatingCount < getMaxSize()) {
+                        creatingCount++;
+                        create = true;
+                        break;
+                    }
+                    if (nanos <= 0) {
+                        throw new SQLException("connection borrow timeout (" + timeout + "ms)");
+                    }
+                    nanos = available.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("connection borrow interrupted", e);
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                // 新規接続（ロック外で生成）
+                return create();
+            }
+
+            // 取得時の接続検証
+            if (validate(pc)) {
+                return pc;
+            }
+            logger.warn("invalid connection discarded");
+            discard(pc);
+        }
+    }
+
+    /**
+     * コネクションの返却<br>
+     * （テストモードの時、未コミットの更新を次の利用者へ引き継がないよう返却前にロールバック）
+     * @param pc コネクション
+     */
+    void release(MyPooledConnection pc) {
+        if (dbInfo.isMode() == false) {
+            try {
+                if (!pc.getConnection().isClosed()) {
+                    pc.getConnection().rollback();
+                }
+            } catch (SQLException e) {
+                logger.warn("rollback error, connection discarded", e);
+                discard(pc);
+                return;
+            }
+        }
+        lock.lock();
+        try {
+            if (!allList.contains(pc)) {
+                return;
+            }
+            if (!closed) {
+                pc.touch();
+                idleList.addFirst(pc);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // クローズ済の時、物理切断
+        discard(pc);
+    }
+
+    /**
+     * コネクションの破棄<br>
+     * （プールから除外し物理切断）
+     * @param pc コネクション
+     */
+    void discard(MyPooledConnection pc) {
+        lock.lock();
+        try {
+            idleList.remove(pc);
+            allList.remove(pc);
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(pc);
+    }
+
+    /**
+     * プールの終了<br>
+     * （貸出中を含む全コネクションを無効化して切断。切断前に未コミットの更新をロールバック）
+     */
+    void close() {
+        List<MyPooledConnection> list;
+        lock.lock();
+        try {
+            closed = true;
+            list = new ArrayList<MyPooledConnection>(allList);
+            allList.clear();
+            idleList.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+
+        for (MyPooledConnection pc : list) {
+            closeQuietly(pc);
+        }
+    }
+
+    /**
+     * 全接続数の取得
+     * @return 全接続数（貸出中を含む）
+     */
+    int getTotalCount() {
+        lock.lock();
+        try {
+            return allList.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * アイドル接続数の取得
+     * @return アイドル接続数
+     */
+    int getIdleCount() {
+        lock.lock();
+        try {
+            return idleList.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * プール名（データベース名）の取得
+     * @return プール名
+     */
+    String getName() {
+        return dbInfo.getDbName();
+    }
+
+    /**
+     * PreparedStatementキャッシュのヒット・ミスの記録
+     * @param hit [true:ヒット false:ミス]
+     */
+    void recordStatementCache(boolean hit) {
+        (hit ? statementHitCount : statementMissCount).incrementAndGet();
+    }
+
+    /**
+     * PreparedStatementキャッシュのヒット件数の取得
+     * @return ヒット件数（全コネクションの合計）
+     */
+    long getStatementHitCount() {
+        return statementHitCount.get();
+    }
+
+    /**
+     * PreparedStatementキャッシュのミス件数の取得
+     * @return ミス件数（全コネクションの合計）
+     */
+    long getStatementMissCount() {
+        return statementMissCount.get();
+    }
+
+    /**
+     * SQL実行時間の記録<br>
+     * （指数移動平均で平滑化。同時更新による取りこぼしは許容）
+     * @param elapsedNanos 実行時間（ナノ秒）
+     */
+    void recordLatency(long elapsedNanos) {
+        double current = latencyNanos;
+        latencyNanos = (current == 0) ? elapsedNanos : current * 0.8 + elapsedNanos * 0.2;
+        latencyTime = System.nanoTime();
+    }
+
+    /**
+     * SQL実行時間の指数移動平均の取得<br>
+     * （最後の記録からの経過時間で減衰。選ばれず計測されないプールも、いずれ選ばれて再計測される）
+     * @return 実行時間（ナノ秒 未計測の時、0）
+     */
+    double getLatency() {
+        double current = latencyNanos;
+        if (current == 0) {
+            return 0;
+        }
+        long age = System.nanoTime() - latencyTime;
+        return current * Math.pow(0.5, (double) age / LATENCY_HALF_LIFE_NANOS);
+    }
+
+    /**
+     * 物理コネクションの生成
+     * @return コネクション
+     * @throws SQLException
+     */
+    private MyPooledConnection create() throws SQLException {
+        MyPooledConnection pc = null;
+        try {
+            Connection conn = DriverManager.getConnection(dbInfo.getDbUrl(), dbInfo.getDbUser(), dbInfo.getDbPass());
+
+            // 自動コミットOFF
+            conn.setAutoCommit(false);
+
+            pc = new MyPooledConnection(conn, this, dbInfo.getStatementCacheSize());
+            logger.debug("connection created");
+            return pc;
+        } finally {
+            lock.lock();
+            try {
+                creatingCount--;
+                if (pc != null) {
+                    allList.add(pc);
+                }
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 接続検証
+     * @param pc コネクション
+     * @return 結果 [true:有効 false:無効]
+     */
+    private boolean validate(MyPooledConnection pc) {
+        String sql = dbInfo.getPoolValidationQuery();
+        try {
+            if (pc.getConnection().isClosed()) {
+                return false;
+            }
+            if (sql == null || "".equals(sql)) {
+                return true;
+            }
+            try (Statement state = pc.getConnection().createStatement(); ResultSet result = state.executeQuery(sql);) {
+                return result.next();
+            }
+        } catch (SQLException e) {
+            logger.debug("connection validation error", e);
+            return false;
+        }
+    }
+
+    /**
+     * アイドルタイムアウトを超過した接続の破棄<br>
+     * （最小接続数は維持）
+     */
+    private void evictIdle() {
+        long limit = System.currentTimeMillis() - dbInfo.getPoolIdleTimeout();
+        List<MyPooledConnection> list = new ArrayList<MyPooledConnection>();
+
+        lock.lock();
+        try {
+            // 末尾（最も古い返却）から判定
+            Iterator<MyPooledConnection> ite = idleList.descendingIterator();
+            while (ite.hasNext() && allList.size() > dbInfo.getPoolMinSize()) {
+                MyPooledConnection pc = ite.next();
+                if (pc.getLastUsedTime() < limit) {
+                    ite.remove();
+                    allList.remove(pc);
+                    list.add(pc);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (MyPooledConnection pc : list) {
+            logger.debug("idle connection evicted");
+            closeQuietly(pc);
+        }
+    }
+
+    /**
+     * 最大接続数の取得
+     * @return 最大接続数（1未満の時、1）
+     */
+    private int getMaxSize() {
+        return Math.max(dbInfo.getPoolMaxSize(), 1);
+    }
+
+    /**
+     * 物理切断（例外は握りつぶす）<br>
+     * （無効化し、自動コミットOFFの時はロールバックしてから切断。Oracleは切断時に未コミットの更新をコミットするため）
+     * @param pc コネクション
+     */
+    private static void closeQuietly(MyPooledConnection pc) {
+        pc.invalidate();
+        try {
+            pc.getStatementCache().clear();
+            Connection conn = pc.getConnection();
+            if (!conn.isClosed()) {
+                try {
+                    if (!conn.getAutoCommit()) {
+                        conn.rollback();
+                    }
+                } finally {
+                    conn.close();
+                }
+            }
+        } catch (SQLException e) {
+            // 握りつぶす
+            logger.error("connection close error", e);
+        }
+    }
+}
@@ -1,20 +1,93 @@
 package my.manager;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Savepoint;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.swing.table.DefaultTableModel;
 
+import my.bean.MyBatchResult;
+import my.bean.MyChangeQuery;
+import my.bean.MyColumnarResult;
 import my.bean.MyDatabaseInfo;
+import my.bean.MyExportInfo;
+import my.bean.MyExportInfo.PartitionType;
+import my.bean.MyLoadInfo;
+import my.bean.MyLoadResult;
+import my.bean.MyPage;
+import my.bean.MyParallelQuery;
+import my.bean.MyParallelQuery.ErrorPolicy;
+import my.bean.MyParallelResult;
+import my.utils.MyPropertyUtil;
+import my.utils.MySqlUtil;
 
 import org.apache.log4j.Logger;
 
@@ -30,10 +103,98 @@ public enum MyDatabaseManager {
     /** Logger */
     private static final Logger logger = Logger.getLogger(MyDatabaseManager.class);
 
+    /** 実行結果の変換処理 */
+    @FunctionalInterface
+    private interface ResultReader<R> {
+        /**
+         * ResultSetの変換
+         * @param result ResultSet
+         * @return 変換後の実行結果
+         * @throws SQLException
+         */
+        R read(ResultSet result) throws SQLException;
+    }
+
+    /** コネクションを使用する処理 */
+    @FunctionalInterface
+    private interface ConnectionTask<R> {
+        /**
+         * 処理の実行
+         * @param pc コネクション
+         * @return 処理結果
+         * @throws SQLException
+         */
+        R run(MyPooledConnection pc) throws SQLException;
+    }
+
+    /** レプリカの振り分け方式 */
+    public enum ReplicaRouting {
+        /** 順番に振り分け */
+        ROUND_ROBIN,
+        /** 無作為に選んだ2つのレプリカのうち、SQL実行時間（移動平均 未計測の間は減衰）が短い方へ振り分け */
+        LEAST_LATENCY
+    }
+
+    /** ページ検索 全件数項目 */
+    private static final String PAGE_TOTAL_COLUMN = "MY_PAGE_TOTAL_CNT";
+    /** ページ検索 行番号項目 */
+    private static final String PAGE_ROWNUM_COLUMN = "MY_PAGE_RN";
+    /** IN句のキー一覧の置換文字列（doSelectIn用） */
+    public static final String IN_KEYS = "#IN_KEYS#";
+    /** 差分取得 保存キー 最終取得位置 */
+    private static final String WATERMARK_VALUE = ".watermark";
+    /** 差分取得 保存キー 最終取得位置の型 */
+    private static final String WATERMARK_TYPE = ".watermarkType";
+    /** 差分取得 保存キー 再取得範囲の取得済行 */
+    private static final String WATERMARK_SEEN = ".seen";
+    /** 差分取得 最終取得位置の型 数値 */
+    private static final String WATERMARK_NUMBER = "NUMBER";
+    /** 差分取得 最終取得位置の型 日時 */
+    private static final String WATERMARK_TIMESTAMP = "TIMESTAMP";
+    /** 差分取得 キー項目の区切り文字 */
+    private static final String SEEN_KEY_SEPARATOR = "\u001f";
+    /** 差分取得 取得済行の区切り文字 */
+    private static final String SEEN_SEPARATOR = "\u001e";
+
+    /** Oracleのエラーコード 未対応の機能 */
+    private static final int ORACLE_UNSUPPORTED_FEATURE = 17023;
+    /** セーブポイント解放の対応有無（未対応のドライバで例外が発生した後は解放しない） */
+    private static volatile boolean releaseSavepointSupported = true;
+
     /** DB接続情報 */
     private MyDatabaseInfo dbInfo = null;
-    /** コネクション */
-    private Connection conn = null;
+    /** コネクションプール */
+    private MyConnectionPool pool = null;
+    /** ウォームアップ済のコネクションプール（DBOpenで使用） */
+    private MyConnectionPool warmPool = null;
+    /** レプリカDB接続情報 [key：データベース名 / value：DB接続情報] */
+    private final Map<String, MyDatabaseInfo> replicaInfoMap = new LinkedHashMap<String, MyDatabaseInfo>();
+    /** レプリカのコネクションプール（不変リスト） */
+    private volatile List<MyConnectionPool> replicaPools = Collections.emptyList();
+    /** レプリカの振り分け方式 */
+    private volatile ReplicaRouting replicaRouting = ReplicaRouting.ROUND_ROBIN;
+    /** レプリカの振り分け位置（ラウンドロビン） */
+    private final AtomicInteger replicaIndex = new AtomicInteger();
+    /** スレッド毎のプライマリ参照の指定 */
+    private final ThreadLocal<Boolean> primaryRead = new ThreadLocal<Boolean>();
+    /** スレッド毎のプライマリ参照の期限（コミット後 System.currentTimeMillis） */
+    private final ThreadLocal<Long> primaryReadUntil = new ThreadLocal<Long>();
+    /** スレッド毎のトランザクションコネクション */
+    private final ThreadLocal<MyPooledConnection> txConn = new ThreadLocal<MyPooledConnection>();
+    /** 検索結果キャッシュ（無効の時、null） */
+    private volatile MyQueryCache queryCache = null;
+    /** 非同期実行のExecutor（未設定の時、既定のスレッドプール） */
+    private volatile Executor asyncExecutor = null;
+    /** 既定の非同期実行スレッドプール */
+    private ExecutorService defaultAsyncExecutor = null;
+    /** SQL実行統計 */
+    private final MySqlStatistics statistics = new MySqlStatistics(0);
+    /** SQL実行統計のJMX登録名（未登録の時、null） */
+    private ObjectName statisticsName = null;
+    /** 差分取得の保存先の排他ロック */
+    private final Object watermarkLock = new Object();
+    /** SQL実行記録（記録しない時、null） */
+    private volatile MySqlCapture capture = null;
 
     /**
      * DB接続情報の設定
@@ -42,6 +203,10 @@ public enum MyDatabaseManager {
     public void setProperty(MyDatabaseInfo dbinfo) {
         // DB接続の設定を行う
         dbInfo = (MyDatabaseInfo) dbinfo.clone();
+        MyConnectionPool unused = takeWarmPool();
+        if (unused != null) {
+            unused.close();
+        }
         logger.info("------------------ 接続情報 ------------------");
         logger.info("【DB接続情報】NAME   : " + dbInfo.getDbName());
         logger.info("【DB接続情報】URL    : " + dbInfo.getDbUrl());
@@ -49,8 +214,17 @@ public enum MyDatabaseManager {
         logger.info("【DB接続情報】PASS   : " + dbInfo.getDbPass());
         if (dbInfo.isMode() == true) logger.debug("【DB接続モード】本番（コミットあり）");
         if (dbInfo.isMode() == false) logger.debug("【DB接続モード】テスト（コミット無し）");
+        logger.info("【DB接続プール】MIN  : " + dbInfo.getPoolMinSize());
+        logger.info("【DB接続プール】MAX  : " + dbInfo.getPoolMaxSize());
+        logger.info("【スロークエリ】閾値 : " + dbInfo.getSlowQueryThreshold() + "ms");
+        statistics.setSlowQueryThresholdMillis(dbInfo.getSlowQueryThreshold());
 
         if (dbInfo.isMode() == true) {
+            // 待機中にウォームアップ
+            Thread warmup = new Thread(this::warmUp, "MyDatabaseManager-warmup");
+            warmup.setDaemon(true);
+            warmup.start();
+
             int time = 10;
             logger.debug("本番モード開始 待機残り" + time + "秒");
             try {
@@ -61,12 +235,58 @@ public enum MyDatabaseManager {
                     logger.debug(" " + time + "秒");
                 } while (time > 0);
                 logger.debug("");
+
+                // ウォームアップの完了待ち
+                warmup.join();
             } catch (InterruptedException e) {
                 // 握りつぶす
             }
         }
     }
 
+    /**
+     * レプリカDB接続情報の追加<br>
+     * （DBOpen前に登録。トランザクション外の参照SQLをレプリカへ振り分け、更新SQL・トランザクションはプライマリで実行）
+     * @param dbinfo レプリカDB接続情報（データベース名で識別）
+     */
+    public synchronized void addReplica(MyDatabaseInfo dbinfo) {
+        MyDatabaseInfo replicaInfo = (MyDatabaseInfo) dbinfo.clone();
+        replicaInfoMap.put(replicaInfo.getDbName(), replicaInfo);
+        logger.info("【レプリカ接続情報】NAME : " + replicaInfo.getDbName());
+        logger.info("【レプリカ接続情報】URL  : " + replicaInfo.getDbUrl());
+    }
+
+    /**
+     * レプリカDB接続情報の削除<br>
+     * （DBOpen前のみ有効）
+     * @param dbName データベース名
+     */
+    public synchronized void removeReplica(String dbName) {
+        replicaInfoMap.remove(dbName);
+    }
+
+    /**
+     * レプリカの振り分け方式を設定します。
+     * @param replicaRouting 振り分け方式（既定：ROUND_ROBIN）
+     */
+    public void setReplicaRouting(ReplicaRouting replicaRouting) {
+        this.replicaRouting = replicaRouting;
+    }
+
+    /**
+     * 実行スレッドの参照SQLをプライマリで実行するか設定します。<br>
+     * （更新直後にレプリカの反映遅延を避けたい時に使用。解除するまで有効）
+     * @param primary [true:プライマリで実行 false:レプリカへ振り分け]
+     */
+    public void setPrimaryRead(boolean primary) {
+        if (primary) {
+            primaryRead.set(Boolean.TRUE);
+        } else {
+            primaryRead.remove();
+            primaryReadUntil.remove();
+        }
+    }
+
     /**
      * SELECT文の実行
      * @param sql SQL文
@@ -75,29 +295,185 @@ public enum MyDatabaseManager {
      */
     public List<Map<String, String>> doSelect(String sql) throws SQLException {
 
-        // 結果格納リスト
+        // 検索結果キャッシュ
+        List<Map<String, String>> cached = getCache(sql, null);
+        if (cached != null) {
+            logger.debug(sql + " (cache)");
+            return cached;
+        }
+
+        // Log出力
+        logger.debug(sql);
+
+        long generation = getCacheGeneration();
+        MyPooledConnection pc = getConnection();
+        try {
+            List<Map<String, String>> mapList = queryStatement(pc, sql, MyDatabaseManager::toMapList);
+            putCache(sql, null, mapList, generation);
+            return mapList;
+        } finally {
+            releaseConnection(pc);
+        }
+    }
+
+    /**
+     * SELECT文の実行<br>
+     * （バインド変数「?」形式。PreparedStatementはコネクション毎にキャッシュ）
+     * @param sql SQL文
+     * @param params パラメータ
+     * @return listMap 実行結果
+     * @throws SQLException
+     */
+    public List<Map<String, String>> doSelect(String sql,
+                                              Object... params) throws SQLException {
+
+        // 検索結果キャッシュ
+        List<Map<String, String>> cached = getCache(sql, params);
+        if (cached != null) {
+            logger.debug(sql + " " + Arrays.toString(params) + " (cache)");
+            return cached;
+        }
+
+        // Log出力
+        logger.debug(sql + " " + Arrays.toString(params));
+
+        long generation = getCacheGeneration();
+        MyPooledConnection pc = getConnection();
+        try {
+            List<Map<String, String>> mapList = select(pc, sql, params);
+            putCache(sql, params, mapList, generation);
+            return mapList;
+        } finally {
+            releaseConnection(pc);
+        }
+    }
+
+    /**
+     * SELECT文の実行<br>
+     * （名前付きパラメータ「:name」形式）
+     * @param sql SQL文
+     * @param paramMap パラメータ [key：パラメータ名 / value：値]
+     * @return listMap 実行結果
+     * @throws SQLException
+     */
+    public List<Map<String, String>> doSelect(String sql,
+                                              Map<String, ?> paramMap) throws SQLException {
+        MyNamedSql named = MyNamedSql.parse(sql);
+        return doSelect(named.getSql(), named.toParams(paramMap));
+    }
+
+    /**
+     * キー一覧によるSELECT文の実行<br>
+     * （キーをIN句の分割件数毎に分割し、SQL文の「#IN_KEYS#」をバインド変数に置換して実行。<br>
+     * バインド変数の個数は８以上の２の累乗（上限は分割件数）に揃え、不足分は末尾のキーで埋める<br>
+     * （SQL文の形を少数に限定し、PreparedStatement・実行計画を再利用）。重複キーは除外）<br>
+     * 例）doSelectIn("select * from emp where dept = ? and emp_no in (#IN_KEYS#)", empNoList, dept)
+     * @param sql SQL文
+     * @param keys キー一覧
+     * @param params パラメータ（バインド変数「?」形式 置換文字列の前後の順）
+     * @return listMap 実行結果（分割順に連結）
+     * @throws SQLException
+     */
+    public List<Map<String, String>> doSelectIn(String sql,
+                                                Collection<?> keys,
+                                                Object... params) throws SQLException {
+        List<List<Object>> chunks = toInChunks(keys);
         List<Map<String, String>> mapList = new ArrayList<Map<String, String>>();
+        if (chunks.isEmpty()) {
+            return mapList;
+        }
 
-        try (Statement state = conn.createStatement(); ResultSet result = state.executeQuery(sql);) {
-            // Log出力
-            logger.debug(sql);
+        // Log出力
+        logger.debug(sql + " " + Arrays.toString(params) + " (keys " + keys.size() + " 分割 " + chunks.size() + ")");
 
-            ResultSetMetaData metaData = result.getMetaData();
-            while (result.next()) {
-                // 結果格納Map
-                Map<String, String> map = new HashMap<String, String>();
-                for (int i = 1; i <= metaData.getColumnCount(); i++) {
-                    map.put(metaData.getColumnName(i), result.getString(i));
-                }
-                mapList.add(map);
+        MyPooledConnection pc = getConnection();
+        try {
+            for (List<Object> chunk : chunks) {
+                int size = toInListSize(chunk.size());
+                mapList.addAll(select(pc, toInSql(sql, size), toInParams(sql, chunk, size, params)));
             }
-        } catch (SQLException e) {
-            throw e;
+        } finally {
+            releaseConnection(pc);
+        }
+        return mapList;
+    }
+
+    /**
+     * キー一覧によるSELECT文の並列実行<br>
+     * （doSelectInの分割毎にdoSelectParallelで並列実行し、分割順に連結。<br>
+     * 呼び出し元のトランザクションには参加しない）
+     * @param sql SQL文
+     * @param keys キー一覧
+     * @param parallelism 並列数（0以下の時、プール最大接続数）
+     * @param params パラメータ（バインド変数「?」形式 置換文字列の前後の順）
+     * @return listMap 実行結果（分割順に連結）
+     * @throws SQLException
+     */
+    public List<Map<String, String>> doSelectInParallel(String sql,
+                                                        Collection<?> keys,
+                                                        int parallelism,
+                                                        Object... params) throws SQLException {
+        List<List<Object>> chunks = toInChunks(keys);
+        MyParallelQuery query = new MyParallelQuery().setParallelism(parallelism).setErrorPolicy(ErrorPolicy.FAIL_FAST);
+        for (int i = 0; i < chunks.size(); i++) {
+            int size = toInListSize(chunks.get(i).size());
+            query.add(String.valueOf(i), toInSql(sql, size), toInParams(sql, chunks.get(i), size, params));
         }
 
+        List<Map<String, String>> mapList = new ArrayList<Map<String, String>>();
+        for (List<Map<String, String>> result : doSelectParallel(query).getResults().values()) {
+            mapList.addAll(result);
+        }
         return mapList;
     }
 
+    /**
+     * SELECT文の実行<br>
+     * （カーソルを開いたまま１行ずつ取得するStream。使用後は必ずcloseすること）<br>
+     * 例）try (Stream&lt;Map&lt;String, String&gt;&gt; stream = doSelectStream(sql, key)) { ... }
+     * @param sql SQL文
+     * @param params パラメータ（バインド変数「?」形式）
+     * @return stream 実行結果
+     * @throws SQLException
+     */
+    public Stream<Map<String, String>> doSelectStream(String sql,
+                                                      Object... params) throws SQLException {
+        MyRowIterator ite = openCursor(sql, params);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(ite, Spliterator.ORDERED | Spliterator.NONNULL),
+                                    false).onClose(ite::close);
+    }
+
+    /**
+     * SELECT文の実行<br>
+     * （カーソルを開いたまま１行ずつ行処理を呼び出し。終了時にカーソルを解放）
+     * @param sql SQL文
+     * @param handler 行処理
+     * @param params パラメータ（バインド変数「?」形式）
+     * @return count 処理件数
+     * @throws SQLException
+     */
+    public long doSelectEach(String sql,
+                             MyRowHandler handler,
+                             Object... params) throws SQLException {
+        long count = 0;
+        try (MyRowIterator ite = openCursor(sql, params)) {
+            while (ite.hasNext()) {
+                handler.handle(ite.next());
+                count++;
+            }
+        } catch (SQLException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (e instanceof IllegalStateException && e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException("row handler error", e);
+        }
+        return count;
+    }
+
     /**
      * SELECT文の実行<br>
      * (１行)
@@ -112,6 +488,36 @@ public enum MyDatabaseManager {
         return mapList.isEmpty() ? null : mapList.get(0);
     }
 
+    /**
+     * SELECT文の実行<br>
+     * (１行 バインド変数「?」形式)
+     * @param sql SQL文
+     * @param params パラメータ
+     * @return Map 実行結果
+     * @throws SQLException
+     */
+    public Map<String, String> doSelectUnique(String sql,
+                                              Object... params) throws SQLException {
+
+        // SQL実行結果の取得し、先頭行を返却
+        List<Map<String, String>> mapList = doSelect(sql, params);
+        return mapList.isEmpty() ? null : mapList.get(0);
+    }
+
+    /**
+     * SELECT文の実行<br>
+     * (１行 名前付きパラメータ「:name」形式)
+     * @param sql SQL文
+     * @param paramMap パラメータ [key：パラメータ名 / value：値]
+     * @return Map 実行結果
+     * @throws SQLException
+     */
+    public Map<String, String> doSelectUnique(String sql,
+                                              Map<String, ?> paramMap) throws SQLException {
+        MyNamedSql named = MyNamedSql.parse(sql);
+        return doSelectUnique(named.getSql(), named.toParams(paramMap));
+    }
+
     /**
      * SELECT文の実行結果件数
      * @param sql SQL文
@@ -121,145 +527,3202 @@ public enum MyDatabaseManager {
     public int doSelectCount(String sql) throws SQLException {
         // SQL実行結果件数の取得
         sql = "select count(*) as cnt from ( " + sql + " )";
-        Map<String, String> map = doSelectUnique(sql);
-        return Integer.parseInt(map.get("cnt"));
+
+        // Log出力
+        logger.debug(sql);
+
+        MyPooledConnection pc = getConnection();
+        try {
+            return queryStatement(pc, sql, MyDatabaseManager::readCount);
+        } finally {
+            releaseConnection(pc);
+        }
     }
 
     /**
-     * SELECT文の実行
+     * SELECT文の実行結果件数<br>
+     * （バインド変数「?」形式）
      * @param sql SQL文
-     * @return listMap 実行結果
+     * @param params パラメータ
+     * @return int 結果件数
      * @throws SQLException
      */
-    public DefaultTableModel doSelectInTableModel(String sql) throws SQLException {
-
-        // 結果格納テーブルモデルの生成
-        DefaultTableModel tableModel = new DefaultTableModel();
+    public int doSelectCount(String sql,
+                             Object... params) throws SQLException {
+        // SQL実行結果件数の取得
+        sql = "select count(*) as cnt from ( " + sql + " )";
 
         // Log出力
-        logger.debug(sql);
+        logger.debug(sql + " " + Arrays.toString(params));
 
-        try (Statement state = conn.createStatement(); ResultSet result = state.executeQuery(sql);) {
+        MyPooledConnection pc = getConnection();
+        try {
+            return query(pc, sql, params, MyDatabaseManager::readCount);
+        } finally {
+            releaseConnection(pc);
+        }
+    }
 
-            // 項目名の取得
-            ResultSetMetaData metaData = result.getMetaData();
-            for (int i = 1; metaData != null && i <= metaData.getColumnCount(); i++) {
-                String key = metaData.getColumnName(i);
-                tableModel.addColumn(key);
-            }
+    /**
+     * SELECT文のページ検索（キーセット方式）<br>
+     * （前ページ最終行のキー値より大きい行を、キー項目の昇順に指定件数のみ取得。<br>
+     * 読み飛ばしが無いため、後方のページも先頭ページと同等の速度で取得可能。<br>
+     * キー値はDBの型のまま比較[文字列化しない]。キーはNOT NULL且つ一意であること[重複するキー値の行はページ境界で欠落]。<br>
+     * 一意でない項目は、一意な項目と組み合わせた複合キー（カンマ区切り 例："DEPT_NO, EMP_NO"）を指定）<br>
+     * 例）MyPage page = doSelectPage(sql, "EMP_NO", null, 50, false); ⇒ 次ページは page.getLastKey() を指定
+     * @param sql SQL文
+     * @param keyColumn キー項目（一意、且つ、索引のある項目を推奨。複合キーの時、カンマ区切り）
+     * @param lastKey 前ページ最終行のキー値（MyPage.getLastKey 複合キーの時、Object[] 先頭ページの時、null）
+     * @param pageSize ページ件数
+     * @param withTotal 全件数の同時取得有無（全件を評価するため、大量件数では低速）
+     * @param params パラメータ（バインド変数「?」形式）
+     * @return ページ検索結果
+     * @throws SQLException
+     */
+    public MyPage doSelectPage(String sql,
+                               String keyColumn,
+                               Object lastKey,
+                               int pageSize,
+                               boolean withTotal,
+                               Object... params) throws SQLException {
 
-            while (result.next()) {
-                // 結果格納Vector
-                Vector<String> vector = new Vector<String>();
-                // 値の取得
-                for (int i = 1; i <= metaData.getColumnCount(); i++) {
-                    vector.add(result.getString(i));
-                }
+        // ページ検索SQLの生成（次ページ有無の判定用に１件多く取得）
+        StringBuilder bf = new StringBuilder();
+        bf.append("select * from ( select t.* from ( ");
+        if (withTotal) {
+            bf.append("select s.*, count(*) over () as ").append(PAGE_TOTAL_COLUMN).append(" from ( ").append(sql).append(" ) s");
+        } else {
+            bf.append(sql);
+        }
+        bf.append(" ) t");
 
-                // データの追加
-                tableModel.addRow(vector);
+        // 複合キーは (k1 > ?) or (k1 = ? and k2 > ?) ... で比較
+        String[] keyColumns = keyColumn.split(",");
+        for (int i = 0; i < keyColumns.length; i++) {
+            keyColumns[i] = keyColumns[i].trim();
+        }
+        List<Object> pageParams = new ArrayList<Object>(Arrays.asList(params));
+        if (lastKey != null) {
+            Object[] lastKeys = keyColumns.length == 1 ? new Object[] { lastKey } : (lastKey instanceof Object[]) ? (Object[]) lastKey : null;
+            if (lastKeys == null || lastKeys.length != keyColumns.length) {
+                throw new IllegalArgumentException("lastKey must be Object[" + keyColumns.length + "] for composite key : " + keyColumn);
+            }
+            bf.append(" where (");
+            for (int i = 0; i < keyColumns.length; i++) {
+                bf.append(i == 0 ? "(" : " or (");
+                for (int j = 0; j < i; j++) {
+                    bf.append("t.").append(keyColumns[j]).append(" = ? and ");
+                    pageParams.add(lastKeys[j]);
+                }
+                bf.append("t.").append(keyColumns[i]).append(" > ?)");
+                pageParams.add(lastKeys[i]);
             }
+            bf.append(")");
+        }
+        bf.append(" order by ");
+        for (int i = 0; i < keyColumns.length; i++) {
+            bf.append(i == 0 ? "t." : ", t.").append(keyColumns[i]);
+        }
+        bf.append(" ) where rownum <= ?");
+        pageParams.add(pageSize + 1);
 
-        } catch (SQLException e) {
-            throw e;
+        MyPage page = selectPage(bf.toString(), pageParams.toArray(), pageSize, withTotal, keyColumns);
+        if (lastKey != null && page.getRows().isEmpty()) {
+            // 最終ページ以降の時、全件数は不明
+            page.setTotalCount(-1);
         }
+        return page;
+    }
 
-        return tableModel;
+    /**
+     * SELECT文のページ検索（ページ番号方式）<br>
+     * （ROWNUMで指定ページまでのみ取得。並び順はSQL文のORDER BYに従う）
+     * @param sql SQL文（ORDER BY指定を推奨）
+     * @param pageNo ページ番号（1始まり）
+     * @param pageSize ページ件数
+     * @param withTotal 全件数の同時取得有無（全件を評価するため、大量件数では低速）
+     * @param params パラメータ（バインド変数「?」形式）
+     * @return ページ検索結果
+     * @throws SQLException
+     */
+    public MyPage doSelectPageByNo(String sql,
+                                   int pageNo,
+                                   int pageSize,
+                                   boolean withTotal,
+                                   Object... params) throws SQLException {
+
+        // ページ検索SQLの生成（次ページ有無の判定用に１件多く取得）
+        StringBuilder bf = new StringBuilder();
+        bf.append("select * from ( select a.*, rownum as ").append(PAGE_ROWNUM_COLUMN).append(" from ( ");
+        if (withTotal) {
+            bf.append("select s.*, count(*) over () as ").append(PAGE_TOTAL_COLUMN).append(" from ( ").append(sql).append(" ) s");
+        } else {
+            bf.append(sql);
+        }
+        bf.append(" ) a where rownum <= ? ) where ").append(PAGE_ROWNUM_COLUMN).append(" > ?");
+
+        long offset = (long) (Math.max(pageNo, 1) - 1) * pageSize;
+        List<Object> pageParams = new ArrayList<Object>(Arrays.asList(params));
+        pageParams.add(offset + pageSize + 1);
+        pageParams.add(offset);
+
+        MyPage page = selectPage(bf.toString(), pageParams.toArray(), pageSize, withTotal, null);
+        if (offset > 0 && page.getRows().isEmpty()) {
+            // 最終ページ以降の時、全件数は不明
+            page.setTotalCount(-1);
+        }
+        return page;
     }
 
     /**
-     * Insert,Update,Delete文の実行
+     * SELECT文の実行
      * @param sql SQL文
-     * @return count 実行件数
+     * @return listMap 実行結果
      * @throws SQLException
      */
-    public int doUpdate(String sql) throws SQLException {
-
-        // 実行件数
-        int count = 0;
+    public DefaultTableModel doSelectInTableModel(String sql) throws SQLException {
 
         // Log出力
         logger.debug(sql);
 
-        try (Statement state = conn.createStatement();) {
-            count = state.executeUpdate(sql);
+        MyPooledConnection pc = getConnection();
+        try {
+            return queryStatement(pc, sql, MyDatabaseManager::toTableModel);
+        } finally {
+            releaseConnection(pc);
+        }
+    }
 
-            // Log出力
-            logger.debug("実行結果 : " + count + "件");
+    /**
+     * SELECT文の実行<br>
+     * （バインド変数「?」形式）
+     * @param sql SQL文
+     * @param params パラメータ
+     * @return tableModel 実行結果
+     * @throws SQLException
+     */
+    public DefaultTableModel doSelectInTableModel(String sql,
+                                                  Object... params) throws SQLException {
 
-        } catch (SQLException e) {
-            // ロールバック
-            rollback();
-            throw e;
-        }
+        // Log出力
+        logger.debug(sql + " " + Arrays.toString(params));
 
-        return count;
+        MyPooledConnection pc = getConnection();
+        try {
+            return query(pc, sql, params, MyDatabaseManager::toTableModel);
+        } finally {
+            releaseConnection(pc);
+        }
     }
 
     /**
-     * コミット
+     * SELECT文の実行<br>
+     * （格納クラスのリストで返却。項目名をキャメルケース化したSetterへ型に応じた取得方法で設定。<br>
+     * 項目とSetterの対応はSQL文・格納クラス毎に初回のみ解決）
+     * @param <T>
+     * @param sql SQL文
+     * @param beanClass 格納クラス（引数なしコンストラクタが必要）
+     * @param params パラメータ（バインド変数「?」形式）
+     * @return 実行結果
      * @throws SQLException
      */
-    public void commit() throws SQLException {
-        if (dbInfo.isMode() == false) {
-            // 接続モードがテストの時、常にロールバック
-            logger.debug("test mode does not commit");
-            return;
-        }
-        if (conn != null && !conn.isClosed()) {
-            conn.commit();
-            logger.info("commit");
+    public <T> List<T> doSelectInBean(String sql,
+                                      Class<T> beanClass,
+                                      Object... params) throws SQLException {
+
+        // Log出力
+        logger.debug(sql + " " + Arrays.toString(params));
+
+        MyPooledConnection pc = getConnection();
+        try {
+            return query(pc, sql, params, result -> MyBeanRowMapper.get(sql, beanClass, result).mapAll(result));
+        } finally {
+            releaseConnection(pc);
         }
     }
 
     /**
-     * ロールバック
+     * SELECT文の実行<br>
+     * （遅延取得のテーブルモデルで返却。件数と項目名のみ取得し、行はスクロールに応じてウィンドウ単位に取得）
+     * @param sql SQL文（ORDER BY指定を推奨）
+     * @param windowSize ウィンドウの行数（1回の検索で取得する行数）
+     * @param params パラメータ（バインド変数「?」形式）
+     * @return tableModel 実行結果（使用後にclose）
      * @throws SQLException
      */
-    public void rollback() throws SQLException {
-        if (conn != null && !conn.isClosed()) {
-            conn.rollback();
-            logger.info("rollback");
+    public MyLazyTableModel doSelectInLazyTableModel(String sql,
+                                                     int windowSize,
+                                                     Object... params) throws SQLException {
+
+        // Log出力
+        logger.debug(sql + " " + Arrays.toString(params) + " (lazy)");
+
+        return new MyLazyTableModel(sql, params, windowSize, MyLazyTableModel.DEFAULT_CACHE_WINDOWS);
+    }
+
+    /**
+     * SELECT文の実行<br>
+     * （列指向の検索結果で返却。数値・日付はプリミティブ配列、文字列は辞書化して保持）
+     * @param sql SQL文
+     * @return columnar 実行結果
+     * @throws SQLException
+     */
+    public MyColumnarResult doSelectInColumnar(String sql) throws SQLException {
+
+        // Log出力
+        logger.debug(sql);
+
+        MyPooledConnection pc = getConnection();
+        try {
+            return queryStatement(pc, sql, MyColumnarResult::create);
+        } finally {
+            releaseConnection(pc);
         }
     }
 
     /**
-     * DB接続
-     * @return 結果 [true:成功 false:失敗]
+     * SELECT文の実行<br>
+     * （列指向の検索結果で返却。バインド変数「?」形式）
+     * @param sql SQL文
+     * @param params パラメータ
+     * @return columnar 実行結果
+     * @throws SQLException
      */
-    public boolean DBOpen() {
+    public MyColumnarResult doSelectInColumnar(String sql,
+                                               Object... params) throws SQLException {
+
+        // Log出力
+        logger.debug(sql + " " + Arrays.toString(params));
+
+        MyPooledConnection pc = getConnection();
         try {
-            Class.forName("oracle.jdbc.driver.OracleDriver");
-            conn = DriverManager.getConnection(dbInfo.getDbUrl(), dbInfo.getDbUser(), dbInfo.getDbPass());
+            return query(pc, sql, params, MyColumnarResult::create);
+        } finally {
+            releaseConnection(pc);
+        }
+    }
+
+    /**
+     * SELECT文の実行<br>
+     * （容量上限まではメモリに保持し、超過分は一時ファイルへ退避する検索結果で返却。<br>
+     * 使用後は必ずcloseすること。バインド変数「?」形式）<br>
+     * 例）try (MySpillList list = doSelectInSpillList(sql, key)) { ... }
+     * @param sql SQL文
+     * @param params パラメータ
+     * @return spillList 実行結果
+     * @throws SQLException
+     */
+    public MySpillList doSelectInSpillList(String sql,
+                                           Object... params) throws SQLException {
 
-            // 自動コミットOFF
-            conn.setAutoCommit(false);
+        // Log出力
+        logger.debug(sql + " " + Arrays.toString(params));
 
-        } catch (SQLException | ClassNotFoundException e) {
-            logger.error("database open error");
-            return false;
+        MyPooledConnection pc = getConnection();
+        try {
+            return query(pc, sql, params, dbInfo.getFetchSize(), this::toSpillList);
+        } finally {
+            releaseConnection(pc);
         }
+    }
 
-        logger.info("database open");
-        return true;
+    /**
+     * 差分取得<br>
+     * （最終取得位置以降の行のみ取得し、最終取得位置を保存先へ保存）
+     * @param changeQuery 差分取得情報
+     * @return listMap 前回以降の変更行
+     * @throws SQLException
+     * @throws IOException
+     * @see #doSelectChanges(MyChangeQuery, Consumer)
+     */
+    public List<Map<String, String>> doSelectChanges(MyChangeQuery changeQuery) throws SQLException, IOException {
+        List<Map<String, String>> changes = new ArrayList<Map<String, String>>();
+        doSelectChanges(changeQuery, changes::addAll);
+        return changes;
     }
 
     /**
-     * DB切断
+     * 差分取得<br>
+     * （SQL文を「項目 &gt;= (最終取得位置 - 再取得範囲)」で絞り込んで実行し、<br>
+     * 前回取得済の行（キー項目と最終取得位置の項目が同値）を除外して処理に渡す。<br>
+     * 処理の正常終了後に最終取得位置と再取得範囲の取得済行を保存（処理でエラーの時、次回に再取得）。<br>
+     * 初回（保存なし）は全件を取得）
+     * @param changeQuery 差分取得情報
+     * @param handler 変更行の処理
+     * @return 変更行数
+     * @throws SQLException
+     * @throws IOException
      */
-    public void DBClose() {
-        try {
-            if (conn != null && !conn.isClosed()) {
-                if (dbInfo.isMode() == false) {
-                    // 接続モードがテストの時、常にロールバック
-                    rollback();
+    public int doSelectChanges(MyChangeQuery changeQuery,
+                               Consumer<List<Map<String, String>>> handler) throws SQLException, IOException {
+        String name = changeQuery.getName();
+        String column = changeQuery.getWatermarkColumn();
+
+        // 前回の最終取得位置
+        Map<String, String> store = loadWatermarks(changeQuery.getStoreFile());
+        Object watermark = toWatermark(store.get(name + WATERMARK_VALUE), store.get(name + WATERMARK_TYPE));
+        Set<String> seen = new HashSet<String>();
+        String seenValue = store.get(name + WATERMARK_SEEN);
+        if (seenValue != null && !seenValue.isEmpty()) {
+            seen.addAll(Arrays.asList(seenValue.split(SEEN_SEPARATOR, -1)));
+        }
+
+        String sql = "select * from (" + changeQuery.getSql() + ")";
+        Object[] params = changeQuery.getParams();
+        if (watermark != null) {
+            sql += " where " + column + " >= ?";
+            params = concat(params, toLowerBound(watermark, changeQuery.getOverlap()));
+        }
+        sql += " order by " + column;
+
+        // Log出力
+        logger.debug(sql + " " + Arrays.toString(params));
+
+        ChangeRows rows;
+        MyPooledConnection pc = getConnection();
+        try {
+            rows = query(pc, sql, params, dbInfo.getFetchSize(), result -> toChangeRows(result, column, changeQuery.getKeyColumns()));
+        } finally {
+            releaseConnection(pc);
+        }
+
+        // 取得済行の除外と最終取得位置の更新
+        List<Map<String, String>> changes = new ArrayList<Map<String, String>>();
+        for (int i = 0; i < rows.rows.size(); i++) {
+            if (!seen.contains(rows.seenKeys.get(i))) {
+                changes.add(rows.rows.get(i));
+            }
+            Object mark = rows.marks.get(i);
+            if (mark != null && (watermark == null || compareWatermark(mark, watermark) > 0)) {
+                watermark = mark;
+            }
+        }
+        handler.accept(changes);
+
+        // 最終取得位置の保存（再取得範囲の取得済行を含む）
+        if (watermark != null) {
+            Object lowerBound = toLowerBound(watermark, changeQuery.getOverlap());
+            List<String> seenList = new ArrayList<String>();
+            for (int i = 0; i < rows.rows.size(); i++) {
+                Object mark = rows.marks.get(i);
+                if (mark != null && compareWatermark(mark, lowerBound) >= 0) {
+                    seenList.add(rows.seenKeys.get(i));
                 }
-                conn.close();
             }
-            logger.info("database close");
+            Map<String, String> values = new HashMap<String, String>();
+            values.put(name + WATERMARK_VALUE, toWatermarkString(watermark));
+            values.put(name + WATERMARK_TYPE, watermark instanceof BigDecimal ? WATERMARK_NUMBER : WATERMARK_TIMESTAMP);
+            values.put(name + WATERMARK_SEEN, String.join(SEEN_SEPARATOR, seenList));
+            saveWatermarks(changeQuery.getStoreFile(), values);
+        }
+
+        // Log出力
+        logger.info("changes : " + name + " " + changes.size() + "件 (取得 " + rows.rows.size() + "件 最終取得位置 "
+                    + (watermark == null ? "-" : toWatermarkString(watermark)) + ")");
+
+        return changes.size();
+    }
+
+    /**
+     * Insert,Update,Delete文の実行
+     * @param sql SQL文
+     * @return count 実行件数
+     * @throws SQLException
+     */
+    public int doUpdate(String sql) throws SQLException {
+
+        // 実行件数
+        int count = 0;
+
+        // Log出力
+        logger.debug(sql);
+
+        MyPooledConnection pc = getTxConnection();
+        long start = System.nanoTime();
+        try (Statement state = pc.getConnection().createStatement();) {
+            count = state.executeUpdate(sql);
+            recordExecution(sql, null, System.nanoTime() - start, count, 0, false);
+            invalidateCache(pc, sql);
+
+            // Log出力
+            logger.debug("実行結果 : " + count + "件");
+
+        } catch (SQLException e) {
+            recordExecution(sql, null, System.nanoTime() - start, 0, 0, true);
+            // ロールバック
+            rollback();
+            throw e;
+        }
+
+        return count;
+    }
+
+    /**
+     * Insert,Update,Delete文の実行<br>
+     * （バインド変数「?」形式。PreparedStatementはコネクション毎にキャッシュ）
+     * @param sql SQL文
+     * @param params パラメータ
+     * @return count 実行件数
+     * @throws SQLException
+     */
+    public int doUpdate(String sql,
+                        Object... params) throws SQLException {
+
+        // Log出力
+        logger.debug(sql + " " + Arrays.toString(params));
+
+        MyPooledConnection pc = getTxConnection();
+        try {
+            int count = update(pc, sql, params);
+            invalidateCache(pc, sql);
+
+            // Log出力
+            logger.debug("実行結果 : " + count + "件");
+            return count;
+
+        } catch (SQLException e) {
+            // ロールバック
+            rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Insert,Update,Delete文の実行<br>
+     * （名前付きパラメータ「:name」形式）
+     * @param sql SQL文
+     * @param paramMap パラメータ [key：パラメータ名 / value：値]
+     * @return count 実行件数
+     * @throws SQLException
+     */
+    public int doUpdate(String sql,
+                        Map<String, ?> paramMap) throws SQLException {
+        MyNamedSql named = MyNamedSql.parse(sql);
+        return doUpdate(named.getSql(), named.toParams(paramMap));
+    }
+
+    /**
+     * Insert,Update,Delete文のバッチ実行<br>
+     * （バッチ実行件数はDB接続情報の設定値。途中コミットなし）
+     * @param sql SQL文（バインド変数「?」形式）
+     * @param paramList 行毎のパラメータ
+     * @return バッチ実行結果
+     * @throws SQLException
+     */
+    public MyBatchResult doUpdateBatch(String sql,
+                                       List<Object[]> paramList) throws SQLException {
+        return doUpdateBatch(sql, paramList, dbInfo.getBatchSize(), 0);
+    }
+
+    /**
+     * Insert,Update,Delete文のバッチ実行<br>
+     * （失敗行は結果に記録し、残りの行の実行を継続。<br>
+     * 途中コミット指定時は指定行数毎と終了時にコミット。テストモードの時はコミットしない）
+     * @param sql SQL文（バインド変数「?」形式）
+     * @param paramList 行毎のパラメータ
+     * @param batchSize バッチ実行件数（1回のexecuteBatchで送信する行数）
+     * @param commitInterval 途中コミット行数（0以下の時、コミットしない）
+     * @return バッチ実行結果
+     * @throws SQLException
+     */
+    public MyBatchResult doUpdateBatch(String sql,
+                                       List<Object[]> paramList,
+                                       int batchSize,
+                                       int commitInterval) throws SQLException {
+
+        // Log出力
+        logger.debug(sql + " (batch " + paramList.size() + "件)");
+
+        MyBatchResult batchResult = null;
+        MyPooledConnection pc = getTxConnection();
+        try {
+            invalidateCache(pc, sql);
+            batchResult = updateBatch(pc, sql, paramList, Math.max(batchSize, 1), commitInterval);
         } catch (SQLException e) {
-            // 握りつぶす
-            logger.error("database close error", e);
+            // ロールバック
+            rollback();
+            throw e;
+        }
+
+        // Log出力
+        logger.debug("実行結果 : " + batchResult.getTotalUpdateCount() + "件 (失敗 " + batchResult.getFailedRows().size() + "行)");
+
+        return batchResult;
+    }
+
+    /**
+     * SELECT文の非同期実行<br>
+     * （プールから貸出したコネクションで実行。呼び出し元のトランザクションには参加しない）<br>
+     * 失敗時はSQLExceptionを原因とするCompletionExceptionで完了
+     * @param sql SQL文
+     * @param params パラメータ（バインド変数「?」形式）
+     * @return listMap 実行結果のFuture
+     */
+    public CompletableFuture<List<Map<String, String>>> doSelectAsync(String sql,
+                                                                      Object... params) {
+
+        // Log出力
+        logger.debug(sql + " " + Arrays.toString(params) + " (async)");
+
+        return supplyAsync(true, pc -> select(pc, sql, params));
+    }
+
+    /**
+     * Insert,Update,Delete文の非同期実行<br>
+     * （プールから貸出したコネクションで実行し、成功時はコミット、失敗時はロールバック。<br>
+     * 呼び出し元のトランザクションには参加しない。テストモードの時はコミットせずロールバック）<br>
+     * 失敗時はSQLExceptionを原因とするCompletionExceptionで完了
+     * @param sql SQL文
+     * @param params パラメータ（バインド変数「?」形式）
+     * @return count 実行件数のFuture
+     */
+    public CompletableFuture<Integer> doUpdateAsync(String sql,
+                                                    Object... params) {
+
+        // Log出力
+        logger.debug(sql + " " + Arrays.toString(params) + " (async)");
+
+        return supplyAsync(false, pc -> {
+            try {
+                int count = update(pc, sql, params);
+                invalidateCache(pc, sql);
+                commitConnection(pc);
+                if (dbInfo.isMode() == false) {
+                    // 接続モードがテストの時、プールへ返却する前にロールバック
+                    rollbackConnection(pc);
+                }
+                logger.debug("実行結果 : " + count + "件 (async)");
+                return count;
+            } catch (SQLException e) {
+                rollbackConnection(pc);
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * 実行中の検索の中止（失敗しても継続）
+     * @param active 実行中のコネクション
+     */
+    private static void cancelActive(Set<MyPooledConnection> active) {
+        synchronized (active) {
+            for (MyPooledConnection pc : active) {
+                try {
+                    pc.cancel();
+                } catch (SQLException e) {
+                    logger.warn("parallel select cancel error", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 独立したSELECT文の並列実行<br>
+     * （並列数分のコネクションをプールから貸出し、各コネクションで未実行の検索を順に取り出して実行。<br>
+     * 呼び出し元のトランザクションには参加しない。期限切れ・中止の時、未実行の検索は実行せず、<br>
+     * 実行中の検索はStatement.cancelで中止）
+     * @param query 並列検索情報
+     * @return 実行結果（名前毎）
+     * @throws SQLException FAIL_FAST指定でエラー・期限切れの時
+     */
+    public MyParallelResult doSelectParallel(MyParallelQuery query) throws SQLException {
+        long start = System.currentTimeMillis();
+        Map<String, String> sqlMap = query.getSqlMap();
+        boolean failFast = query.getErrorPolicy() == ErrorPolicy.FAIL_FAST;
+
+        Map<String, List<Map<String, String>>> results = new ConcurrentHashMap<String, List<Map<String, String>>>();
+        Map<String, SQLException> errors = new ConcurrentHashMap<String, SQLException>();
+        AtomicReference<SQLException> firstError = new AtomicReference<SQLException>();
+        AtomicBoolean stop = new AtomicBoolean(false);
+        // 実行中のコネクション（期限切れ・中止時に実行中の検索を中止）
+        Set<MyPooledConnection> active = new HashSet<MyPooledConnection>();
+
+        // 検索結果キャッシュにない検索を実行待ちへ
+        Queue<Entry<String, String>> pending = new ConcurrentLinkedQueue<Entry<String, String>>();
+        for (Entry<String, String> entry : sqlMap.entrySet()) {
+            List<Map<String, String>> cached = getCache(entry.getValue(), query.getParams(entry.getKey()));
+            if (cached != null) {
+                results.put(entry.getKey(), cached);
+            } else {
+                pending.add(entry);
+            }
+        }
+
+        // 並列数分のコネクションで実行
+        int parallelism = query.getParallelism() > 0 ? query.getParallelism() : Math.max(dbInfo.getPoolMaxSize(), 1);
+        List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+        for (int i = 0; i < Math.min(parallelism, pending.size()); i++) {
+            futures.add(supplyAsync(true, pc -> {
+                synchronized (active) {
+                    active.add(pc);
+                }
+                try {
+                    Entry<String, String> entry;
+                    while (!stop.get() && (entry = pending.poll()) != null) {
+                        String name = entry.getKey();
+                        Object[] params = query.getParams(name);
+                        logger.debug(entry.getValue() + " " + Arrays.toString(params) + " (parallel " + name + ")");
+                        try {
+                            long generation = getCacheGeneration();
+                            List<Map<String, String>> mapList = select(pc, entry.getValue(), params);
+                            putCache(entry.getValue(), params, mapList, generation);
+                            results.put(name, mapList);
+                        } catch (SQLException e) {
+                            if (stop.get()) {
+                                // 期限切れ・中止による中止（結果は期限切れ・中止として集計）
+                                break;
+                            }
+                            errors.put(name, e);
+                            firstError.compareAndSet(null, e);
+                            if (failFast) {
+                                stop.set(true);
+                                cancelActive(active);
+                            }
+                        }
+                    }
+                } finally {
+                    // プールへ返却する前に中止要求を解除
+                    synchronized (active) {
+                        active.remove(pc);
+                        pc.clearCancel();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // 全件の完了（または期限）まで待機
+        SQLException laneError = null;
+        boolean timedOut = false;
+        try {
+            CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+            if (query.getTimeout() > 0) {
+                all.get(query.getTimeout(), TimeUnit.MILLISECONDS);
+            } else {
+                all.get();
+            }
+        } catch (TimeoutException e) {
+            timedOut = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop.set(true);
+            throw new SQLException("parallel select interrupted", e);
+        } catch (ExecutionException e) {
+            // コネクションの貸出エラー（他のコネクションで実行を継続済）
+            laneError = e.getCause() instanceof SQLException ? (SQLException) e.getCause() : new SQLException(e.getCause());
+        } finally {
+            stop.set(true);
+            cancelActive(active);
+        }
+
+        // 名前毎の結果（未完了は期限切れ・中止）
+        MyParallelResult parallelResult = new MyParallelResult();
+        for (String name : sqlMap.keySet()) {
+            List<Map<String, String>> mapList = results.get(name);
+            SQLException error = errors.get(name);
+            if (mapList != null) {
+                parallelResult.addResult(name, mapList);
+            } else if (error != null) {
+                parallelResult.addError(name, error);
+            } else if (timedOut) {
+                parallelResult.addError(name, new SQLTimeoutException("parallel select timeout (" + query.getTimeout() + "ms) : " + name));
+            } else if (laneError != null) {
+                parallelResult.addError(name, new SQLException("parallel select not executed : " + name, laneError));
+            } else {
+                parallelResult.addError(name, new SQLException("parallel select cancelled : " + name));
+            }
+        }
+        parallelResult.setElapsedMillis(System.currentTimeMillis() - start);
+
+        // Log出力
+        logger.info("parallel select : " + sqlMap.size() + "件 (エラー " + parallelResult.getErrors().size() + "件 並列 "
+                    + Math.min(parallelism, sqlMap.size()) + " " + parallelResult.getElapsedMillis() + "ms)");
+
+        if (failFast && parallelResult.hasError()) {
+            if (firstError.get() != null) {
+                throw firstError.get();
+            }
+            throw parallelResult.getErrors().values().iterator().next();
+        }
+        return parallelResult;
+    }
+
+    /**
+     * SELECT文の実行結果を区切り文字ファイルに出力<br>
+     * （分割毎にプールから貸出したコネクションで並列実行し、カーソルから直接ファイルへ書き込み。<br>
+     * 実行結果をメモリに保持しないため、使用メモリは件数によらず分割数×フェッチサイズ程度。<br>
+     * 分割毎に別コネクション・別トランザクションで実行するため、分割間で読取り時点は揃わない。<br>
+     * 出力中に更新されるテーブルで一貫した結果が必要な時は、分割しないかSQL文に「AS OF SCN」を指定すること）
+     * @param exportInfo 出力情報
+     * @return 出力件数
+     * @throws SQLException
+     * @throws IOException
+     */
+    public long doExport(MyExportInfo exportInfo) throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        List<List<ExportQuery>> partitions = createExportPartitions(exportInfo);
+
+        // 出力先（結合時は分割毎の一時ファイルへ出力後に連結）
+        Path outputPath = Paths.get(exportInfo.getOutputPath()).toAbsolutePath();
+        Files.createDirectories(outputPath.getParent());
+        List<Path> pathList = new ArrayList<Path>();
+        for (int i = 0; i < partitions.size(); i++) {
+            if (partitions.size() == 1) {
+                pathList.add(outputPath);
+            } else if (exportInfo.isMerge()) {
+                pathList.add(Paths.get(outputPath + ".part" + i + ".tmp"));
+            } else {
+                pathList.add(toPartitionPath(outputPath, i + 1));
+            }
+        }
+
+        // 分割毎の並列実行
+        List<CompletableFuture<Long>> futures = new ArrayList<CompletableFuture<Long>>();
+        for (int i = 0; i < partitions.size(); i++) {
+            List<ExportQuery> queries = partitions.get(i);
+            Path path = pathList.get(i);
+            boolean header = exportInfo.isHeader() && (i == 0 || !exportInfo.isMerge());
+            futures.add(supplyAsync(true, pc -> {
+                try {
+                    return exportPartition(pc, queries, path, exportInfo, header);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+
+        long count = 0;
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+            for (CompletableFuture<Long> future : futures) {
+                count += future.join();
+            }
+            if (partitions.size() > 1 && exportInfo.isMerge()) {
+                mergeFiles(pathList, outputPath);
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        } finally {
+            if (partitions.size() > 1 && exportInfo.isMerge()) {
+                for (Path path : pathList) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+
+        // Log出力
+        logger.info("export : " + count + "件 (分割 " + partitions.size() + " " + (System.currentTimeMillis() - start) + "ms) " + outputPath);
+
+        return count;
+    }
+
+    /**
+     * 区切り文字ファイルのバッチ登録<br>
+     * （読込スレッドから上限付きキューでバッチ単位に受け渡し、並列実行毎のコネクションで解析・登録。<br>
+     * コミット済のバッチはチェックポイントに記録し、再開時に読み飛ばす。正常終了時はチェックポイントを削除。<br>
+     * リジェクト行はバッチのコミット時に出力し、再開時は未コミットのバッチ分[チェックポイント以降の出力]を切り捨て。<br>
+     * 改行を含む値は未対応。空行は読み飛ばす）
+     * @param loadInfo 登録情報
+     * @return 登録結果
+     * @throws SQLException
+     * @throws IOException
+     */
+    public MyLoadResult doLoad(MyLoadInfo loadInfo) throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        int batchSize = loadInfo.getBatchSize() > 0 ? loadInfo.getBatchSize() : Math.max(dbInfo.getBatchSize(), 1);
+        int threadCount = Math.max(loadInfo.getThreadCount(), 1);
+        Path inputPath = Paths.get(loadInfo.getInputPath());
+        Path checkpointPath = Paths.get(loadInfo.getCheckpointPath() != null ? loadInfo.getCheckpointPath()
+                                                                             : loadInfo.getInputPath() + ".checkpoint");
+
+        LoadContext ctx = new LoadContext(loadInfo,
+                                          countParameters(loadInfo.getSql()),
+                                          Math.max(loadInfo.getQueueSize(), threadCount),
+                                          LoadCheckpoint.open(checkpointPath, batchSize, loadInfo.isRestart()));
+        MyLoadResult loadResult = new MyLoadResult();
+
+        try (FileChannel rejectChannel = openRejectChannel(loadInfo, ctx.checkpoint)) {
+            ctx.setRejectChannel(rejectChannel);
+
+            // 登録スレッドの開始（コネクションの取得失敗を含め、異常終了時は読込を中断）
+            List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(this.<Void> supplyAsync(false, pc -> {
+                    loadWorker(pc, ctx);
+                    return null;
+                }).whenComplete((r, e) -> {
+                    if (e != null) {
+                        ctx.fail(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                    }
+                }));
+            }
+
+            // 読込（バッチ単位でキューへ受け渡し）
+            try (BufferedReader br = Files.newBufferedReader(inputPath, loadInfo.getEncode().getCharset())) {
+                long lineNo = 0;
+                for (int i = 0; i < loadInfo.getHeaderLines() && br.readLine() != null; i++) {
+                    lineNo++;
+                }
+                long chunkNo = 0;
+                LoadChunk chunk = new LoadChunk(chunkNo, lineNo + 1, batchSize);
+                String line;
+                while (ctx.error == null && (line = br.readLine()) != null) {
+                    lineNo++;
+                    chunk.lines.add(line);
+                    if (chunk.lines.size() == batchSize) {
+                        dispatchChunk(ctx, chunk, loadResult);
+                        chunk = new LoadChunk(++chunkNo, lineNo + 1, batchSize);
+                    }
+                }
+                if (!chunk.lines.isEmpty()) {
+                    dispatchChunk(ctx, chunk, loadResult);
+                }
+            } catch (IOException e) {
+                ctx.fail(e);
+            } finally {
+                // 終了通知（異常時は未処理のバッチを破棄）
+                if (ctx.error != null) {
+                    ctx.queue.clear();
+                }
+                for (int i = 0; i < threadCount; i++) {
+                    ctx.queue.offer(LoadChunk.END);
+                }
+            }
+
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+            } catch (CompletionException e) {
+                ctx.fail(e.getCause());
+            }
+        }
+
+        if (ctx.error != null) {
+            logger.error("load error : " + inputPath + " (コミット済 " + ctx.checkpoint.getCommittedCount() + "バッチ)");
+            if (ctx.error instanceof SQLException) {
+                throw (SQLException) ctx.error;
+            }
+            if (ctx.error instanceof IOException) {
+                throw (IOException) ctx.error;
+            }
+            if (ctx.error instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) ctx.error).getCause();
+            }
+            throw new SQLException("load error", ctx.error);
+        }
+        ctx.checkpoint.delete();
+
+        loadResult.setLoadCount(ctx.loadCount.get());
+        loadResult.setRejectCount(ctx.rejectCount.get());
+
+        // Log出力
+        logger.info("load : " + loadResult.getLoadCount() + "件 (リジェクト " + loadResult.getRejectCount() + "件 読み飛ばし "
+                    + loadResult.getSkipCount() + "件 " + (System.currentTimeMillis() - start) + "ms) " + inputPath);
+
+        return loadResult;
+    }
+
+    /**
+     * 検索結果キャッシュの統計情報を取得します。
+     * @return 統計情報 [size:件数 bytes:使用容量 hit:ヒット miss:ミス eviction:破棄 invalidation:無効化]（キャッシュ無効の時、空）
+     */
+    public Map<String, Long> getQueryCacheStatistics() {
+        MyQueryCache cache = queryCache;
+        return cache == null ? new HashMap<String, Long>() : cache.getStatistics();
+    }
+
+    /**
+     * 検索結果キャッシュの全破棄
+     */
+    public void clearQueryCache() {
+        MyQueryCache cache = queryCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 非同期実行のExecutorを設定します。<br>
+     * （未設定の時、最大接続数のスレッドプールを使用。<br>
+     * 仮想スレッドを利用できるJDKでは仮想スレッドのExecutorも指定可能。同時実行数は最大接続数で制限される）
+     * @param executor Executor（nullの時、既定のスレッドプール）
+     */
+    public void setAsyncExecutor(Executor executor) {
+        this.asyncExecutor = executor;
+    }
+
+    /**
+     * SQL実行統計を取得します。<br>
+     * （JMXにも「my.manager:type=MySqlStatistics」で公開）
+     * @return SQL実行統計
+     */
+    public MySqlStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * PreparedStatementキャッシュのヒット件数を取得します。<br>
+     * （プライマリのプールの全コネクションの合計。DB切断時は0）
+     * @return ヒット件数
+     */
+    public long getStatementCacheHitCount() {
+        MyConnectionPool p = pool;
+        return p == null ? 0 : p.getStatementHitCount();
+    }
+
+    /**
+     * PreparedStatementキャッシュのミス件数を取得します。<br>
+     * （プライマリのプールの全コネクションの合計。DB切断時は0）
+     * @return ミス件数
+     */
+    public long getStatementCacheMissCount() {
+        MyConnectionPool p = pool;
+        return p == null ? 0 : p.getStatementMissCount();
+    }
+
+    /**
+     * コミット<br>
+     * （実行スレッドのトランザクションのみ対象。コミット後、コネクションをプールへ返却。<br>
+     * 接続モードがテストの時はコミットせずにロールバックして返却）
+     * @throws SQLException
+     */
+    public void commit() throws SQLException {
+        MyPooledConnection pc = boundTxConnection();
+        if (pc == null) {
+            return;
+        }
+        try {
+            if (dbInfo.isMode() == false) {
+                // 接続モードがテストの時、常にロールバック
+                logger.debug("test mode does not commit");
+                rollbackConnection(pc);
+            } else {
+                commitConnection(pc);
+            }
+        } finally {
+            unbindTxConnection(pc);
+        }
+    }
+
+    /**
+     * ロールバック<br>
+     * （実行スレッドのトランザクションのみ対象。ロールバック後、コネクションをプールへ返却）
+     * @throws SQLException
+     */
+    public void rollback() throws SQLException {
+        MyPooledConnection pc = boundTxConnection();
+        if (pc == null) {
+            return;
+        }
+        try {
+            rollbackConnection(pc);
+        } finally {
+            unbindTxConnection(pc);
+        }
+    }
+
+    /**
+     * DB接続<br>
+     * （コネクションプールを生成し、最小接続数まで接続）
+     * @return 結果 [true:成功 false:失敗]
+     */
+    public boolean DBOpen() {
+        try {
+            MyConnectionPool newPool = takeWarmPool();
+            if (newPool == null) {
+                Class.forName(dbInfo.getDriverClass());
+                newPool = new MyConnectionPool(dbInfo);
+                newPool.open();
+            }
+            pool = newPool;
+
+            // 検索結果キャッシュ（有効期限の指定時のみ）
+            if (dbInfo.getQueryCacheTtl() > 0) {
+                queryCache = new MyQueryCache(dbInfo.getQueryCacheTtl(), dbInfo.getQueryCacheMaxBytes());
+            }
+
+            // レプリカのコネクションプール
+            openReplicas();
+
+            // SQL実行統計のJMX登録
+            registerStatistics();
+
+            // SQL実行記録（出力先の指定時のみ）
+            if (dbInfo.getCaptureFile() != null) {
+                capture = new MySqlCapture(Paths.get(dbInfo.getCaptureFile()));
+                logger.info("sql capture : " + dbInfo.getCaptureFile());
+            }
+
+        } catch (IOException e) {
+            logger.error("sql capture open error", e);
+            return false;
+        } catch (SQLException | ClassNotFoundException e) {
+            logger.error("database open error");
+            return false;
+        }
+
+        logger.info("database open");
+        return true;
+    }
+
+    /**
+     * DB切断<br>
+     * （貸出中を含むプールの全コネクションを未コミットの更新をロールバックして切断。<br>
+     * 他スレッドに割当済のトランザクションコネクションは無効化し、次回利用時に割当解除）
+     */
+    public void DBClose() {
+        txConn.remove();
+        MyConnectionPool unused = takeWarmPool();
+        if (unused != null) {
+            unused.close();
+        }
+        synchronized (this) {
+            if (defaultAsyncExecutor != null) {
+                defaultAsyncExecutor.shutdown();
+                defaultAsyncExecutor = null;
+            }
+        }
+        if (pool != null) {
+            // 接続モードがテストの時、切断前に常にロールバック
+            pool.close();
+            pool = null;
+        }
+        List<MyConnectionPool> replicas = replicaPools;
+        replicaPools = Collections.emptyList();
+        for (MyConnectionPool replica : replicas) {
+            replica.close();
+        }
+        queryCache = null;
+        unregisterStatistics();
+        MySqlCapture c = capture;
+        capture = null;
+        if (c != null) {
+            c.close();
+        }
+        logger.info("database close");
+    }
+
+    /**
+     * ウォームアップ<br>
+     * （ドライバの読込、最小接続数の接続と検証、PreparedStatementの準備、ウォームアップSQLの実行。<br>
+     * 失敗してもDBOpenで通常どおり接続）
+     */
+    private void warmUp() {
+        long start = System.currentTimeMillis();
+        MyConnectionPool newPool = null;
+        int size;
+        try {
+            Class.forName(dbInfo.getDriverClass());
+            newPool = new MyConnectionPool(dbInfo);
+            newPool.open();
+            size = warmUpPool(newPool, dbInfo.getPoolMinSize());
+
+        } catch (SQLException | ClassNotFoundException e) {
+            logger.warn("warm up error", e);
+            if (newPool != null) {
+                newPool.close();
+            }
+            return;
+        }
+
+        synchronized (this) {
+            if (warmPool != null) {
+                warmPool.close();
+            }
+            warmPool = newPool;
+        }
+        logger.info("warm up : " + size + "接続 (準備 " + dbInfo.getWarmupStatements().size() + "件 実行 "
+                    + dbInfo.getWarmupQueries().size() + "件 " + (System.currentTimeMillis() - start) + "ms)");
+    }
+
+    /**
+     * コネクションプールのウォームアップ<br>
+     * （最小接続数の全コネクションでウォームアップ時に準備するSQL文を準備し、先頭のコネクションでウォームアップSQLを実行。<br>
+     * 準備・実行するSQL文はプライマリのDB接続情報の設定[レプリカも同じSQL文を実行するため]）
+     * @param targetPool コネクションプール
+     * @param minSize 最小接続数
+     * @return 準備した接続数
+     * @throws SQLException
+     */
+    private int warmUpPool(MyConnectionPool targetPool,
+                           int minSize) throws SQLException {
+        List<MyPooledConnection> list = new ArrayList<MyPooledConnection>();
+        try {
+            // 最小接続数の全コネクションで準備（貸出時に接続を検証）
+            for (int i = 0; i < Math.max(minSize, 1); i++) {
+                list.add(targetPool.borrow());
+            }
+            for (MyPooledConnection pc : list) {
+                for (String sql : dbInfo.getWarmupStatements()) {
+                    pc.releaseStatement(sql, pc.prepareStatement(sql));
+                }
+            }
+            for (String sql : dbInfo.getWarmupQueries()) {
+                query(list.get(0), sql, new Object[0], result -> {
+                    while (result.next()) {
+                        // 読み捨て
+                    }
+                    return null;
+                });
+            }
+            for (MyPooledConnection pc : list) {
+                rollbackConnection(pc);
+            }
+        } finally {
+            for (MyPooledConnection pc : list) {
+                pc.getPool().release(pc);
+            }
+        }
+        return list.size();
+    }
+
+    /**
+     * ウォームアップ済のコネクションプールの取り出し
+     * @return コネクションプール（未ウォームアップの時、null）
+     */
+    private synchronized MyConnectionPool takeWarmPool() {
+        MyConnectionPool newPool = warmPool;
+        warmPool = null;
+        return newPool;
+    }
+
+    /**
+     * レプリカのコネクションプールの生成<br>
+     * （接続できないレプリカは除外し、プライマリのみで継続。<br>
+     * 本番モードの時、プライマリと同じSQL文でウォームアップ[失敗しても接続は継続]）
+     */
+    private synchronized void openReplicas() {
+        List<MyConnectionPool> list = new ArrayList<MyConnectionPool>();
+        for (MyDatabaseInfo replicaInfo : replicaInfoMap.values()) {
+            try {
+                Class.forName(replicaInfo.getDriverClass());
+            } catch (ClassNotFoundException e) {
+                logger.warn("replica driver not found : " + replicaInfo.getDbName() + " " + replicaInfo.getDriverClass(), e);
+                continue;
+            }
+            MyConnectionPool replica = new MyConnectionPool(replicaInfo);
+            try {
+                replica.open();
+                list.add(replica);
+                logger.info("replica open : " + replicaInfo.getDbName());
+            } catch (SQLException e) {
+                replica.close();
+                logger.warn("replica open error : " + replicaInfo.getDbName(), e);
+                continue;
+            }
+            if (dbInfo.isMode() == true) {
+                long start = System.currentTimeMillis();
+                try {
+                    int size = warmUpPool(replica, replicaInfo.getPoolMinSize());
+                    logger.info("replica warm up : " + replicaInfo.getDbName() + " " + size + "接続 ("
+                                + (System.currentTimeMillis() - start) + "ms)");
+                } catch (SQLException e) {
+                    logger.warn("replica warm up error : " + replicaInfo.getDbName(), e);
+                }
+            }
+        }
+        replicaPools = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * SQL実行統計のJMX登録<br>
+     * （登録に失敗してもDB接続は継続）
+     */
+    private synchronized void registerStatistics() {
+        if (statisticsName != null) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName("my.manager:type=MySqlStatistics,name=" + ObjectName.quote(dbInfo.getDbName()));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(statistics, name);
+            }
+            statisticsName = name;
+        } catch (JMException e) {
+            logger.warn("statistics mbean register error", e);
+        }
+    }
+
+    /**
+     * SQL実行統計のJMX登録解除
+     */
+    private synchronized void unregisterStatistics() {
+        if (statisticsName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(statisticsName);
+        } catch (JMException e) {
+            logger.debug("statistics mbean unregister error", e);
+        }
+        statisticsName = null;
+    }
+
+    /**
+     * コネクションの取得<br>
+     * （実行スレッドにトランザクションが存在する時、そのコネクションを返却。以外はレプリカ・プライマリのプールから貸出）
+     * @return コネクション
+     * @throws SQLException
+     */
+    private MyPooledConnection getConnection() throws SQLException {
+        MyPooledConnection pc = boundTxConnection();
+        if (pc != null) {
+            return pc;
+        }
+        return borrowReadConnection(isPrimaryRead());
+    }
+
+    /**
+     * 実行スレッドに割当済のトランザクションコネクションの取得<br>
+     * （DB切断等で無効化済の時、割当を解除）
+     * @return コネクション（未割当の時、null）
+     */
+    private MyPooledConnection boundTxConnection() {
+        MyPooledConnection pc = txConn.get();
+        if (pc != null && pc.isInvalidated()) {
+            logger.warn("transaction connection invalidated (database closed)");
+            txConn.remove();
+            return null;
+        }
+        return pc;
+    }
+
+    /**
+     * トランザクションコネクションの取得<br>
+     * （実行スレッドに未割当の時、プールから貸出してcommit/rollbackまで割当）
+     * @return コネクション
+     * @throws SQLException
+     */
+    private MyPooledConnection getTxConnection() throws SQLException {
+        MyPooledConnection pc = boundTxConnection();
+        if (pc == null) {
+            pc = borrowConnection();
+            txConn.set(pc);
+        }
+        return pc;
+    }
+
+    /**
+     * コネクションの返却<br>
+     * （トランザクションコネクションの時は返却しない）
+     * @param pc コネクション
+     */
+    private void releaseConnection(MyPooledConnection pc) {
+        if (pc != boundTxConnection()) {
+            pc.getPool().release(pc);
+        }
+    }
+
+    /**
+     * トランザクションコネクションの割当解除
+     * @param pc コネクション
+     */
+    private void unbindTxConnection(MyPooledConnection pc) {
+        txConn.remove();
+        pc.getPool().release(pc);
+    }
+
+    /**
+     * プールからコネクションを貸出
+     * @return コネクション
+     * @throws SQLException
+     */
+    private MyPooledConnection borrowConnection() throws SQLException {
+        MyConnectionPool primaryPool = pool;
+        if (primaryPool == null) {
+            throw new SQLException("database not open");
+        }
+        return borrowConnection(primaryPool);
+    }
+
+    /**
+     * 指定プールからコネクションを貸出
+     * @param connectionPool コネクションプール
+     * @return コネクション
+     * @throws SQLException
+     */
+    private MyPooledConnection borrowConnection(MyConnectionPool connectionPool) throws SQLException {
+        long start = System.nanoTime();
+        MyPooledConnection pc = connectionPool.borrow();
+        statistics.recordConnectionWait(System.nanoTime() - start);
+        return pc;
+    }
+
+    /**
+     * 参照用コネクションの貸出<br>
+     * （レプリカが存在する時、振り分け方式に従い貸出。レプリカから貸出できない時はプライマリ）
+     * @param primary プライマリ参照の指定
+     * @return コネクション
+     * @throws SQLException
+     */
+    private MyPooledConnection borrowReadConnection(boolean primary) throws SQLException {
+        MyConnectionPool replica = primary ? null : selectReplica();
+        if (replica != null) {
+            try {
+                return borrowConnection(replica);
+            } catch (SQLException e) {
+                logger.warn("replica borrow error : " + replica.getName() + " (use primary)", e);
+            }
+        }
+        return borrowConnection();
+    }
+
+    /**
+     * レプリカの選択<br>
+     * （SQL実行時間の振り分けは、最速のレプリカへの集中を避けるため無作為な2つから選択[Power of Two Choices]）
+     * @return コネクションプール（レプリカなしの時、null）
+     */
+    private MyConnectionPool selectReplica() {
+        List<MyConnectionPool> list = replicaPools;
+        if (list.isEmpty()) {
+            return null;
+        }
+        if (replicaRouting == ReplicaRouting.LEAST_LATENCY) {
+            if (list.size() == 1) {
+                return list.get(0);
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(list.size());
+            int second = (first + 1 + random.nextInt(list.size() - 1)) % list.size();
+            MyConnectionPool a = list.get(first);
+            MyConnectionPool b = list.get(second);
+            // 未計測（0）・減衰したレプリカを優先
+            return b.getLatency() < a.getLatency() ? b : a;
+        }
+        return list.get(Math.floorMod(replicaIndex.getAndIncrement(), list.size()));
+    }
+
+    /**
+     * 実行スレッドがプライマリ参照か判定<br>
+     * （プライマリ参照の指定時、またはコミット後の指定期間内）
+     * @return 判定結果 [true:プライマリ false:レプリカ]
+     */
+    private boolean isPrimaryRead() {
+        if (primaryRead.get() != null) {
+            return true;
+        }
+        Long until = primaryReadUntil.get();
+        if (until == null) {
+            return false;
+        }
+        if (until < System.currentTimeMillis()) {
+            primaryReadUntil.remove();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 非同期実行<br>
+     * （実行スレッドでプールからコネクションを貸出し、終了時に返却）
+     * @param <R>
+     * @param readOnly 参照のみ（レプリカへ振り分け）
+     * @param task コネクションを使用する処理
+     * @return 処理結果のFuture
+     */
+    private <R> CompletableFuture<R> supplyAsync(boolean readOnly,
+                                                 ConnectionTask<R> task) {
+        // プライマリ参照の指定は呼び出し元スレッドで判定
+        boolean primary = !readOnly || isPrimaryRead();
+        return CompletableFuture.supplyAsync(() -> {
+            MyPooledConnection pc = null;
+            try {
+                pc = borrowReadConnection(primary);
+                return task.run(pc);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            } finally {
+                if (pc != null) {
+                    pc.getPool().release(pc);
+                }
+            }
+        }, getAsyncExecutor());
+    }
+
+    /**
+     * 非同期実行のExecutorの取得<br>
+     * （未設定の時、最大接続数のデーモンスレッドプールを生成）
+     * @return Executor
+     */
+    private synchronized Executor getAsyncExecutor() {
+        if (asyncExecutor != null) {
+            return asyncExecutor;
+        }
+        if (defaultAsyncExecutor == null) {
+            AtomicInteger threadNo = new AtomicInteger();
+            defaultAsyncExecutor = Executors.newFixedThreadPool(Math.max(dbInfo.getPoolMaxSize(), 1), r -> {
+                Thread t = new Thread(r, "MyDatabaseManager-async-" + threadNo.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return defaultAsyncExecutor;
+    }
+
+    /**
+     * コミット（コネクションの割当は維持）<br>
+     * （接続モードがテストの時、コミットしない）
+     * @param pc コネクション
+     * @throws SQLException
+     */
+    private void commitConnection(MyPooledConnection pc) throws SQLException {
+        if (dbInfo.isMode() == false) {
+            logger.debug("test mode does not commit");
+            return;
+        }
+        if (!pc.getConnection().isClosed()) {
+            pc.getConnection().commit();
+            recordTransactionEnd(true);
+            logger.info("commit");
+        }
+
+        // レプリカへの反映まで、実行スレッドの参照SQLをプライマリで実行
+        if (!replicaPools.isEmpty() && dbInfo.getPrimaryReadAfterCommit() > 0) {
+            primaryReadUntil.set(System.currentTimeMillis() + dbInfo.getPrimaryReadAfterCommit());
+        }
+
+        // コミット前に他スレッドが登録したキャッシュを無効化
+        Set<String> tables = pc.removeWrittenTables();
+        MyQueryCache cache = queryCache;
+        if (cache != null && tables != null) {
+            cache.invalidateTables(tables);
+        }
+    }
+
+    /**
+     * ロールバック（コネクションの割当は維持）
+     * @param pc コネクション
+     * @throws SQLException
+     */
+    private void rollbackConnection(MyPooledConnection pc) throws SQLException {
+        pc.removeWrittenTables();
+        if (!pc.getConnection().isClosed()) {
+            pc.getConnection().rollback();
+            recordTransactionEnd(false);
+            logger.info("rollback");
+        }
+    }
+
+    /**
+     * コミット・ロールバックの記録（SQL実行記録の出力先の指定時）
+     * @param commit [true:コミット false:ロールバック]
+     */
+    private void recordTransactionEnd(boolean commit) {
+        MySqlCapture c = capture;
+        if (c != null) {
+            c.recordTransactionEnd(commit);
+        }
+    }
+
+    /**
+     * 検索結果キャッシュの取得<br>
+     * （トランザクション中のスレッドはキャッシュを使用しない）
+     * @param sql SQL文
+     * @param params パラメータ
+     * @return 検索結果（キャッシュ無効・未登録の時、null）
+     */
+    private List<Map<String, String>> getCache(String sql,
+                                               Object[] params) {
+        MyQueryCache cache = queryCache;
+        if (cache == null || boundTxConnection() != null) {
+            return null;
+        }
+        return cache.get(sql, params);
+    }
+
+    /**
+     * 検索結果キャッシュの無効化の世代の取得（検索の実行前に取得）
+     * @return 世代（キャッシュ無効の時、0）
+     */
+    private long getCacheGeneration() {
+        MyQueryCache cache = queryCache;
+        return cache == null ? 0 : cache.getGeneration();
+    }
+
+    /**
+     * 検索結果キャッシュの登録<br>
+     * （トランザクション中のスレッドは未コミットの結果を含むため登録しない。<br>
+     * 検索中に無効化された時も、更新前の結果の可能性があるため登録しない）
+     * @param sql SQL文
+     * @param params パラメータ
+     * @param mapList 検索結果
+     * @param generation 検索前に取得した無効化の世代
+     */
+    private void putCache(String sql,
+                          Object[] params,
+                          List<Map<String, String>> mapList,
+                          long generation) {
+        MyQueryCache cache = queryCache;
+        if (cache == null || boundTxConnection() != null) {
+            return;
+        }
+        cache.put(sql, params, mapList, generation);
+    }
+
+    /**
+     * 更新系SQL文の対象テーブルを参照するキャッシュの無効化<br>
+     * （コミット時にも再度無効化するため、更新テーブルを記録）
+     * @param pc コネクション
+     * @param sql 更新系SQL文
+     */
+    private void invalidateCache(MyPooledConnection pc,
+                                 String sql) {
+        MyQueryCache cache = queryCache;
+        if (cache == null) {
+            return;
+        }
+        pc.addWrittenTables(cache.invalidate(sql));
+    }
+
+    /**
+     * Insert,Update,Delete文のバッチ実行（PreparedStatement）
+     * @param pc コネクション
+     * @param sql SQL文
+     * @param paramList 行毎のパラメータ
+     * @param batchSize バッチ実行件数
+     * @param commitInterval 途中コミット行数（0以下の時、コミットしない）
+     * @return バッチ実行結果
+     * @throws SQLException
+     */
+    private MyBatchResult updateBatch(MyPooledConnection pc,
+                                      String sql,
+                                      List<Object[]> paramList,
+                                      int batchSize,
+                                      int commitInterval) throws SQLException {
+        MyBatchResult batchResult = new MyBatchResult();
+        PreparedStatement ps = pc.prepareStatement(sql);
+        try {
+            int uncommitted = 0;
+            for (int from = 0; from < paramList.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, paramList.size());
+                executeBatchRecorded(pc.getConnection(), ps, sql, paramList, from, to, batchResult);
+
+                // 途中コミット
+                uncommitted += to - from;
+                if (commitInterval > 0 && (uncommitted >= commitInterval || to == paramList.size())) {
+                    commitConnection(pc);
+                    uncommitted = 0;
+                }
+            }
+            batchResult.setRowCount(paramList.size());
+
+        } catch (SQLException e) {
+            pc.getStatementCache().invalidate(sql);
+            throw e;
+        } finally {
+            pc.releaseStatement(sql, ps);
+        }
+        return batchResult;
+    }
+
+    /**
+     * バッチ実行（指定範囲の行）と実行の記録<br>
+     * （実行記録には行毎のバインド値を出力）
+     * @param conn コネクション
+     * @param ps PreparedStatement
+     * @param sql SQL文
+     * @param paramList 行毎のパラメータ
+     * @param from 開始行（含む）
+     * @param to 終了行（含まない）
+     * @param batchResult バッチ実行結果（更新件数・失敗行を追加）
+     * @throws SQLException
+     */
+    private void executeBatchRecorded(Connection conn,
+                                      PreparedStatement ps,
+                                      String sql,
+                                      List<Object[]> paramList,
+                                      int from,
+                                      int to,
+                                      MyBatchResult batchResult) throws SQLException {
+        long start = System.nanoTime();
+        long updateCount = batchResult.getTotalUpdateCount();
+        int failedCount = batchResult.getFailedRows().size();
+        boolean error = true;
+        try {
+            executeBatch(conn, ps, paramList, from, to, batchResult);
+            error = batchResult.getFailedRows().size() > failedCount;
+        } finally {
+            long elapsedNanos = System.nanoTime() - start;
+            statistics.record(sql, null, elapsedNanos, batchResult.getTotalUpdateCount() - updateCount, 0, error);
+            MySqlCapture c = capture;
+            if (c != null) {
+                c.recordBatch(sql, paramList.subList(from, to), elapsedNanos, error);
+            }
+        }
+    }
+
+    /**
+     * バッチ実行（指定範囲の行）<br>
+     * （実行前にセーブポイントを設定。ドライバが行毎の結果を返した時はその失敗行を記録し、<br>
+     * 失敗行を特定できない時[全行EXECUTE_FAILED・件数不足]はセーブポイントまで戻して1行ずつ再実行。<br>
+     * セーブポイントは実行後に解放[解放未対応のドライバはコミット・ロールバックまで保持]）
+     * @param conn コネクション
+     * @param ps PreparedStatement
+     * @param paramList 行毎のパラメータ
+     * @param from 開始行（含む）
+     * @param to 終了行（含まない）
+     * @param batchResult バッチ実行結果
+     * @throws SQLException
+     */
+    private static void executeBatch(Connection conn,
+                                     PreparedStatement ps,
+                                     List<Object[]> paramList,
+                                     int from,
+                                     int to,
+                                     MyBatchResult batchResult) throws SQLException {
+        for (int i = from; i < to; i++) {
+            MySqlUtil.setParameters(ps, paramList.get(i));
+            ps.addBatch();
+        }
+
+        Savepoint savepoint = conn.setSavepoint();
+        try {
+            batchResult.addUpdateCounts(ps.executeBatch());
+
+        } catch (BatchUpdateException e) {
+            ps.clearBatch();
+            logger.warn("batch row failed : " + e.getMessage());
+
+            int[] counts = e.getUpdateCounts() == null ? new int[0] : e.getUpdateCounts();
+            if (isRowCounts(counts, to - from)) {
+                // 行毎の結果あり（失敗行はEXECUTE_FAILED、他の行は実行済）
+                batchResult.addUpdateCounts(counts);
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == Statement.EXECUTE_FAILED) {
+                        batchResult.addFailedRow(from + i, e);
+                    }
+                }
+                return;
+            }
+
+            // 失敗行を特定できないため、バッチ全体を取り消して1行ずつ再実行
+            conn.rollback(savepoint);
+            executeRows(conn, ps, paramList, from, to, batchResult);
+
+        } finally {
+            releaseSavepoint(conn, savepoint);
+        }
+    }
+
+    /**
+     * バッチ実行結果が行毎の結果かを判定<br>
+     * （全行分の件数があり、全行EXECUTE_FAILEDでない時）
+     * @param counts 実行件数
+     * @param rows バッチの行数
+     * @return 結果 [true:行毎の結果 false:失敗行を特定できない]
+     */
+    private static boolean isRowCounts(int[] counts,
+                                       int rows) {
+        if (counts.length != rows) {
+            return false;
+        }
+        for (int count : counts) {
+            if (count != Statement.EXECUTE_FAILED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 1行ずつ実行（指定範囲の行）<br>
+     * （行毎にセーブポイントを設定し、失敗行のみ取り消して記録。セーブポイントは行毎に解放）
+     * @param conn コネクション
+     * @param ps PreparedStatement
+     * @param paramList 行毎のパラメータ
+     * @param from 開始行（含む）
+     * @param to 終了行（含まない）
+     * @param batchResult バッチ実行結果
+     * @throws SQLException
+     */
+    private static void executeRows(Connection conn,
+                                    PreparedStatement ps,
+                                    List<Object[]> paramList,
+                                    int from,
+                                    int to,
+                                    MyBatchResult batchResult) throws SQLException {
+        int[] counts = new int[to - from];
+        for (int i = from; i < to; i++) {
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                MySqlUtil.setParameters(ps, paramList.get(i));
+                counts[i - from] = ps.executeUpdate();
+            } catch (SQLException e) {
+                conn.rollback(savepoint);
+                counts[i - from] = Statement.EXECUTE_FAILED;
+                batchResult.addFailedRow(i, e);
+            } finally {
+                releaseSavepoint(conn, savepoint);
+            }
+        }
+        batchResult.addUpdateCounts(counts);
+    }
+
+    /**
+     * セーブポイントの解放<br>
+     * （例外は握りつぶす。解放未対応のドライバ[Oracle等]の時は以降は解放せず、セーブポイントはコミット・ロールバックまで保持）
+     * @param conn コネクション
+     * @param savepoint セーブポイント
+     */
+    private static void releaseSavepoint(Connection conn,
+                                         Savepoint savepoint) {
+        if (!releaseSavepointSupported) {
+            return;
+        }
+        try {
+            conn.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            if (e instanceof SQLFeatureNotSupportedException || e.getErrorCode() == ORACLE_UNSUPPORTED_FEATURE) {
+                releaseSavepointSupported = false;
+            }
+            logger.debug("release savepoint error", e);
+        }
+    }
+
+    /**
+     * カーソルのオープン<br>
+     * （フェッチサイズを設定し、キャッシュ対象外のPreparedStatementで実行）
+     * @param sql SQL文
+     * @param params パラメータ
+     * @return 行カーソル
+     * @throws SQLException
+     */
+    private MyRowIterator openCursor(String sql,
+                                     Object[] params) throws SQLException {
+
+        // Log出力
+        logger.debug(sql + " " + Arrays.toString(params));
+
+        // トランザクション外の時、カーソルのクローズ時にコネクションを返却
+        boolean borrowed = (boundTxConnection() == null);
+        MyPooledConnection pc = getConnection();
+        long start = System.nanoTime();
+        Consumer<MyRowIterator> releaser = cursor -> {
+            // 実行統計はカーソルのクローズまで（読み取り時間を含む）
+            recordExecution(sql, params, System.nanoTime() - start, cursor == null ? 0 : cursor.getRowCount(),
+                              cursor == null ? 0 : cursor.getByteCount(), cursor == null);
+            if (borrowed) {
+                pc.getPool().release(pc);
+            }
+        };
+
+        PreparedStatement ps = null;
+        try {
+            ps = pc.getConnection().prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(dbInfo.getFetchSize());
+            MySqlUtil.setParameters(ps, params);
+            return new MyRowIterator(ps, executeQuery(pc, ps), releaser);
+        } catch (SQLException e) {
+            if (ps != null) {
+                try {
+                    ps.close();
+                } catch (SQLException closeError) {
+                    e.addSuppressed(closeError);
+                }
+            }
+            releaser.accept(null);
+            throw e;
+        }
+    }
+
+    /**
+     * 項目名の取得（行は取得しない）
+     * @param sql SQL文
+     * @param params パラメータ
+     * @return 項目名（列順）
+     * @throws SQLException
+     */
+    String[] selectColumnNames(String sql,
+                               Object[] params) throws SQLException {
+        MyPooledConnection pc = getConnection();
+        try {
+            return query(pc, "select * from ( " + sql + " ) where rownum < 1", params, MyDatabaseManager::getColumnNames);
+        } finally {
+            releaseConnection(pc);
+        }
+    }
+
+    /**
+     * 指定範囲の行の検索<br>
+     * （ROWNUMで範囲の終端までのみ取得）
+     * @param sql SQL文
+     * @param params パラメータ
+     * @param offset 開始位置（0始まり）
+     * @param size 取得件数
+     * @return 行データ（列順）
+     * @throws SQLException
+     */
+    List<String[]> selectWindow(String sql,
+                                Object[] params,
+                                long offset,
+                                int size) throws SQLException {
+        String windowSql = "select * from ( select a.*, rownum as " + PAGE_ROWNUM_COLUMN + " from ( " + sql + " ) a where rownum <= ? ) where "
+                           + PAGE_ROWNUM_COLUMN + " > ?";
+        Object[] windowParams = concat(params, offset + size, offset);
+
+        MyPooledConnection pc = getConnection();
+        try {
+            return query(pc, windowSql, windowParams, size, result -> {
+                // 行番号項目（末尾）は除く
+                int columnCount = result.getMetaData().getColumnCount() - 1;
+                List<String[]> rows = new ArrayList<String[]>(size);
+                while (result.next()) {
+                    String[] row = new String[columnCount];
+                    for (int i = 0; i < columnCount; i++) {
+                        row[i] = result.getString(i + 1);
+                    }
+                    rows.add(row);
+                }
+                return rows;
+            });
+        } finally {
+            releaseConnection(pc);
+        }
+    }
+
+    /**
+     * SELECT文の実行（PreparedStatement）
+     * @param pc コネクション
+     * @param sql SQL文
+     * @param params パラメータ
+     * @return listMap 実行結果
+     * @throws SQLException
+     */
+    private List<Map<String, String>> select(MyPooledConnection pc,
+                                             String sql,
+                                             Object[] params) throws SQLException {
+        return query(pc, sql, params, MyDatabaseManager::toMapList);
+    }
+
+    /**
+     * ページ検索SQLの実行<br>
+     * （取得件数分のフェッチサイズで実行し、ページ検索用の項目を除去。<br>
+     * キー項目の指定時は、ページ最終行のキー値をDBの型のまま取得[日付・日時はTimestamp]）
+     * @param sql ページ検索SQL文
+     * @param params パラメータ
+     * @param pageSize ページ件数
+     * @param withTotal 全件数の同時取得有無
+     * @param keyColumns キー項目（キーセット方式以外の時、null）
+     * @return ページ検索結果
+     * @throws SQLException
+     */
+    private MyPage selectPage(String sql,
+                              Object[] params,
+                              int pageSize,
+                              boolean withTotal,
+                              String[] keyColumns) throws SQLException {
+
+        // Log出力
+        logger.debug(sql + " " + Arrays.toString(params));
+
+        Object[] lastKey = new Object[1];
+        List<Map<String, String>> mapList;
+        MyPooledConnection pc = getConnection();
+        try {
+            mapList = query(pc, sql, params, pageSize + 1, result -> {
+                if (keyColumns == null) {
+                    return toMapList(result);
+                }
+                int[] keyIndexes = new int[keyColumns.length];
+                for (int i = 0; i < keyColumns.length; i++) {
+                    keyIndexes[i] = result.findColumn(keyColumns[i]);
+                }
+                ResultSetMetaData meta = result.getMetaData();
+                String[] columnNames = getColumnNames(result);
+                List<Map<String, String>> list = new ArrayList<Map<String, String>>();
+                while (result.next()) {
+                    Map<String, String> map = new HashMap<String, String>();
+                    for (int i = 0; i < columnNames.length; i++) {
+                        map.put(columnNames[i], result.getString(i + 1));
+                    }
+                    list.add(map);
+                    if (list.size() <= pageSize) {
+                        Object[] key = new Object[keyIndexes.length];
+                        for (int i = 0; i < keyIndexes.length; i++) {
+                            int type = meta.getColumnType(keyIndexes[i]);
+                            // OracleのDATEは時刻を含むため、Timestampで取得
+                            key[i] = (type == Types.DATE || type == Types.TIMESTAMP) ? result.getTimestamp(keyIndexes[i])
+                                            : result.getObject(keyIndexes[i]);
+                        }
+                        lastKey[0] = key.length == 1 ? key[0] : key;
+                    }
+                }
+                return list;
+            });
+        } finally {
+            releaseConnection(pc);
+        }
+
+        MyPage page = new MyPage().setLastKey(lastKey[0]);
+        if (withTotal) {
+            page.setTotalCount(mapList.isEmpty() ? 0 : Long.parseLong(mapList.get(0).get(PAGE_TOTAL_COLUMN)));
+        }
+        page.setHasNext(mapList.size() > pageSize);
+        if (mapList.size() > pageSize) {
+            mapList = new ArrayList<Map<String, String>>(mapList.subList(0, pageSize));
+        }
+        for (Map<String, String> map : mapList) {
+            map.remove(PAGE_TOTAL_COLUMN);
+            map.remove(PAGE_ROWNUM_COLUMN);
+        }
+        return page.setRows(mapList);
+    }
+
+    /**
+     * SELECT文の実行（PreparedStatement）
+     * @param <R>
+     * @param pc コネクション
+     * @param sql SQL文
+     * @param params パラメータ
+     * @param reader 実行結果の変換処理
+     * @return 変換後の実行結果
+     * @throws SQLException
+     */
+    private <R> R query(MyPooledConnection pc,
+                        String sql,
+                        Object[] params,
+                        ResultReader<R> reader) throws SQLException {
+        return query(pc, sql, params, 0, reader);
+    }
+
+    /**
+     * SELECT文の実行（PreparedStatement フェッチサイズ指定）
+     * @param <R>
+     * @param pc コネクション
+     * @param sql SQL文
+     * @param params パラメータ
+     * @param fetchSize フェッチサイズ（0以下の時、ドライバの既定値）
+     * @param reader 実行結果の変換処理
+     * @return 変換後の実行結果
+     * @throws SQLException
+     */
+    private <R> R query(MyPooledConnection pc,
+                        String sql,
+                        Object[] params,
+                        int fetchSize,
+                        ResultReader<R> reader) throws SQLException {
+        long start = System.nanoTime();
+        PreparedStatement ps = pc.prepareStatement(sql);
+        try {
+            pc.beginStatement(ps);
+            // キャッシュしたPreparedStatementは前回の設定を引き継ぐため、毎回設定（0：ドライバの既定値）
+            ps.setFetchSize(Math.max(fetchSize, 0));
+            MySqlUtil.setParameters(ps, params);
+            try (ResultSet result = executeQuery(pc, ps);) {
+                R r = reader.read(result);
+                recordStatistics(sql, params, start, r);
+                return r;
+            }
+        } catch (SQLException e) {
+            recordExecution(sql, params, System.nanoTime() - start, 0, 0, true);
+            pc.getStatementCache().invalidate(sql);
+            throw e;
+        } finally {
+            pc.endStatement();
+            pc.releaseStatement(sql, ps);
+        }
+    }
+
+    /**
+     * SELECT文の実行（Statement バインド変数なし）
+     * @param <R>
+     * @param pc コネクション
+     * @param sql SQL文
+     * @param reader 実行結果の変換処理
+     * @return 変換後の実行結果
+     * @throws SQLException
+     */
+    private <R> R queryStatement(MyPooledConnection pc,
+                                 String sql,
+                                 ResultReader<R> reader) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement state = pc.getConnection().createStatement(); ResultSet result = state.executeQuery(sql);) {
+            pc.getPool().recordLatency(System.nanoTime() - start);
+            R r = reader.read(result);
+            recordStatistics(sql, null, start, r);
+            return r;
+        } catch (SQLException e) {
+            recordExecution(sql, null, System.nanoTime() - start, 0, 0, true);
+            throw e;
+        }
+    }
+
+    /**
+     * SQL実行の記録<br>
+     * （SQL実行統計に加え、SQL実行記録の出力先の指定時は実行記録にも出力）
+     * @param sql SQL文
+     * @param params パラメータ（なしの時、null）
+     * @param elapsedNanos 実行時間（ナノ秒）
+     * @param rows 件数
+     * @param bytes バイト数（概算）
+     * @param error エラー有無
+     */
+    private void recordExecution(String sql,
+                                 Object[] params,
+                                 long elapsedNanos,
+                                 long rows,
+                                 long bytes,
+                                 boolean error) {
+        statistics.record(sql, params, elapsedNanos, rows, bytes, error);
+        MySqlCapture c = capture;
+        if (c != null) {
+            c.record(sql, params, elapsedNanos, error);
+        }
+    }
+
+    /**
+     * SELECT文の実行<br>
+     * （実行時間[結果の読込を含まない]をレプリカの振り分けに使用）
+     * @param pc コネクション
+     * @param ps PreparedStatement（パラメータ設定済）
+     * @return 実行結果
+     * @throws SQLException
+     */
+    private static ResultSet executeQuery(MyPooledConnection pc,
+                                          PreparedStatement ps) throws SQLException {
+        long start = System.nanoTime();
+        ResultSet result = ps.executeQuery();
+        pc.getPool().recordLatency(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * SELECT文の実行統計の記録<br>
+     * （取得件数・バイト数は実行結果の型から算出）
+     * @param sql SQL文
+     * @param params パラメータ
+     * @param start 実行開始時刻（System.nanoTime）
+     * @param r 変換後の実行結果
+     */
+    private void recordStatistics(String sql,
+                                  Object[] params,
+                                  long start,
+                                  Object r) {
+        long elapsed = System.nanoTime() - start;
+        long rows = 0;
+        long bytes = 0;
+        if (r instanceof MySpillList) {
+            rows = ((MySpillList) r).size();
+            bytes = ((MySpillList) r).getByteCount();
+        } else if (r instanceof ChangeRows) {
+            rows = ((ChangeRows) r).rows.size();
+        } else if (r instanceof List) {
+            List<?> list = (List<?>) r;
+            rows = list.size();
+            for (Object row : list) {
+                if (row instanceof Map) {
+                    for (Object value : ((Map<?, ?>) row).values()) {
+                        bytes += value == null ? 0 : value.toString().length() * 2L;
+                    }
+                }
+            }
+        } else if (r instanceof DefaultTableModel) {
+            rows = ((DefaultTableModel) r).getRowCount();
+        } else if (r instanceof MyColumnarResult) {
+            rows = ((MyColumnarResult) r).size();
+        } else if (r != null) {
+            rows = 1;
+        }
+        recordExecution(sql, params, elapsed, rows, bytes, false);
+    }
+
+    /**
+     * Insert,Update,Delete文の実行（PreparedStatement）
+     * @param pc コネクション
+     * @param sql SQL文
+     * @param params パラメータ
+     * @return count 実行件数
+     * @throws SQLException
+     */
+    private int update(MyPooledConnection pc,
+                       String sql,
+                       Object[] params) throws SQLException {
+        long start = System.nanoTime();
+        PreparedStatement ps = pc.prepareStatement(sql);
+        try {
+            MySqlUtil.setParameters(ps, params);
+            int count = ps.executeUpdate();
+            recordExecution(sql, params, System.nanoTime() - start, count, 0, false);
+            return count;
+        } catch (SQLException e) {
+            recordExecution(sql, params, System.nanoTime() - start, 0, 0, true);
+            pc.getStatementCache().invalidate(sql);
+            throw e;
+        } finally {
+            pc.releaseStatement(sql, ps);
+        }
+    }
+
+    /**
+     * 読込バッチの受け渡し<br>
+     * （コミット済のバッチは読み飛ばし。キューが満杯の時、登録スレッドの処理を待機）
+     * @param ctx 登録処理の状態
+     * @param chunk 読込バッチ
+     * @param loadResult 登録結果
+     */
+    private static void dispatchChunk(LoadContext ctx,
+                                      LoadChunk chunk,
+                                      MyLoadResult loadResult) {
+        loadResult.setReadCount(loadResult.getReadCount() + chunk.lines.size());
+        if (ctx.checkpoint.isCommitted(chunk.chunkNo)) {
+            loadResult.setSkipCount(loadResult.getSkipCount() + chunk.lines.size());
+            return;
+        }
+        try {
+            while (ctx.error == null && !ctx.queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                // 登録スレッドの処理待ち
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ctx.fail(e);
+        }
+    }
+
+    /**
+     * 登録スレッドの処理<br>
+     * （キューのバッチを解析してバッチ登録し、コミット行数毎にコミット。異常時は未コミット分をロールバック）
+     * @param pc コネクション
+     * @param ctx 登録処理の状態
+     * @throws SQLException
+     */
+    private void loadWorker(MyPooledConnection pc,
+                            LoadContext ctx) throws SQLException {
+        String sql = ctx.loadInfo.getSql();
+        List<LoadChunk> uncommitted = new ArrayList<LoadChunk>();
+        int uncommittedRows = 0;
+        PreparedStatement ps = pc.prepareStatement(sql);
+        try {
+            while (true) {
+                LoadChunk chunk;
+                try {
+                    chunk = ctx.queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    ctx.fail(e);
+                    break;
+                }
+                if (chunk == LoadChunk.END || ctx.error != null) {
+                    break;
+                }
+
+                // 解析（不正行はリジェクト）
+                List<Object[]> paramList = new ArrayList<Object[]>(chunk.lines.size());
+                List<Integer> indexList = new ArrayList<Integer>(chunk.lines.size());
+                for (int i = 0; i < chunk.lines.size(); i++) {
+                    String line = chunk.lines.get(i);
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    Object[] params = splitLine(line, ctx.loadInfo.getDelimiter(), ctx.loadInfo.isQuote());
+                    if (params == null || params.length != ctx.paramCount) {
+                        ctx.reject(chunk, chunk.startLineNo + i, line, "column count " + (params == null ? "(quote error)" : params.length));
+                        continue;
+                    }
+                    paramList.add(params);
+                    indexList.add(i);
+                }
+
+                // バッチ登録（失敗行はリジェクト）
+                if (!paramList.isEmpty()) {
+                    MyBatchResult batchResult = new MyBatchResult();
+                    executeBatchRecorded(pc.getConnection(), ps, sql, paramList, 0, paramList.size(), batchResult);
+                    for (Entry<Integer, SQLException> failed : batchResult.getFailedRows().entrySet()) {
+                        int index = indexList.get(failed.getKey());
+                        ctx.reject(chunk, chunk.startLineNo + index, chunk.lines.get(index), failed.getValue().getMessage());
+                    }
+                    ctx.loadCount.addAndGet(paramList.size() - batchResult.getFailedRows().size());
+                }
+
+                uncommitted.add(chunk);
+                uncommittedRows += chunk.lines.size();
+                if (uncommittedRows >= ctx.loadInfo.getCommitInterval()) {
+                    commitChunks(pc, ctx, uncommitted);
+                    uncommittedRows = 0;
+                }
+            }
+
+            if (ctx.error == null) {
+                commitChunks(pc, ctx, uncommitted);
+            } else {
+                rollbackConnection(pc);
+            }
+
+        } catch (SQLException | RuntimeException e) {
+            ctx.fail(e);
+            pc.getStatementCache().invalidate(sql);
+            rollbackConnection(pc);
+            throw e;
+        } finally {
+            pc.releaseStatement(sql, ps);
+            if (dbInfo.isMode() == false) {
+                // 接続モードがテストの時、プールへ返却する前にロールバック
+                rollbackConnection(pc);
+            }
+        }
+    }
+
+    /**
+     * 登録済バッチのコミット<br>
+     * （コミット後にバッチのリジェクト行を出力。接続モードが本番の時のみチェックポイントに記録）
+     * @param pc コネクション
+     * @param ctx 登録処理の状態
+     * @param chunks 未コミットのバッチ（コミット後にクリア）
+     * @throws SQLException
+     */
+    private void commitChunks(MyPooledConnection pc,
+                              LoadContext ctx,
+                              List<LoadChunk> chunks) throws SQLException {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        invalidateCache(pc, ctx.loadInfo.getSql());
+        commitConnection(pc);
+        try {
+            ctx.commit(chunks, dbInfo.isMode());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        chunks.clear();
+    }
+
+    /**
+     * リジェクトファイルのオープン<br>
+     * （再開時はチェックポイントに記録した出力位置以降[未コミットのバッチ分]を切り捨てて追記）
+     * @param loadInfo 登録情報
+     * @param checkpoint チェックポイント
+     * @return 出力先（リジェクトファイルパスの未指定時、null）
+     * @throws IOException
+     */
+    private static FileChannel openRejectChannel(MyLoadInfo loadInfo,
+                                                 LoadCheckpoint checkpoint) throws IOException {
+        if (loadInfo.getRejectPath() == null) {
+            return null;
+        }
+        Path rejectPath = Paths.get(loadInfo.getRejectPath()).toAbsolutePath();
+        Files.createDirectories(rejectPath.getParent());
+        if (!loadInfo.isRestart()) {
+            return FileChannel.open(rejectPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        FileChannel channel = FileChannel.open(rejectPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (checkpoint.rejectBytes >= 0 && channel.size() > checkpoint.rejectBytes) {
+                channel.truncate(checkpoint.rejectBytes);
+            }
+            channel.position(channel.size());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    /**
+     * 区切り文字で分割<br>
+     * （値の囲み有りの時、「"」で囲まれた区切り文字は値として扱い「""」は「"」に変換。空の値はnull）
+     * @param line 行
+     * @param delimiter 区切り文字
+     * @param quote 値の囲み有無
+     * @return 値（囲みが閉じていない時、null）
+     */
+    private static Object[] splitLine(String line,
+                                      String delimiter,
+                                      boolean quote) {
+        List<String> values = new ArrayList<String>();
+        StringBuilder bf = new StringBuilder();
+        int length = line.length();
+        int i = 0;
+        while (true) {
+            bf.setLength(0);
+            if (quote && i < length && line.charAt(i) == '"') {
+                // 囲みあり
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        return null;
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        bf.append(c);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        bf.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < length && !line.startsWith(delimiter, i)) {
+                    return null;
+                }
+            } else {
+                int end = line.indexOf(delimiter, i);
+                end = (end == -1) ? length : end;
+                bf.append(line, i, end);
+                i = end;
+            }
+            values.add(bf.length() == 0 ? null : bf.toString());
+            if (i >= length) {
+                break;
+            }
+            i += delimiter.length();
+        }
+        return values.toArray();
+    }
+
+    /**
+     * バインド変数「?」の個数（文字列リテラル内は除く）
+     * @param sql SQL文
+     * @return 個数
+     */
+    static int countParameters(String sql) {
+        int count = 0;
+        boolean literal = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                literal = !literal;
+            } else if (c == '?' && !literal) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * キー一覧の分割<br>
+     * （重複キーを除外し、IN句の分割件数毎に分割）
+     * @param keys キー一覧
+     * @return 分割毎のキー
+     */
+    private List<List<Object>> toInChunks(Collection<?> keys) {
+        List<Object> keyList = new ArrayList<Object>(new LinkedHashSet<Object>(keys));
+        int size = Math.max(dbInfo.getInListSize(), 1);
+        List<List<Object>> chunks = new ArrayList<List<Object>>();
+        for (int i = 0; i < keyList.size(); i += size) {
+            chunks.add(keyList.subList(i, Math.min(i + size, keyList.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * IN句のバインド変数の個数の取得
+     * @param count キー数
+     * @return バインド変数の個数（８以上の２の累乗 上限はIN句の分割件数）
+     */
+    private int toInListSize(int count) {
+        int size = Math.max(Integer.highestOneBit(Math.max(count - 1, 1)) << 1, 8);
+        return Math.min(size, Math.max(dbInfo.getInListSize(), 1));
+    }
+
+    /**
+     * IN句のキー一覧の置換文字列をバインド変数に置換
+     * @param sql SQL文
+     * @param size バインド変数の個数
+     * @return 置換後のSQL文
+     * @throws SQLException 置換文字列がない時
+     */
+    private String toInSql(String sql,
+                           int size) throws SQLException {
+        int index = sql.indexOf(IN_KEYS);
+        if (index == -1 || sql.indexOf(IN_KEYS, index + 1) != -1) {
+            throw new SQLException("sql must contain one " + IN_KEYS + " : " + sql);
+        }
+        return sql.substring(0, index) + MySqlUtil.createSqlInParameters(size)
+               + sql.substring(index + IN_KEYS.length());
+    }
+
+    /**
+     * IN句のキーを含むパラメータの生成<br>
+     * （置換文字列より前のバインド変数の個数の位置にキーを挿入。不足分は末尾のキーで埋める）
+     * @param sql SQL文（置換前）
+     * @param chunk 分割毎のキー
+     * @param size バインド変数の個数
+     * @param params パラメータ
+     * @return パラメータ
+     */
+    private Object[] toInParams(String sql,
+                                List<Object> chunk,
+                                int size,
+                                Object[] params) {
+        int before = countParameters(sql.substring(0, sql.indexOf(IN_KEYS)));
+        Object[] base = params == null ? new Object[0] : params;
+        Object[] inParams = new Object[base.length + size];
+        System.arraycopy(base, 0, inParams, 0, before);
+        for (int i = 0; i < size; i++) {
+            inParams[before + i] = chunk.get(Math.min(i, chunk.size() - 1));
+        }
+        System.arraycopy(base, before, inParams, before + size, base.length - before);
+        return inParams;
+    }
+
+    /**
+     * 出力SQLの分割
+     * @param exportInfo 出力情報
+     * @return 分割毎の実行SQL
+     * @throws SQLException
+     */
+    private List<List<ExportQuery>> createExportPartitions(MyExportInfo exportInfo) throws SQLException {
+        int partitionCount = Math.max(exportInfo.getPartitionCount(), 1);
+        if (exportInfo.getPartitionType() == PartitionType.KEY_RANGE) {
+            return createKeyRangePartitions(exportInfo, partitionCount);
+        }
+        if (exportInfo.getPartitionType() == PartitionType.ROWID_RANGE) {
+            return createRowidRangePartitions(exportInfo, partitionCount);
+        }
+        List<List<ExportQuery>> partitions = new ArrayList<List<ExportQuery>>();
+        partitions.add(Arrays.asList(new ExportQuery(exportInfo.getSql(), exportInfo.getParams())));
+        return partitions;
+    }
+
+    /**
+     * 分割キー項目の値の範囲で分割<br>
+     * （最小値～最大値を等分。NULLは先頭の分割に含める。<br>
+     * 分割キー項目は数値型のみ[数値型以外はSQLException]）
+     * @param exportInfo 出力情報
+     * @param partitionCount 分割数
+     * @return 分割毎の実行SQL
+     * @throws SQLException
+     */
+    private List<List<ExportQuery>> createKeyRangePartitions(MyExportInfo exportInfo,
+                                                             int partitionCount) throws SQLException {
+        String column = exportInfo.getPartitionColumn();
+        if (column == null || "".equals(column)) {
+            throw new SQLException("partition column is required for " + PartitionType.KEY_RANGE);
+        }
+        String sql = "select * from ( " + exportInfo.getSql() + " )";
+        Object[] params = exportInfo.getParams();
+
+        // 分割キー項目の最小値・最大値
+        String rangeSql = "select min(" + column + "), max(" + column + ") from ( " + exportInfo.getSql() + " )";
+        BigDecimal[] range;
+        MyPooledConnection pc = getConnection();
+        try {
+            range = query(pc, rangeSql, params, result -> {
+                // 等分は数値のみ（文字列・日付は境界値を算出できない）
+                if (!isNumericType(result.getMetaData().getColumnType(1))) {
+                    throw new SQLException("partition column must be numeric : " + column + " ("
+                                           + result.getMetaData().getColumnTypeName(1) + ")");
+                }
+                return result.next() ? new BigDecimal[] { result.getBigDecimal(1), result.getBigDecimal(2) } : new BigDecimal[2];
+            });
+        } finally {
+            releaseConnection(pc);
+        }
+
+        List<List<ExportQuery>> partitions = new ArrayList<List<ExportQuery>>();
+        if (range[0] == null || partitionCount == 1 || range[0].compareTo(range[1]) == 0) {
+            partitions.add(Arrays.asList(new ExportQuery(sql, params)));
+            return partitions;
+        }
+
+        // 境界値（分割数-1個）
+        BigDecimal width = range[1].subtract(range[0]);
+        BigDecimal[] bounds = new BigDecimal[partitionCount - 1];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = width.multiply(BigDecimal.valueOf(i + 1))
+                             .divide(BigDecimal.valueOf(partitionCount), 10, RoundingMode.HALF_UP)
+                             .add(range[0]);
+        }
+        for (int i = 0; i < partitionCount; i++) {
+            ExportQuery query;
+            if (i == 0) {
+                query = new ExportQuery(sql + " where (" + column + " < ? or " + column + " is null)",
+                                        concat(params, bounds[0]));
+            } else if (i == partitionCount - 1) {
+                query = new ExportQuery(sql + " where " + column + " >= ?", concat(params, bounds[i - 1]));
+            } else {
+                query = new ExportQuery(sql + " where " + column + " >= ? and " + column + " < ?",
+                                        concat(params, bounds[i - 1], bounds[i]));
+            }
+            partitions.add(Arrays.asList(query));
+        }
+        return partitions;
+    }
+
+    /**
+     * テーブルのROWIDの範囲で分割<br>
+     * （エクステント単位のROWID範囲をブロック数が均等になるよう分割に割当。<br>
+     * エクステントを取得できない時、分割しない）
+     * @param exportInfo 出力情報
+     * @param partitionCount 分割数
+     * @return 分割毎の実行SQL
+     * @throws SQLException
+     */
+    private List<List<ExportQuery>> createRowidRangePartitions(MyExportInfo exportInfo,
+                                                               int partitionCount) throws SQLException {
+        String tableName = exportInfo.getTableName().toUpperCase(Locale.ENGLISH);
+        String where = (exportInfo.getWhere() == null || "".equals(exportInfo.getWhere())) ? "" : " and ( " + exportInfo.getWhere() + " )";
+        String baseSql = "select " + exportInfo.getColumns() + " from " + tableName;
+        String sql = baseSql + " where rowid between chartorowid(?) and chartorowid(?)" + where;
+
+        // エクステント毎のROWID範囲 [開始ROWID, 終了ROWID, ブロック数]
+        String extentSql = "select rowidtochar(dbms_rowid.rowid_create(1, o.data_object_id, e.relative_fno, e.block_id, 0)),"
+                           + " rowidtochar(dbms_rowid.rowid_create(1, o.data_object_id, e.relative_fno, e.block_id + e.blocks - 1, 32767)),"
+                           + " e.blocks"
+                           + " from user_extents e"
+                           + " join user_objects o on o.object_name = e.segment_name"
+                           + " and nvl(o.subobject_name, '-') = nvl(e.partition_name, '-')"
+                           + " and o.object_type in ('TABLE', 'TABLE PARTITION')"
+                           + " where e.segment_name = ?"
+                           + " order by o.data_object_id, e.relative_fno, e.block_id";
+        List<String[]> extents;
+        MyPooledConnection pc = getConnection();
+        try {
+            extents = query(pc, extentSql, new Object[] { tableName }, result -> {
+                List<String[]> list = new ArrayList<String[]>();
+                while (result.next()) {
+                    list.add(new String[] { result.getString(1), result.getString(2), result.getString(3) });
+                }
+                return list;
+            });
+        } finally {
+            releaseConnection(pc);
+        }
+
+        List<List<ExportQuery>> partitions = new ArrayList<List<ExportQuery>>();
+        if (extents.isEmpty()) {
+            logger.warn("extent not found : " + tableName + " (no partition)");
+            String fullSql = where.isEmpty() ? baseSql : baseSql + " where 1 = 1" + where;
+            partitions.add(Arrays.asList(new ExportQuery(fullSql, exportInfo.getParams())));
+            return partitions;
+        }
+
+        long totalBlocks = 0;
+        for (String[] extent : extents) {
+            totalBlocks += Long.parseLong(extent[2]);
+        }
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new ArrayList<ExportQuery>());
+        }
+        long blocks = 0;
+        for (String[] extent : extents) {
+            int index = (int) Math.min(partitionCount - 1, blocks * partitionCount / Math.max(totalBlocks, 1));
+            partitions.get(index).add(new ExportQuery(sql, concat(new Object[] { extent[0], extent[1] }, exportInfo.getParams())));
+            blocks += Long.parseLong(extent[2]);
+        }
+        partitions.removeIf(List::isEmpty);
+        return partitions;
+    }
+
+    /**
+     * 分割単位のファイル出力
+     * @param pc コネクション
+     * @param queries 実行SQL
+     * @param path 出力先パス
+     * @param exportInfo 出力情報
+     * @param header 項目名行の出力有無
+     * @return 出力件数
+     * @throws SQLException
+     * @throws IOException
+     */
+    private long exportPartition(MyPooledConnection pc,
+                                 List<ExportQuery> queries,
+                                 Path path,
+                                 MyExportInfo exportInfo,
+                                 boolean header) throws SQLException, IOException {
+        long count = 0;
+        boolean writeHeader = header;
+        try (BufferedWriter bw = Files.newBufferedWriter(path, exportInfo.getEncode().getCharset())) {
+            for (ExportQuery query : queries) {
+                long start = System.nanoTime();
+                long rows = 0;
+                boolean error = true;
+                PreparedStatement ps = pc.prepareStatement(query.sql);
+                try {
+                    ps.setFetchSize(dbInfo.getFetchSize());
+                    MySqlUtil.setParameters(ps, query.params);
+                    try (ResultSet result = ps.executeQuery();) {
+                        String[] values = getColumnNames(result);
+                        if (writeHeader) {
+                            writeDelimitedLine(bw, values, exportInfo);
+                            writeHeader = false;
+                        }
+                        while (result.next()) {
+                            for (int i = 0; i < values.length; i++) {
+                                values[i] = result.getString(i + 1);
+                            }
+                            writeDelimitedLine(bw, values, exportInfo);
+                            rows++;
+                        }
+                    }
+                    error = false;
+                } catch (SQLException e) {
+                    pc.getStatementCache().invalidate(query.sql);
+                    throw e;
+                } finally {
+                    pc.releaseStatement(query.sql, ps);
+                    recordExecution(query.sql, query.params, System.nanoTime() - start, rows, 0, error);
+                    count += rows;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 区切り文字ファイルの１行出力
+     * @param bw 出力先
+     * @param values 値（NULLは空文字）
+     * @param exportInfo 出力情報
+     * @throws IOException
+     */
+    private static void writeDelimitedLine(BufferedWriter bw,
+                                           String[] values,
+                                           MyExportInfo exportInfo) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                bw.write(exportInfo.getDelimiter());
+            }
+            if (values[i] == null) {
+                continue;
+            }
+            if (exportInfo.isQuote()) {
+                bw.write('"');
+                bw.write(values[i].replace("\"", "\"\""));
+                bw.write('"');
+            } else {
+                bw.write(values[i]);
+            }
+        }
+        bw.write(exportInfo.getLineFeed().getValue());
+    }
+
+    /**
+     * 分割ファイルの連結
+     * @param pathList 分割ファイル（連結順）
+     * @param outputPath 出力先パス
+     * @throws IOException
+     */
+    private static void mergeFiles(List<Path> pathList,
+                                   Path outputPath) throws IOException {
+        Files.move(pathList.get(0), outputPath, StandardCopyOption.REPLACE_EXISTING);
+        try (OutputStream os = Files.newOutputStream(outputPath, StandardOpenOption.APPEND)) {
+            for (int i = 1; i < pathList.size(); i++) {
+                Files.copy(pathList.get(i), os);
+            }
+        }
+    }
+
+    /**
+     * 分割番号付きの出力先パスの取得<br>
+     * （例：data.csv ⇒ data_001.csv）
+     * @param outputPath 出力先パス
+     * @param no 分割番号
+     * @return 出力先パス
+     */
+    private static Path toPartitionPath(Path outputPath,
+                                        int no) {
+        String fileName = outputPath.getFileName().toString();
+        int index = fileName.lastIndexOf('.');
+        String suffix = String.format("_%03d", no);
+        fileName = (index == -1) ? fileName + suffix : fileName.substring(0, index) + suffix + fileName.substring(index);
+        return outputPath.resolveSibling(fileName);
+    }
+
+    /**
+     * パラメータの連結
+     * @param params パラメータ
+     * @param addParams 追加パラメータ
+     * @return 連結後のパラメータ
+     */
+    private static Object[] concat(Object[] params,
+                                   Object... addParams) {
+        Object[] base = (params == null) ? new Object[0] : params;
+        Object[] all = Arrays.copyOf(base, base.length + addParams.length);
+        System.arraycopy(addParams, 0, all, base.length, addParams.length);
+        return all;
+    }
+
+    /**
+     * ResultSetをMapのListに変換
+     * @param result ResultSet
+     * @return listMap [key：項目名 / value：値]
+     * @throws SQLException
+     */
+    private static List<Map<String, String>> toMapList(ResultSet result) throws SQLException {
+
+        // 結果格納リスト
+        List<Map<String, String>> mapList = new ArrayList<Map<String, String>>();
+
+        // 項目名の取得
+        String[] columnNames = getColumnNames(result);
+        while (result.next()) {
+            // 結果格納Map
+            Map<String, String> map = new HashMap<String, String>();
+            for (int i = 0; i < columnNames.length; i++) {
+                map.put(columnNames[i], result.getString(i + 1));
+            }
+            mapList.add(map);
+        }
+
+        return mapList;
+    }
+
+    /**
+     * ResultSetを退避付き検索結果に変換
+     * @param result ResultSet
+     * @return spillList 実行結果
+     * @throws SQLException
+     */
+    private MySpillList toSpillList(ResultSet result) throws SQLException {
+        MySpillList spillList = new MySpillList(getColumnNames(result), dbInfo.getSpillThreshold());
+        try {
+            int columnCount = result.getMetaData().getColumnCount();
+            while (result.next()) {
+                String[] row = new String[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    row[i] = result.getString(i + 1);
+                }
+                spillList.addRow(row);
+            }
+            spillList.finish();
+            return spillList;
+        } catch (IOException e) {
+            spillList.close();
+            throw new SQLException("spill error", e);
+        } catch (SQLException | RuntimeException e) {
+            spillList.close();
+            throw e;
+        }
+    }
+
+    /**
+     * ResultSetを差分取得の取得行に変換<br>
+     * （最終取得位置の項目は、数値型の時はBigDecimal、それ以外はTimestampで取得）
+     * @param result ResultSet
+     * @param column 最終取得位置の項目
+     * @param keyColumns キー項目（未指定の時、全項目）
+     * @return 取得行
+     * @throws SQLException
+     */
+    private static ChangeRows toChangeRows(ResultSet result,
+                                           String column,
+                                           String[] keyColumns) throws SQLException {
+        String[] columnNames = getColumnNames(result);
+        int markIndex = indexOfColumn(columnNames, column);
+        boolean allColumns = keyColumns == null || keyColumns.length == 0;
+        int[] keyIndexes = new int[allColumns ? columnNames.length : keyColumns.length];
+        for (int i = 0; i < keyIndexes.length; i++) {
+            keyIndexes[i] = allColumns ? i : indexOfColumn(columnNames, keyColumns[i]);
+        }
+        boolean numeric = isNumericType(result.getMetaData().getColumnType(markIndex + 1));
+
+        ChangeRows rows = new ChangeRows();
+        String[] values = new String[columnNames.length];
+        while (result.next()) {
+            Map<String, String> map = new HashMap<String, String>();
+            for (int i = 0; i < columnNames.length; i++) {
+                values[i] = result.getString(i + 1);
+                map.put(columnNames[i], values[i]);
+            }
+            Object mark = numeric ? result.getBigDecimal(markIndex + 1) : result.getTimestamp(markIndex + 1);
+
+            StringBuilder seenKey = new StringBuilder();
+            for (int index : keyIndexes) {
+                seenKey.append(values[index]).append(SEEN_KEY_SEPARATOR);
+            }
+            seenKey.append(mark == null ? "" : toWatermarkString(mark));
+
+            rows.rows.add(map);
+            rows.marks.add(mark);
+            rows.seenKeys.add(seenKey.toString());
+        }
+        return rows;
+    }
+
+    /**
+     * 項目位置の取得（大文字小文字を区別しない）
+     * @param columnNames 項目名（列順）
+     * @param column 項目名
+     * @return 項目位置（0始まり）
+     * @throws SQLException 項目がない時
+     */
+    private static int indexOfColumn(String[] columnNames,
+                                     String column) throws SQLException {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        throw new SQLException("column not found : " + column);
+    }
+
+    /**
+     * 数値型の判定
+     * @param type 型（java.sql.Types）
+     * @return 結果 [true:数値型 false:数値型以外]
+     */
+    private static boolean isNumericType(int type) {
+        switch (type) {
+        case Types.NUMERIC:
+        case Types.DECIMAL:
+        case Types.INTEGER:
+        case Types.BIGINT:
+        case Types.SMALLINT:
+        case Types.TINYINT:
+        case Types.DOUBLE:
+        case Types.FLOAT:
+        case Types.REAL:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * 最終取得位置の復元
+     * @param value 保存値
+     * @param type 型（NUMBER・TIMESTAMP）
+     * @return 最終取得位置（保存なしの時、null）
+     */
+    private static Object toWatermark(String value,
+                                      String type) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        return WATERMARK_NUMBER.equals(type) ? new BigDecimal(value) : Timestamp.valueOf(value);
+    }
+
+    /**
+     * 最終取得位置の保存値
+     * @param watermark 最終取得位置
+     * @return 保存値
+     */
+    private static String toWatermarkString(Object watermark) {
+        return watermark instanceof BigDecimal ? ((BigDecimal) watermark).toPlainString() : watermark.toString();
+    }
+
+    /**
+     * 最終取得位置の比較
+     * @param a 最終取得位置
+     * @param b 最終取得位置
+     * @return 比較結果
+     */
+    private static int compareWatermark(Object a,
+                                        Object b) {
+        if (a instanceof BigDecimal && b instanceof BigDecimal) {
+            return ((BigDecimal) a).compareTo((BigDecimal) b);
+        }
+        if (a instanceof Timestamp && b instanceof Timestamp) {
+            return ((Timestamp) a).compareTo((Timestamp) b);
+        }
+        throw new IllegalStateException("watermark type mismatch : " + a + " / " + b);
+    }
+
+    /**
+     * 再取得範囲の下限の取得
+     * @param watermark 最終取得位置
+     * @param overlap 再取得範囲（日時の時はミリ秒）
+     * @return 下限
+     */
+    private static Object toLowerBound(Object watermark,
+                                       long overlap) {
+        if (watermark instanceof BigDecimal) {
+            return ((BigDecimal) watermark).subtract(BigDecimal.valueOf(overlap));
+        }
+        return new Timestamp(((Timestamp) watermark).getTime() - overlap);
+    }
+
+    /**
+     * 最終取得位置の読み込み
+     * @param storeFile 保存先
+     * @return 保存値（保存先がない時、空）
+     */
+    private Map<String, String> loadWatermarks(String storeFile) {
+        synchronized (watermarkLock) {
+            if (!Files.exists(Paths.get(storeFile))) {
+                return new HashMap<String, String>();
+            }
+            Map<String, String> map = MyPropertyUtil.propertyLoad(storeFile);
+            return map == null ? new HashMap<String, String>() : map;
+        }
+    }
+
+    /**
+     * 最終取得位置の保存<br>
+     * （保存先の他の名前の値は維持）
+     * @param storeFile 保存先
+     * @param values 保存値
+     * @throws IOException
+     */
+    private void saveWatermarks(String storeFile,
+                                Map<String, String> values) throws IOException {
+        synchronized (watermarkLock) {
+            Map<String, String> map = loadWatermarks(storeFile);
+            map.putAll(values);
+            if (!MyPropertyUtil.propertySave(map, storeFile)) {
+                throw new IOException("watermark save error : " + storeFile);
+            }
+        }
+    }
+
+    /**
+     * 件数の読み取り（先頭行の先頭項目）
+     * @param result ResultSet
+     * @return 件数
+     * @throws SQLException
+     */
+    private static int readCount(ResultSet result) throws SQLException {
+        return result.next() ? result.getInt(1) : 0;
+    }
+
+    /**
+     * ResultSetをテーブルモデルに変換
+     * @param result ResultSet
+     * @return tableModel 実行結果
+     * @throws SQLException
+     */
+    private static DefaultTableModel toTableModel(ResultSet result) throws SQLException {
+
+        // 結果格納テーブルモデルの生成
+        DefaultTableModel tableModel = new DefaultTableModel();
+
+        // 項目名の取得
+        String[] columnNames = getColumnNames(result);
+        for (String key : columnNames) {
+            tableModel.addColumn(key);
+        }
+
+        while (result.next()) {
+            // 結果格納Vector
+            Vector<String> vector = new Vector<String>(columnNames.length);
+            // 値の取得
+            for (int i = 1; i <= columnNames.length; i++) {
+                vector.add(result.getString(i));
+            }
+
+            // データの追加
+            tableModel.addRow(vector);
+        }
+
+        return tableModel;
+    }
+
+    /**
+     * 項目名の取得
+     * @param result ResultSet
+     * @return 項目名（列順）
+     * @throws SQLException
+     */
+    private static String[] getColumnNames(ResultSet result) throws SQLException {
+        ResultSetMetaData metaData = result.getMetaData();
+        if (metaData == null) {
+            return new String[0];
+        }
+        String[] columnNames = new String[metaData.getColumnCount()];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = metaData.getColumnName(i + 1);
+        }
+        return columnNames;
+    }
+
+    /**
+     * 差分取得の取得行
+     */
+    private static class ChangeRows {
+
+        final List<Map<String, String>> rows = new ArrayList<Map<String, String>>();
+        /** 最終取得位置の項目値 */
+        final List<Object> marks = new ArrayList<Object>();
+        /** 取得済判定のキー（キー項目＋最終取得位置） */
+        final List<String> seenKeys = new ArrayList<String>();
+    }
+
+    /**
+     * ファイル出力の実行SQL
+     */
+    private static class ExportQuery {
+
+        final String sql;
+        final Object[] params;
+
+        ExportQuery(String sql,
+                    Object[] params) {
+            this.sql = sql;
+            this.params = params;
+        }
+    }
+
+    /**
+     * ファイル登録の読込バッチ
+     */
+    private static class LoadChunk {
+
+        /** 終了通知 */
+        static final LoadChunk END = new LoadChunk(-1, -1, 0);
+
+        final long chunkNo;
+        final long startLineNo;
+        final List<String> lines;
+        /** リジェクト行（コミット時に出力） */
+        final List<String> rejects = new ArrayList<String>();
+
+        LoadChunk(long chunkNo,
+                  long startLineNo,
+                  int batchSize) {
+            this.chunkNo = chunkNo;
+            this.startLineNo = startLineNo;
+            this.lines = new ArrayList<String>(batchSize);
+        }
+    }
+
+    /**
+     * ファイル登録の処理状態（読込スレッド・登録スレッドで共有）
+     */
+    private static class LoadContext {
+
+        final MyLoadInfo loadInfo;
+        final int paramCount;
+        final BlockingQueue<LoadChunk> queue;
+        final LoadCheckpoint checkpoint;
+        final AtomicLong loadCount = new AtomicLong();
+        final AtomicLong rejectCount = new AtomicLong();
+        /** リジェクトファイル（出力しない時、null） */
+        FileChannel rejectChannel = null;
+        Writer rejectWriter = null;
+        /** 最初に発生した異常（正常時、null） */
+        volatile Throwable error = null;
+
+        LoadContext(MyLoadInfo loadInfo,
+                    int paramCount,
+                    int queueSize,
+                    LoadCheckpoint checkpoint) {
+            this.loadInfo = loadInfo;
+            this.paramCount = paramCount;
+            this.queue = new ArrayBlockingQueue<LoadChunk>(queueSize);
+            this.checkpoint = checkpoint;
+        }
+
+        synchronized void fail(Throwable e) {
+            if (error == null) {
+                error = e;
+            }
+        }
+
+        void setRejectChannel(FileChannel channel) {
+            rejectChannel = channel;
+            rejectWriter = channel == null ? null : Channels.newWriter(channel, loadInfo.getEncode().getCharset().newEncoder(), -1);
+        }
+
+        void reject(LoadChunk chunk,
+                    long lineNo,
+                    String line,
+                    String reason) {
+            rejectCount.incrementAndGet();
+            logger.warn("reject line " + lineNo + " : " + reason);
+            chunk.rejects.add(line);
+        }
+
+        /**
+         * コミット済バッチのリジェクト行の出力とチェックポイントの記録<br>
+         * （出力位置をチェックポイントに記録するため、複数の登録スレッド間で排他）
+         */
+        synchronized void commit(List<LoadChunk> chunks,
+                                 boolean record) throws IOException {
+            if (rejectWriter != null) {
+                for (LoadChunk chunk : chunks) {
+                    for (String line : chunk.rejects) {
+                        rejectWriter.write(line);
+                        rejectWriter.write(loadInfo.getLineFeed().getValue());
+                    }
+                }
+                rejectWriter.flush();
+            }
+            if (record) {
+                checkpoint.commit(chunks, rejectChannel == null ? -1 : rejectChannel.position());
+            }
+        }
+    }
+
+    /**
+     * ファイル登録のチェックポイント<br>
+     * （コミット済のバッチ番号を記録。バッチ境界を一致させるためバッチ実行件数も記録）
+     */
+    private static class LoadCheckpoint {
+
+        final Path path;
+        final int batchSize;
+        /** この番号未満のバッチは全てコミット済 */
+        long committedTo = 0;
+        /** コミット済のバッチ番号（committedTo以降） */
+        final TreeSet<Long> committedSet = new TreeSet<Long>();
+        /** コミット済のバッチのリジェクトファイル出力位置（不明の時、-1） */
+        long rejectBytes = 0;
+
+        LoadCheckpoint(Path path,
+                       int batchSize) {
+            this.path = path;
+            this.batchSize = batchSize;
+        }
+
+        static LoadCheckpoint open(Path path,
+                                   int batchSize,
+                                   boolean restart) throws IOException {
+            LoadCheckpoint checkpoint = new LoadCheckpoint(path, batchSize);
+            if (!restart || !Files.exists(path)) {
+                Files.deleteIfExists(path);
+                return checkpoint;
+            }
+            Properties prop = new Properties();
+            try (InputStream is = Files.newInputStream(path)) {
+                prop.load(is);
+            }
+            if (Integer.parseInt(prop.getProperty("batchSize")) != batchSize) {
+                throw new IOException("checkpoint batch size mismatch : " + prop.getProperty("batchSize") + " " + path);
+            }
+            checkpoint.committedTo = Long.parseLong(prop.getProperty("committedTo"));
+            checkpoint.rejectBytes = Long.parseLong(prop.getProperty("rejectBytes", "-1"));
+            for (String no : prop.getProperty("committed", "").split(",")) {
+                if (!no.isEmpty()) {
+                    checkpoint.committedSet.add(Long.valueOf(no));
+                }
+            }
+            logger.info("restart from checkpoint : " + checkpoint.committedTo + "バッチ " + path);
+            return checkpoint;
+        }
+
+        synchronized boolean isCommitted(long chunkNo) {
+            return chunkNo < committedTo || committedSet.contains(chunkNo);
+        }
+
+        synchronized long getCommittedCount() {
+            return committedTo + committedSet.size();
+        }
+
+        synchronized void commit(List<LoadChunk> chunks,
+                                 long rejectBytes) throws IOException {
+            this.rejectBytes = rejectBytes;
+            for (LoadChunk chunk : chunks) {
+                committedSet.add(chunk.chunkNo);
+            }
+            while (committedSet.remove(committedTo)) {
+                committedTo++;
+            }
+
+            // 一時ファイルへ出力後に置換
+            StringBuilder bf = new StringBuilder();
+            for (Long no : committedSet) {
+                bf.append(bf.length() == 0 ? "" : ",").append(no);
+            }
+            Properties prop = new Properties();
+            prop.setProperty("batchSize", String.valueOf(batchSize));
+            prop.setProperty("committedTo", String.valueOf(committedTo));
+            prop.setProperty("committed", bf.toString());
+            prop.setProperty("rejectBytes", String.valueOf(rejectBytes));
+            Path tmp = Paths.get(path + ".tmp");
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                prop.store(os, null);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        synchronized void delete() throws IOException {
+            Files.deleteIfExists(path);
         }
     }
 }
@@ -0,0 +1,249 @@
+package my.manager;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+import org.apache.log4j.Logger;
+
+/**
+ * 遅延取得テーブルモデルクラス<br>
+ * （件数と項目名のみ先に取得し、表示行を含む範囲（ウィンドウ）をスクロールに応じて取得。<br>
+ * 取得済ウィンドウはLRUで保持し、次のウィンドウはバックグラウンドで先読み。<br>
+ * イベントディスパッチスレッドでは検索を待機しない[未取得の値はnull]。検索エラーのウィンドウは保持せず再取得）
+ * @author 7days
+ */
+public class MyLazyTableModel extends AbstractTableModel implements AutoCloseable {
+
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** Logger */
+    private static final Logger logger = Logger.getLogger(MyLazyTableModel.class);
+
+    /** 保持するウィンドウ数の既定値 */
+    public static final int DEFAULT_CACHE_WINDOWS = 10;
+
+    /** SQL文 */
+    private final String sql;
+    /** パラメータ */
+    private final Object[] params;
+    /** ウィンドウの行数 */
+    private final int windowSize;
+    /** 保持するウィンドウ数 */
+    private final int cacheWindows;
+
+    /** 項目名（列順） */
+    private final String[] columnNames;
+    /** 全件数 */
+    private volatile int rowCount;
+
+    /** 取得済ウィンドウ [key：ウィンドウ番号 / value：行データ]（アクセス順） */
+    private final LinkedHashMap<Integer, List<String[]>> windows;
+    /** 先読み中のウィンドウ [key：ウィンドウ番号 / value：取得結果] */
+    private final Map<Integer, CompletableFuture<List<String[]>>> prefetching = new ConcurrentHashMap<Integer, CompletableFuture<List<String[]>>>();
+    /** 先読みスレッド */
+    private final ExecutorService prefetcher;
+
+    /**
+     * コンストラクタ<br>
+     * （件数と項目名を取得）
+     * @param sql SQL文（ORDER BY指定を推奨）
+     * @param params パラメータ（バインド変数「?」形式）
+     * @param windowSize ウィンドウの行数
+     * @param cacheWindows 保持するウィンドウ数
+     * @throws SQLException
+     */
+    MyLazyTableModel(String sql,
+                     Object[] params,
+                     int windowSize,
+                     int cacheWindows) throws SQLException {
+        this.sql = sql;
+        this.params = params;
+        this.windowSize = Math.max(windowSize, 1);
+        this.cacheWindows = Math.max(cacheWindows, 2);
+        this.windows = new LinkedHashMap<Integer, List<String[]>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<Integer, List<String[]>> eldest) {
+                return size() > MyLazyTableModel.this.cacheWindows;
+            }
+        };
+        this.prefetcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "MyLazyTableModel-prefetch");
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.columnNames = MyDatabaseManager.INSTANCE.selectColumnNames(sql, params);
+        this.rowCount = MyDatabaseManager.INSTANCE.doSelectCount(sql, params);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return String.class;
+    }
+
+    /**
+     * 値の取得<br>
+     * （未取得のウィンドウは取得し、次のウィンドウを先読み。<br>
+     * イベントディスパッチスレッドの時は取得を待たずにnullを返却し、取得後に該当行の更新を通知）
+     */
+    @Override
+    public Object getValueAt(int rowIndex,
+                             int columnIndex) {
+        int windowNo = rowIndex / windowSize;
+        List<String[]> window = getWindow(windowNo);
+        prefetch(windowNo + 1);
+
+        int index = rowIndex % windowSize;
+        if (window == null || index >= window.size()) {
+            return null;
+        }
+        return window.get(index)[columnIndex];
+    }
+
+    /**
+     * 再検索<br>
+     * （件数を再取得し、取得済ウィンドウを破棄）
+     * @throws SQLException
+     */
+    public void refresh() throws SQLException {
+        synchronized (windows) {
+            windows.clear();
+        }
+        prefetching.clear();
+        rowCount = MyDatabaseManager.INSTANCE.doSelectCount(sql, params);
+        fireTableDataChanged();
+    }
+
+    /**
+     * 先読みスレッドの停止
+     */
+    @Override
+    public void close() {
+        synchronized (windows) {
+            prefetcher.shutdownNow();
+        }
+    }
+
+    /**
+     * ウィンドウの取得<br>
+     * （イベントディスパッチスレッドの時は完了を待機しない。それ以外は完了を待機）
+     * @param windowNo ウィンドウ番号
+     * @return 行データ（取得中・取得エラー・停止後の時、null）
+     */
+    private List<String[]> getWindow(int windowNo) {
+        synchronized (windows) {
+            List<String[]> window = windows.get(windowNo);
+            if (window != null) {
+                return window;
+            }
+        }
+
+        CompletableFuture<List<String[]>> future = request(windowNo);
+        if (future == null) {
+            return null;
+        }
+        if (SwingUtilities.isEventDispatchThread() && !future.isDone()) {
+            return null;
+        }
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            // 次回の参照時に再取得
+            return null;
+        }
+    }
+
+    /**
+     * ウィンドウの先読み（バックグラウンド）
+     * @param windowNo ウィンドウ番号
+     */
+    private void prefetch(int windowNo) {
+        if ((long) windowNo * windowSize >= rowCount) {
+            return;
+        }
+        synchronized (windows) {
+            if (windows.containsKey(windowNo)) {
+                return;
+            }
+        }
+        request(windowNo);
+    }
+
+    /**
+     * ウィンドウの取得要求（バックグラウンド）<br>
+     * （取得中の時は同じ取得結果を返却。停止との競合を避けるため、停止と同じロックで登録）
+     * @param windowNo ウィンドウ番号
+     * @return 取得結果（停止後の時、null）
+     */
+    private CompletableFuture<List<String[]>> request(int windowNo) {
+        synchronized (windows) {
+            if (prefetcher.isShutdown()) {
+                return null;
+            }
+            CompletableFuture<List<String[]>> future = prefetching.computeIfAbsent(windowNo,
+                                                                                   no -> CompletableFuture.supplyAsync(() -> loadWindow(no),
+                                                                                                                       prefetcher));
+            if (future.isDone()) {
+                // 登録前に完了した時
+                prefetching.remove(windowNo, future);
+            }
+            return future;
+        }
+    }
+
+    /**
+     * ウィンドウの検索<br>
+     * （取得後に保持し、該当行の更新を通知。検索エラーの時は保持せず、次回の参照時に再取得）
+     * @param windowNo ウィンドウ番号
+     * @return 行データ
+     * @throws CompletionException 検索エラーの時
+     */
+    private List<String[]> loadWindow(int windowNo) {
+        try {
+            List<String[]> window = MyDatabaseManager.INSTANCE.selectWindow(sql, params, (long) windowNo * windowSize, windowSize);
+            synchronized (windows) {
+                windows.put(windowNo, window);
+            }
+            if (!window.isEmpty()) {
+                int first = windowNo * windowSize;
+                SwingUtilities.invokeLater(() -> fireTableRowsUpdated(first, first + window.size() - 1));
+            }
+            return window;
+        } catch (SQLException e) {
+            logger.error("window select error : " + windowNo, e);
+            throw new CompletionException(e);
+        } finally {
+            prefetching.remove(windowNo);
+        }
+    }
+}
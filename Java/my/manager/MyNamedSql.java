@@ -0,0 +1,127 @@
+package my.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 名前付きパラメータSQLクラス<br>
+ * （「:name」形式のパラメータを「?」に変換し、パラメータ名の出現順を保持）
+ * @author 7days
+ */
+class MyNamedSql {
+
+    /** 解析結果キャッシュ上限数 */
+    private static final int CACHE_MAX_SIZE = 1000;
+    /** 解析結果キャッシュ [key：名前付きSQL文 / value：解析結果] */
+    private static final Map<String, MyNamedSql> cache = new ConcurrentHashMap<String, MyNamedSql>();
+
+    /** 変換後SQL文（「?」形式） */
+    private final String sql;
+    /** パラメータ名（出現順） */
+    private final List<String> names;
+
+    /**
+     * コンストラクタ
+     * @param sql 変換後SQL文
+     * @param names パラメータ名（出現順）
+     */
+    private MyNamedSql(String sql,
+                       List<String> names) {
+        this.sql = sql;
+        this.names = Collections.unmodifiableList(names);
+    }
+
+    /**
+     * 名前付きSQL文の解析<br>
+     * （文字列リテラル、コメント内の「:」は対象外）
+     * @param namedSql 名前付きSQL文
+     * @return 解析結果
+     */
+    static MyNamedSql parse(String namedSql) {
+        MyNamedSql named = cache.get(namedSql);
+        if (named != null) {
+            return named;
+        }
+
+        StringBuilder bf = new StringBuilder(namedSql.length());
+        List<String> names = new ArrayList<String>();
+        int length = namedSql.length();
+        for (int i = 0; i < length; i++) {
+            char c = namedSql.charAt(i);
+            if (c == '\'' || c == '"') {
+                // 文字列リテラル・識別子
+                int end = namedSql.indexOf(c, i + 1);
+                end = (end == -1) ? length - 1 : end;
+                bf.append(namedSql, i, end + 1);
+                i = end;
+            } else if (c == '-' && i + 1 < length && namedSql.charAt(i + 1) == '-') {
+                // 行コメント
+                int end = namedSql.indexOf('\n', i);
+                end = (end == -1) ? length - 1 : end;
+                bf.append(namedSql, i, end + 1);
+                i = end;
+            } else if (c == '/' && i + 1 < length && namedSql.charAt(i + 1) == '*') {
+                // ブロックコメント
+                int end = namedSql.indexOf("*/", i + 2);
+                end = (end == -1) ? length - 1 : end + 1;
+                bf.append(namedSql, i, end + 1);
+                i = end;
+            } else if (c == ':' && i + 1 < length && Character.isJavaIdentifierStart(namedSql.charAt(i + 1))
+                       && (i == 0 || namedSql.charAt(i - 1) != ':')) {
+                // パラメータ名
+                int end = i + 1;
+                while (end < length && Character.isJavaIdentifierPart(namedSql.charAt(end))) {
+                    end++;
+                }
+                names.add(namedSql.substring(i + 1, end));
+                bf.append('?');
+                i = end - 1;
+            } else {
+                bf.append(c);
+            }
+        }
+
+        named = new MyNamedSql(bf.toString(), names);
+        if (cache.size() >= CACHE_MAX_SIZE) {
+            cache.clear();
+        }
+        cache.put(namedSql, named);
+        return named;
+    }
+
+    /**
+     * 変換後SQL文（「?」形式）を取得します。
+     * @return 変換後SQL文
+     */
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * パラメータ名（出現順）を取得します。
+     * @return パラメータ名
+     */
+    List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * 名前付きパラメータを出現順の配列に変換
+     * @param paramMap パラメータ [key：パラメータ名 / value：値]
+     * @return パラメータ配列
+     */
+    Object[] toParams(Map<String, ?> paramMap) {
+        Object[] params = new Object[names.size()];
+        for (int i = 0; i < params.length; i++) {
+            String name = names.get(i);
+            if (!paramMap.containsKey(name)) {
+                throw new IllegalArgumentException("parameter not found : " + name);
+            }
+            params[i] = paramMap.get(name);
+        }
+        return params;
+    }
+}
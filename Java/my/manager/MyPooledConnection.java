@@ -0,0 +1,186 @@
+package my.manager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * プール管理コネクションクラス<br>
+ * （物理コネクションとプール管理情報を保持）
+ * @author 7days
+ */
+class MyPooledConnection {
+
+    /** 物理コネクション */
+    private final Connection conn;
+    /** 所属プール */
+    private final MyConnectionPool pool;
+    /** PreparedStatementキャッシュ */
+    private final MyStatementCache statementCache;
+    /** 最終利用時刻（ミリ秒） */
+    private long lastUsedTime = System.currentTimeMillis();
+    /** トランザクション中の更新テーブル（検索結果キャッシュの無効化用） */
+    private Set<String> writtenTables = null;
+    /** 無効化フラグ（プールの終了・破棄で切断済） */
+    private volatile boolean invalidated = false;
+    /** 実行中のStatement（中止用 実行中でない時、null） */
+    private Statement activeStatement = null;
+    /** 中止要求の有無 */
+    private boolean cancelRequested = false;
+
+    /**
+     * コンストラクタ
+     * @param conn 物理コネクション
+     * @param pool 所属プール
+     * @param statementCacheSize PreparedStatementキャッシュ上限数
+     */
+    MyPooledConnection(Connection conn,
+                       MyConnectionPool pool,
+                       int statementCacheSize) {
+        this.conn = conn;
+        this.pool = pool;
+        this.statementCache = new MyStatementCache(conn, pool, statementCacheSize);
+    }
+
+    /**
+     * 物理コネクションを取得します。
+     * @return 物理コネクション
+     */
+    Connection getConnection() {
+        return conn;
+    }
+
+    /**
+     * 所属プールを取得します。
+     * @return 所属プール
+     */
+    MyConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * PreparedStatementキャッシュを取得します。
+     * @return PreparedStatementキャッシュ
+     */
+    MyStatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    /**
+     * PreparedStatementの取得（キャッシュ利用）
+     * @param sql SQL文
+     * @return PreparedStatement
+     * @throws SQLException
+     */
+    PreparedStatement prepareStatement(String sql) throws SQLException {
+        return statementCache.prepare(sql);
+    }
+
+    /**
+     * PreparedStatementの利用終了（キャッシュ対象外の時、クローズ）
+     * @param sql SQL文
+     * @param ps PreparedStatement
+     */
+    void releaseStatement(String sql,
+                          PreparedStatement ps) {
+        statementCache.release(sql, ps);
+    }
+
+    /**
+     * Statementの実行開始<br>
+     * （中止要求済の時、実行せずにSQLException）
+     * @param statement 実行するStatement
+     * @throws SQLException 中止要求済の時
+     */
+    synchronized void beginStatement(Statement statement) throws SQLException {
+        if (cancelRequested) {
+            throw new SQLException("statement cancelled");
+        }
+        activeStatement = statement;
+    }
+
+    /**
+     * Statementの実行終了
+     */
+    synchronized void endStatement() {
+        activeStatement = null;
+    }
+
+    /**
+     * 実行中のStatementの中止<br>
+     * （別スレッドから呼び出し。以降の実行開始も中止要求の解除まで拒否）
+     * @throws SQLException
+     */
+    synchronized void cancel() throws SQLException {
+        cancelRequested = true;
+        if (activeStatement != null) {
+            activeStatement.cancel();
+        }
+    }
+
+    /**
+     * 中止要求を解除します。
+     */
+    synchronized void clearCancel() {
+        cancelRequested = false;
+    }
+
+    /**
+     * トランザクション中の更新テーブルを追加します。
+     * @param tables テーブル名（空の時、全テーブル）
+     */
+    void addWrittenTables(Set<String> tables) {
+        if (writtenTables == null) {
+            writtenTables = new HashSet<String>();
+        }
+        if (tables.isEmpty()) {
+            writtenTables.add(MyQueryCache.ALL_TABLES);
+        } else {
+            writtenTables.addAll(tables);
+        }
+    }
+
+    /**
+     * トランザクション中の更新テーブルを取得し、クリアします。
+     * @return テーブル名（更新なしの時、null）
+     */
+    Set<String> removeWrittenTables() {
+        Set<String> tables = writtenTables;
+        writtenTables = null;
+        return tables;
+    }
+
+    /**
+     * 最終利用時刻（ミリ秒）を取得します。
+     * @return 最終利用時刻（ミリ秒）
+     */
+    long getLastUsedTime() {
+        return lastUsedTime;
+    }
+
+    /**
+     * 最終利用時刻を現在時刻に更新します。
+     */
+    void touch() {
+        lastUsedTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 無効化します。<br>
+     * （プールの終了・破棄時。スレッドに割当済のコネクションは次回利用時に割当解除）
+     */
+    void invalidate() {
+        invalidated = true;
+    }
+
+    /**
+     * 無効化の有無を取得します。
+     * @return 結果 [true:無効 false:有効]
+     */
+    boolean isInvalidated() {
+        return invalidated;
+    }
+}
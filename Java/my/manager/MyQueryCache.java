@@ -0,0 +1,346 @@
+package my.manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+
+/**
+ * 検索結果キャッシュクラス<br>
+ * （SQL文とパラメータをキーに検索結果を保持。有効期限と容量上限(LRU)で破棄し、<br>
+ * 更新系SQLの対象テーブルを参照するキャッシュは無効化。<br>
+ * 検索中に無効化された結果を登録しないよう、無効化の世代を検索前に取得して登録時に照合）
+ * @author 7days
+ */
+class MyQueryCache {
+
+    /** Logger */
+    private static final Logger logger = Logger.getLogger(MyQueryCache.class);
+
+    /** 全テーブル（更新テーブルを特定できない時） */
+    static final String ALL_TABLES = "*";
+
+    /** 参照テーブルの抽出（FROM句・JOIN句） */
+    private static final Pattern READ_TABLE_PATTERN = Pattern.compile("(?i)\\b(?:from|join)\\s+([\\w$#.\"]+(?:\\s+\\w+)?(?:\\s*,\\s*[\\w$#.\"]+(?:\\s+\\w+)?)*)");
+    /** 更新テーブルの抽出 */
+    private static final Pattern WRITE_TABLE_PATTERN = Pattern.compile("(?i)^\\s*(?:insert\\s+(?:all\\s+)?into|update|delete(?:\\s+from)?|merge\\s+into|truncate\\s+table)\\s+([\\w$#.\"]+)");
+
+    /** 有効期限（ミリ秒） */
+    private final long ttl;
+    /** 容量上限（バイト 概算） */
+    private final long maxBytes;
+
+    /** キャッシュ（アクセス順） */
+    private final LinkedHashMap<Key, CacheEntry> cache = new LinkedHashMap<Key, CacheEntry>(16, 0.75f, true);
+    /** 使用容量（バイト 概算） */
+    private long totalBytes = 0;
+    /** 無効化の世代（無効化毎に加算） */
+    private long generation = 0;
+
+    /** ヒット件数 */
+    private long hitCount = 0;
+    /** ミス件数 */
+    private long missCount = 0;
+    /** 破棄件数（容量超過・期限切れ） */
+    private long evictionCount = 0;
+    /** 無効化件数（更新系SQL） */
+    private long invalidationCount = 0;
+
+    /**
+     * コンストラクタ
+     * @param ttl 有効期限（ミリ秒）
+     * @param maxBytes 容量上限（バイト 概算）
+     */
+    MyQueryCache(long ttl,
+                 long maxBytes) {
+        this.ttl = ttl;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * キャッシュの取得
+     * @param sql SQL文
+     * @param params パラメータ
+     * @return 検索結果の複製（存在しない・期限切れの時、null）
+     */
+    synchronized List<Map<String, String>> get(String sql,
+                                               Object[] params) {
+        Key key = new Key(sql, params);
+        CacheEntry entry = cache.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        if (entry.expireTime < System.currentTimeMillis()) {
+            remove(key);
+            evictionCount++;
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return copy(entry.mapList);
+    }
+
+    /**
+     * 無効化の世代の取得（検索前に取得し、登録時に指定）
+     * @return 世代
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * キャッシュの登録<br>
+     * （参照テーブルを特定できないSQL文、検索開始後に無効化された検索結果はキャッシュしない）
+     * @param sql SQL文
+     * @param params パラメータ
+     * @param mapList 検索結果
+     * @param generation 検索前に取得した無効化の世代
+     */
+    synchronized void put(String sql,
+                          Object[] params,
+                          List<Map<String, String>> mapList,
+                          long generation) {
+        if (generation != this.generation) {
+            // 検索中に更新が反映された可能性があるため登録しない
+            logger.debug("invalidated during select, not cached : " + sql);
+            return;
+        }
+        Set<String> tables = getReadTables(sql);
+        if (tables.isEmpty()) {
+            return;
+        }
+        long bytes = estimateBytes(sql, mapList);
+        if (bytes > maxBytes) {
+            return;
+        }
+
+        Key key = new Key(sql, params);
+        remove(key);
+        cache.put(key, new CacheEntry(copy(mapList), tables, System.currentTimeMillis() + ttl, bytes));
+        totalBytes += bytes;
+
+        // 容量超過の時、最も古く参照されたキャッシュから破棄
+        Iterator<Entry<Key, CacheEntry>> ite = cache.entrySet().iterator();
+        while (totalBytes > maxBytes && ite.hasNext()) {
+            totalBytes -= ite.next().getValue().bytes;
+            ite.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * 更新系SQL文の対象テーブルを参照するキャッシュの無効化
+     * @param sql 更新系SQL文
+     * @return 対象テーブル（特定できない時、空 ※全件無効化）
+     */
+    synchronized Set<String> invalidate(String sql) {
+        Set<String> tables = getWriteTables(sql);
+        invalidateTables(tables);
+        return tables;
+    }
+
+    /**
+     * 指定テーブルを参照するキャッシュの無効化
+     * @param tables テーブル名（空・全テーブルを含む時、全件無効化）
+     */
+    synchronized void invalidateTables(Collection<String> tables) {
+        generation++;
+        if (tables.isEmpty() || tables.contains(ALL_TABLES)) {
+            invalidationCount += cache.size();
+            clear();
+            return;
+        }
+        Iterator<CacheEntry> ite = cache.values().iterator();
+        while (ite.hasNext()) {
+            CacheEntry entry = ite.next();
+            for (String table : tables) {
+                if (entry.tables.contains(table)) {
+                    totalBytes -= entry.bytes;
+                    ite.remove();
+                    invalidationCount++;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 全キャッシュの破棄
+     */
+    synchronized void clear() {
+        generation++;
+        cache.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * 統計情報の取得
+     * @return 統計情報 [key：項目名 / value：値]
+     */
+    synchronized Map<String, Long> getStatistics() {
+        Map<String, Long> map = new LinkedHashMap<String, Long>();
+        map.put("size", (long) cache.size());
+        map.put("bytes", totalBytes);
+        map.put("hit", hitCount);
+        map.put("miss", missCount);
+        map.put("eviction", evictionCount);
+        map.put("invalidation", invalidationCount);
+        return map;
+    }
+
+    /**
+     * 参照テーブルの抽出
+     * @param sql SQL文
+     * @return テーブル名（大文字）
+     */
+    static Set<String> getReadTables(String sql) {
+        Set<String> tables = new HashSet<String>();
+        Matcher m = READ_TABLE_PATTERN.matcher(sql);
+        while (m.find()) {
+            for (String table : m.group(1).split(",")) {
+                tables.add(normalize(table.trim().split("\\s+")[0]));
+            }
+        }
+        // 参照テーブルを特定できない時、キャッシュ対象外
+        if (tables.isEmpty()) {
+            logger.debug("read table not found : " + sql);
+        }
+        return tables;
+    }
+
+    /**
+     * 更新テーブルの抽出
+     * @param sql 更新系SQL文
+     * @return テーブル名（大文字 特定できない時、空）
+     */
+    static Set<String> getWriteTables(String sql) {
+        Set<String> tables = new HashSet<String>();
+        Matcher m = WRITE_TABLE_PATTERN.matcher(sql);
+        if (m.find()) {
+            tables.add(normalize(m.group(1)));
+        }
+        return tables;
+    }
+
+    /**
+     * テーブル名の正規化（スキーマ・引用符を除去し大文字化）
+     * @param table テーブル名
+     * @return テーブル名
+     */
+    private static String normalize(String table) {
+        String name = table.replace("\"", "");
+        int index = name.lastIndexOf('.');
+        if (index != -1) {
+            name = name.substring(index + 1);
+        }
+        return name.toUpperCase(Locale.ENGLISH);
+    }
+
+    /**
+     * キャッシュの削除
+     * @param key キー
+     */
+    private void remove(Key key) {
+        CacheEntry old = cache.remove(key);
+        if (old != null) {
+            totalBytes -= old.bytes;
+        }
+    }
+
+    /**
+     * 検索結果の複製
+     * @param mapList 検索結果
+     * @return 複製
+     */
+    private static List<Map<String, String>> copy(List<Map<String, String>> mapList) {
+        List<Map<String, String>> list = new ArrayList<Map<String, String>>(mapList.size());
+        for (Map<String, String> map : mapList) {
+            list.add(new HashMap<String, String>(map));
+        }
+        return list;
+    }
+
+    /**
+     * 使用容量の概算
+     * @param sql SQL文
+     * @param mapList 検索結果
+     * @return 使用容量（バイト）
+     */
+    private static long estimateBytes(String sql,
+                                      List<Map<String, String>> mapList) {
+        long bytes = 64 + sql.length() * 2L;
+        for (Map<String, String> map : mapList) {
+            bytes += 64;
+            for (Entry<String, String> entry : map.entrySet()) {
+                // HashMapのエントリ + 文字列（キーは行間で共有）
+                bytes += 48 + (entry.getValue() == null ? 0 : 40 + entry.getValue().length() * 2L);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * キャッシュキー（SQL文 + パラメータ）
+     */
+    private static class Key {
+
+        final String sql;
+        final Object[] params;
+        final int hash;
+
+        Key(String sql,
+            Object[] params) {
+            this.sql = sql;
+            this.params = params == null ? new Object[0] : params.clone();
+            this.hash = sql.hashCode() * 31 + Arrays.hashCode(this.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return sql.equals(other.sql) && Arrays.equals(params, other.params);
+        }
+    }
+
+    /**
+     * キャッシュエントリ
+     */
+    private static class CacheEntry {
+
+        final List<Map<String, String>> mapList;
+        final Set<String> tables;
+        final long expireTime;
+        final long bytes;
+
+        CacheEntry(List<Map<String, String>> mapList,
+                   Set<String> tables,
+                   long expireTime,
+                   long bytes) {
+            this.mapList = mapList;
+            this.tables = tables;
+            this.expireTime = expireTime;
+            this.bytes = bytes;
+        }
+    }
+}
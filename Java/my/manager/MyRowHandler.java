@@ -0,0 +1,19 @@
+package my.manager;
+
+import java.util.Map;
+
+/**
+ * 行処理インタフェース<br>
+ * （SELECT文の実行結果を１行ずつ処理）
+ * @author 7days
+ */
+@FunctionalInterface
+public interface MyRowHandler {
+
+    /**
+     * １行の処理
+     * @param row 行データ [key：項目名 / value：値]
+     * @throws Exception
+     */
+    void handle(Map<String, String> row) throws Exception;
+}
@@ -0,0 +1,158 @@
+package my.manager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import org.apache.log4j.Logger;
+
+/**
+ * 行カーソルクラス<br>
+ * （カーソルを開いたまま１行ずつ取得。close時にStatementとコネクションを解放）
+ * @author 7days
+ */
+class MyRowIterator implements Iterator<Map<String, String>>, AutoCloseable {
+
+    /** Logger */
+    private static final Logger logger = Logger.getLogger(MyRowIterator.class);
+
+    /** PreparedStatement */
+    private final PreparedStatement ps;
+    /** ResultSet */
+    private final ResultSet result;
+    /** 項目名（列順） */
+    private final String[] columnNames;
+    /** 解放処理 */
+    private final Consumer<MyRowIterator> releaser;
+
+    /** 次行の有無（未確認の時、null） */
+    private Boolean hasNext = null;
+    /** クローズ済フラグ */
+    private boolean closed = false;
+    /** 取得件数 */
+    private long rowCount = 0;
+    /** 取得バイト数（文字数×2の概算） */
+    private long byteCount = 0;
+
+    /**
+     * コンストラクタ
+     * @param ps 実行済のPreparedStatement
+     * @param result ResultSet
+     * @param releaser 解放処理（実行統計の記録、コネクションの返却）
+     * @throws SQLException
+     */
+    MyRowIterator(PreparedStatement ps,
+                  ResultSet result,
+                  Consumer<MyRowIterator> releaser) throws SQLException {
+        this.ps = ps;
+        this.result = result;
+        this.releaser = releaser;
+
+        // 項目名の取得（１回のみ）
+        ResultSetMetaData metaData = result.getMetaData();
+        this.columnNames = new String[metaData.getColumnCount()];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = metaData.getColumnName(i + 1);
+        }
+    }
+
+    /**
+     * 次行の有無<br>
+     * （最終行に達した時、自動でクローズ）
+     */
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (hasNext == null) {
+            try {
+                hasNext = result.next();
+            } catch (SQLException e) {
+                close();
+                throw new IllegalStateException(e);
+            }
+            if (!hasNext) {
+                close();
+            }
+        }
+        return hasNext;
+    }
+
+    /**
+     * 次行の取得
+     */
+    @Override
+    public Map<String, String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasNext = null;
+
+        // 結果格納Map
+        Map<String, String> map = new HashMap<String, String>();
+        try {
+            for (int i = 0; i < columnNames.length; i++) {
+                String value = result.getString(i + 1);
+                map.put(columnNames[i], value);
+                byteCount += value == null ? 0 : value.length() * 2L;
+            }
+        } catch (SQLException e) {
+            close();
+            throw new IllegalStateException(e);
+        }
+        rowCount++;
+        return map;
+    }
+
+    /**
+     * 取得件数を取得します。
+     * @return 取得件数
+     */
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 取得バイト数を取得します。
+     * @return 取得バイト数（文字数×2の概算）
+     */
+    long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * カーソルのクローズ<br>
+     * （ResultSet、Statementをクローズし、コネクションを解放。いずれかのクローズに失敗しても残りは実行）
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            try {
+                result.close();
+            } catch (SQLException e) {
+                // 握りつぶす
+                logger.error("cursor close error", e);
+            } finally {
+                try {
+                    ps.close();
+                } catch (SQLException e) {
+                    // 握りつぶす
+                    logger.error("statement close error", e);
+                }
+            }
+        } finally {
+            releaser.accept(this);
+        }
+    }
+}
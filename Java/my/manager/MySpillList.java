@@ -0,0 +1,369 @@
+package my.manager;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+import org.apache.log4j.Logger;
+
+/**
+ * 退避付き検索結果クラス<br>
+ * （容量上限まではメモリに保持し、超過分は一時ファイルにバイナリ形式で退避。<br>
+ * 退避分はメモリマップで読み込み、位置指定・順次のどちらでも参照可能。参照専用。<br>
+ * 使用後は必ずcloseすること（一時ファイルを削除））
+ * @author 7days
+ */
+public class MySpillList extends AbstractList<Map<String, String>> implements RandomAccess, AutoCloseable {
+
+    /** Logger */
+    private static final Logger logger = Logger.getLogger(MySpillList.class);
+
+    /** メモリマップの分割サイズ（バイト） */
+    private static final long SEGMENT_SIZE = 1L << 30;
+    /** 1行あたりの管理サイズ（バイト 概算） */
+    private static final long ROW_OVERHEAD = 32;
+    /** 1項目あたりの管理サイズ（バイト 概算） */
+    private static final long VALUE_OVERHEAD = 40;
+    /** メモリマップの解放処理（解放できないJDKの時、null） */
+    private static final Consumer<ByteBuffer> UNMAPPER = createUnmapper();
+
+    /** 項目名（列順） */
+    private final String[] columnNames;
+    /** メモリ保持の容量上限（バイト 概算） */
+    private final long memoryLimit;
+
+    /** メモリ保持の行 */
+    private final List<String[]> memoryRows = new ArrayList<String[]>();
+    /** 取得バイト数（文字数×2の概算） */
+    private long byteCount = 0;
+    /** メモリ保持のバイト数（概算） */
+    private long memoryBytes = 0;
+
+    /** 一時ファイル（退避なしの時、null） */
+    private Path spillPath = null;
+    /** 一時ファイルの出力 */
+    private OutputStream out = null;
+    /** 一時ファイルの出力位置 */
+    private long filePos = 0;
+    /** 退避行の開始位置 */
+    private long[] offsets = new long[1024];
+    /** 退避行数 */
+    private int spillCount = 0;
+    /** メモリマップの分割毎の開始位置 */
+    private final List<Long> segmentStarts = new ArrayList<Long>();
+    /** メモリマップの分割毎の先頭行（退避行の番号） */
+    private final List<Integer> segmentRows = new ArrayList<Integer>();
+    /** メモリマップ */
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    /** 項目値の出力バッファ */
+    private byte[] buf = new byte[16];
+
+    /**
+     * コンストラクタ
+     * @param columnNames 項目名（列順）
+     * @param memoryLimit メモリ保持の容量上限（バイト 概算）
+     */
+    MySpillList(String[] columnNames,
+                long memoryLimit) {
+        this.columnNames = columnNames;
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * 行の追加<br>
+     * （容量上限を超えた時、以降の行を一時ファイルへ退避）
+     * @param row 行データ（列順）
+     * @throws IOException
+     */
+    void addRow(String[] row) throws IOException {
+        long rowBytes = ROW_OVERHEAD;
+        for (String value : row) {
+            rowBytes += VALUE_OVERHEAD + (value == null ? 0 : value.length() * 2L);
+        }
+        byteCount += rowBytes - ROW_OVERHEAD - VALUE_OVERHEAD * row.length;
+
+        if (out == null && memoryBytes + rowBytes <= memoryLimit) {
+            memoryRows.add(row);
+            memoryBytes += rowBytes;
+            return;
+        }
+        if (out == null) {
+            spillPath = Files.createTempFile("MySpillList", ".tmp");
+            out = new BufferedOutputStream(Files.newOutputStream(spillPath), 64 * 1024);
+            logger.info("spill to disk : " + memoryRows.size() + "行 (" + memoryBytes + "byte) " + spillPath);
+        }
+        writeRow(row);
+    }
+
+    /**
+     * 追加の完了<br>
+     * （一時ファイルを閉じ、メモリマップを生成）
+     * @throws IOException
+     */
+    void finish() throws IOException {
+        if (out == null) {
+            return;
+        }
+        out.close();
+        out = null;
+
+        segments = new MappedByteBuffer[segmentStarts.size()];
+        try (FileChannel channel = FileChannel.open(spillPath, StandardOpenOption.READ)) {
+            for (int i = 0; i < segments.length; i++) {
+                long begin = segmentStarts.get(i);
+                long end = (i + 1 < segments.length) ? segmentStarts.get(i + 1) : filePos;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, begin, end - begin);
+            }
+        }
+    }
+
+    /**
+     * 行の取得（Map形式）
+     * @param index 行番号（0始まり）
+     * @return 行データ [key：項目名 / value：値]
+     */
+    @Override
+    public Map<String, String> get(int index) {
+        String[] row = getRow(index);
+        Map<String, String> map = new HashMap<String, String>();
+        for (int i = 0; i < columnNames.length; i++) {
+            map.put(columnNames[i], row[i]);
+        }
+        return map;
+    }
+
+    /**
+     * 行の取得（配列形式）
+     * @param index 行番号（0始まり）
+     * @return 行データ（列順）
+     */
+    public String[] getRow(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index : " + index + " size : " + size());
+        }
+        if (index < memoryRows.size()) {
+            return memoryRows.get(index);
+        }
+        if (out != null) {
+            throw new IllegalStateException("spill list not finished");
+        }
+        return readRow(index - memoryRows.size());
+    }
+
+    @Override
+    public int size() {
+        return memoryRows.size() + spillCount;
+    }
+
+    /**
+     * 項目名の取得
+     * @return 項目名（列順）
+     */
+    public String[] getColumnNames() {
+        return columnNames.clone();
+    }
+
+    /**
+     * 退避有無の取得
+     * @return 退避有無
+     */
+    public boolean isSpilled() {
+        return spillPath != null;
+    }
+
+    /**
+     * 取得バイト数の取得
+     * @return 取得バイト数（文字数×2の概算）
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * 一時ファイルの削除<br>
+     * （メモリマップを明示的に解放してから削除[Windowsはマップ中のファイルを削除できない]。<br>
+     * 解放できないJDK・削除できない時は終了時に削除。close後は参照不可）
+     */
+    @Override
+    public void close() {
+        MappedByteBuffer[] mapped = segments;
+        segments = new MappedByteBuffer[0];
+        if (UNMAPPER != null) {
+            for (MappedByteBuffer segment : mapped) {
+                try {
+                    UNMAPPER.accept(segment);
+                } catch (RuntimeException e) {
+                    logger.debug("unmap error", e);
+                }
+            }
+        }
+        memoryRows.clear();
+        spillCount = 0;
+        if (spillPath == null) {
+            return;
+        }
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            Files.deleteIfExists(spillPath);
+        } catch (IOException e) {
+            logger.warn("spill file delete error : " + spillPath, e);
+            spillPath.toFile().deleteOnExit();
+        }
+        spillPath = null;
+    }
+
+    /**
+     * メモリマップの解放処理の生成<br>
+     * （Java 9以降：sun.misc.Unsafe.invokeCleaner Java 8：sun.nio.ch.DirectBuffer.cleaner().clean() をリフレクションで呼び出し）
+     * @return 解放処理（解放できないJDKの時、null）
+     */
+    private static Consumer<ByteBuffer> createUnmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            return buffer -> invoke(invokeCleaner, unsafe, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8
+        }
+        try {
+            Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer -> {
+                Object c = invoke(cleaner, buffer);
+                if (c != null) {
+                    invoke(clean, c);
+                }
+            };
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("memory map unmap not supported", e);
+            return null;
+        }
+    }
+
+    /**
+     * メソッドの呼び出し（例外は実行時例外に変換）
+     * @param method メソッド
+     * @param target 対象
+     * @param args 引数
+     * @return 戻り値
+     */
+    private static Object invoke(Method method,
+                                 Object target,
+                                 Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 行の書き込み<br>
+     * （項目毎に「長さ+1（可変長 0:NULL）」「UTF-8」）
+     * @param row 行データ
+     * @throws IOException
+     */
+    private void writeRow(String[] row) throws IOException {
+        if (segmentStarts.isEmpty() || filePos - segmentStarts.get(segmentStarts.size() - 1) >= SEGMENT_SIZE) {
+            segmentStarts.add(filePos);
+            segmentRows.add(spillCount);
+        }
+        if (spillCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[spillCount++] = filePos;
+
+        for (String value : row) {
+            if (value == null) {
+                writeVarInt(0);
+                continue;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            out.write(bytes);
+            filePos += bytes.length;
+        }
+    }
+
+    /**
+     * 可変長整数の書き込み（7bit毎）
+     * @param value 値
+     * @throws IOException
+     */
+    private void writeVarInt(int value) throws IOException {
+        int len = 0;
+        while ((value & ~0x7F) != 0) {
+            buf[len++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[len++] = (byte) value;
+        out.write(buf, 0, len);
+        filePos += len;
+    }
+
+    /**
+     * 退避行の読み込み
+     * @param spillIndex 退避行の番号
+     * @return 行データ
+     */
+    private String[] readRow(int spillIndex) {
+        int segment = segmentRows.size() - 1;
+        while (segmentRows.get(segment) > spillIndex) {
+            segment--;
+        }
+        ByteBuffer bb = segments[segment].duplicate();
+        bb.position((int) (offsets[spillIndex] - segmentStarts.get(segment)));
+
+        String[] row = new String[columnNames.length];
+        for (int i = 0; i < row.length; i++) {
+            int len = readVarInt(bb);
+            if (len == 0) {
+                continue;
+            }
+            byte[] bytes = new byte[len - 1];
+            bb.get(bytes);
+            row[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return row;
+    }
+
+    /**
+     * 可変長整数の読み込み
+     * @param bb 読込バッファ
+     * @return 値
+     */
+    private static int readVarInt(ByteBuffer bb) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bb.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,274 @@
+package my.manager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * SQL実行記録クラス<br>
+ * （実行したSQL文・バインド値・実行時間・スレッドをタブ区切りで記録。MySqlReplayで再生）<br>
+ * 形式：<br>
+ * S [SQL番号] [SQL文] ※SQL文の初回実行時のみ<br>
+ * E [開始時刻（記録開始からのミリ秒）] [スレッド名] [実行時間（マイクロ秒）] [エラー 0/1] [SQL番号] [バインド値...]<br>
+ * ※バッチ実行は行毎に出力（実行時間は行数で按分）<br>
+ * C [時刻（記録開始からのミリ秒）] [スレッド名] ※コミット<br>
+ * R [時刻（記録開始からのミリ秒）] [スレッド名] ※ロールバック<br>
+ * バインド値：N（NULL）、s:文字列、n:数値、d:日時（エポックミリ秒）
+ * @author 7days
+ */
+class MySqlCapture implements AutoCloseable {
+
+    /** Logger */
+    private static final Logger logger = Logger.getLogger(MySqlCapture.class);
+
+    /** SQL定義行 */
+    static final String TYPE_SQL = "S";
+    /** 実行行 */
+    static final String TYPE_EXECUTE = "E";
+    /** コミット行 */
+    static final String TYPE_COMMIT = "C";
+    /** ロールバック行 */
+    static final String TYPE_ROLLBACK = "R";
+    /** NULL */
+    static final String VALUE_NULL = "N";
+    /** 文字列 */
+    static final String VALUE_STRING = "s:";
+    /** 数値 */
+    static final String VALUE_NUMBER = "n:";
+    /** 日時 */
+    static final String VALUE_DATE = "d:";
+
+    /** 出力先 */
+    private final BufferedWriter bw;
+    /** 記録開始時刻（System.nanoTime） */
+    private final long startNanos = System.nanoTime();
+    /** SQL番号 [key：SQL文 / value：SQL番号] */
+    private final Map<String, Integer> sqlNoMap = new HashMap<String, Integer>();
+    /** 出力エラー有無（エラー後は記録しない） */
+    private boolean failed = false;
+
+    /**
+     * コンストラクタ
+     * @param path 出力先パス
+     * @throws IOException
+     */
+    MySqlCapture(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.bw = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * SQL実行の記録
+     * @param sql SQL文
+     * @param params バインド値（なしの時、null）
+     * @param elapsedNanos 実行時間（ナノ秒）
+     * @param error エラー有無
+     */
+    synchronized void record(String sql,
+                             Object[] params,
+                             long elapsedNanos,
+                             boolean error) {
+        if (failed) {
+            return;
+        }
+        long end = System.nanoTime();
+        try {
+            writeExecute(getSqlNo(sql), end - elapsedNanos, elapsedNanos, params, error);
+        } catch (IOException e) {
+            failed = true;
+            logger.error("sql capture error", e);
+        }
+    }
+
+    /**
+     * バッチ実行の記録<br>
+     * （再生できるよう行毎に出力。実行時間は行数で按分）
+     * @param sql SQL文
+     * @param paramList 行毎のバインド値
+     * @param elapsedNanos 実行時間（ナノ秒）
+     * @param error エラー有無
+     */
+    synchronized void recordBatch(String sql,
+                                  List<Object[]> paramList,
+                                  long elapsedNanos,
+                                  boolean error) {
+        if (failed || paramList.isEmpty()) {
+            return;
+        }
+        long end = System.nanoTime();
+        long rowNanos = elapsedNanos / paramList.size();
+        try {
+            int sqlNo = getSqlNo(sql);
+            for (Object[] params : paramList) {
+                writeExecute(sqlNo, end - elapsedNanos, rowNanos, params, error);
+            }
+        } catch (IOException e) {
+            failed = true;
+            logger.error("sql capture error", e);
+        }
+    }
+
+    /**
+     * コミット・ロールバックの記録
+     * @param commit [true:コミット false:ロールバック]
+     */
+    synchronized void recordTransactionEnd(boolean commit) {
+        if (failed) {
+            return;
+        }
+        try {
+            bw.write((commit ? TYPE_COMMIT : TYPE_ROLLBACK) + "\t" + getOffsetMillis(System.nanoTime()) + "\t"
+                     + escape(Thread.currentThread().getName()) + "\n");
+        } catch (IOException e) {
+            failed = true;
+            logger.error("sql capture error", e);
+        }
+    }
+
+    /**
+     * SQL番号の取得（初回はSQL定義行を出力）
+     * @param sql SQL文
+     * @return SQL番号
+     * @throws IOException
+     */
+    private int getSqlNo(String sql) throws IOException {
+        Integer sqlNo = sqlNoMap.get(sql);
+        if (sqlNo == null) {
+            sqlNo = sqlNoMap.size() + 1;
+            sqlNoMap.put(sql, sqlNo);
+            bw.write(TYPE_SQL + "\t" + sqlNo + "\t" + escape(sql) + "\n");
+        }
+        return sqlNo;
+    }
+
+    /**
+     * 実行行の出力
+     * @param sqlNo SQL番号
+     * @param startTime 開始時刻（System.nanoTime）
+     * @param elapsedNanos 実行時間（ナノ秒）
+     * @param params バインド値（なしの時、null）
+     * @param error エラー有無
+     * @throws IOException
+     */
+    private void writeExecute(int sqlNo,
+                              long startTime,
+                              long elapsedNanos,
+                              Object[] params,
+                              boolean error) throws IOException {
+        StringBuilder bf = new StringBuilder(64);
+        bf.append(TYPE_EXECUTE);
+        bf.append('\t').append(getOffsetMillis(startTime));
+        bf.append('\t').append(escape(Thread.currentThread().getName()));
+        bf.append('\t').append(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        bf.append('\t').append(error ? 1 : 0);
+        bf.append('\t').append(sqlNo);
+        if (params != null) {
+            for (Object param : params) {
+                bf.append('\t').append(encode(param));
+            }
+        }
+        bf.append('\n');
+        bw.write(bf.toString());
+    }
+
+    /**
+     * 記録開始からの経過時間の取得
+     * @param time 時刻（System.nanoTime）
+     * @return 経過時間（ミリ秒）
+     */
+    private long getOffsetMillis(long time) {
+        return Math.max(TimeUnit.NANOSECONDS.toMillis(time - startNanos), 0);
+    }
+
+    /**
+     * 記録の終了
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            bw.close();
+        } catch (IOException e) {
+            logger.error("sql capture close error", e);
+        }
+    }
+
+    /**
+     * バインド値の符号化
+     * @param param バインド値
+     * @return 符号化した値
+     */
+    static String encode(Object param) {
+        if (param == null) {
+            return VALUE_NULL;
+        }
+        if (param instanceof Number) {
+            return VALUE_NUMBER + param;
+        }
+        if (param instanceof java.util.Date) {
+            return VALUE_DATE + ((java.util.Date) param).getTime();
+        }
+        return VALUE_STRING + escape(param.toString());
+    }
+
+    /**
+     * バインド値の復号
+     * @param value 符号化した値
+     * @return バインド値
+     */
+    static Object decode(String value) {
+        if (value.startsWith(VALUE_NUMBER)) {
+            return new BigDecimal(value.substring(VALUE_NUMBER.length()));
+        }
+        if (value.startsWith(VALUE_DATE)) {
+            return new Timestamp(Long.parseLong(value.substring(VALUE_DATE.length())));
+        }
+        if (value.startsWith(VALUE_STRING)) {
+            return unescape(value.substring(VALUE_STRING.length()));
+        }
+        return null;
+    }
+
+    /**
+     * タブ・改行・「\」のエスケープ
+     * @param str 文字列
+     * @return エスケープ後の文字列
+     */
+    static String escape(String str) {
+        return str.replace("\\", "\\\\").replace("\t", "\\t").replace("\r", "\\r").replace("\n", "\\n");
+    }
+
+    /**
+     * エスケープの解除
+     * @param str エスケープ後の文字列
+     * @return 文字列
+     */
+    static String unescape(String str) {
+        if (str.indexOf('\\') == -1) {
+            return str;
+        }
+        StringBuilder bf = new StringBuilder(str.length());
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == '\\' && i + 1 < str.length()) {
+                char next = str.charAt(++i);
+                bf.append(next == 't' ? '\t' : next == 'r' ? '\r' : next == 'n' ? '\n' : next);
+            } else {
+                bf.append(c);
+            }
+        }
+        return bf.toString();
+    }
+}
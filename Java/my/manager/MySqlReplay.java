@@ -0,0 +1,458 @@
+package my.manager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import my.utils.MySqlUtil;
+
+import org.apache.log4j.Logger;
+
+/**
+ * SQL実行記録の再生クラス<br>
+ * （MySqlCaptureの記録を任意のJDBC接続先に対して並行実行し、スループットとレイテンシ分布を集計。<br>
+ * 記録時のスレッド毎に同じワーカーへ割り当て、スレッド内の実行順序とコミット・ロールバックの位置は維持）
+ * @author 7days
+ */
+public class MySqlReplay {
+
+    /** Logger */
+    private static final Logger logger = Logger.getLogger(MySqlReplay.class);
+
+    /** ワーカー毎の待機件数上限 */
+    private static final int QUEUE_SIZE = 1000;
+
+    /** 接続先 */
+    private String url = "";
+    /** ユーザー名 */
+    private String user = "";
+    /** パスワード */
+    private String pass = "";
+    /** JDBCドライバクラス */
+    private String driverClass = "oracle.jdbc.driver.OracleDriver";
+    /** 並行数 */
+    private int concurrency = 4;
+    /** 再生速度の倍率（0以下の時、待機せずに実行） */
+    private double speedUp = 1.0;
+    /** コミット有無（true:記録どおりにコミット false:終了時にロールバック ※記録のコミットはセーブポイントで代替） */
+    private boolean commit = false;
+
+    /** 再生結果のSQL実行統計 */
+    private MySqlStatistics statistics = new MySqlStatistics(0);
+    /** 実行件数 */
+    private final AtomicLong executedCount = new AtomicLong();
+    /** スキップ件数（バインド値の個数不一致・SQL未定義） */
+    private final AtomicLong skippedCount = new AtomicLong();
+    /** 再生時間（ミリ秒） */
+    private long elapsedMillis = 0;
+
+    /** 実行記録１件 */
+    private static class ReplayEntry {
+        /** 終了通知 */
+        static final ReplayEntry END = new ReplayEntry(null, 0, null, null);
+
+        /** 種別（E:実行 C:コミット R:ロールバック） */
+        final String type;
+        /** 開始時刻（記録開始からのミリ秒） */
+        final long offsetMillis;
+        /** SQL文 */
+        final String sql;
+        /** バインド値 */
+        final Object[] params;
+
+        ReplayEntry(String type,
+                    long offsetMillis,
+                    String sql,
+                    Object[] params) {
+            this.type = type;
+            this.offsetMillis = offsetMillis;
+            this.sql = sql;
+            this.params = params;
+        }
+    }
+
+    /**
+     * 再生<br>
+     * （実行記録を読み込みながらワーカーへ振り分け。全件の実行完了まで待機）
+     * @param captureFile 実行記録ファイル
+     * @return 再生結果のSQL実行統計
+     * @throws IOException
+     * @throws SQLException
+     */
+    public MySqlStatistics run(Path captureFile) throws IOException, SQLException {
+        try {
+            Class.forName(driverClass);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("driver not found : " + driverClass, e);
+        }
+        statistics = new MySqlStatistics(0);
+        executedCount.set(0);
+        skippedCount.set(0);
+
+        int workerCount = Math.max(concurrency, 1);
+        List<BlockingQueue<ReplayEntry>> queues = new ArrayList<BlockingQueue<ReplayEntry>>();
+        List<Thread> workers = new ArrayList<Thread>();
+        List<Throwable> errors = new ArrayList<Throwable>();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<ReplayEntry> queue = new ArrayBlockingQueue<ReplayEntry>(QUEUE_SIZE);
+            queues.add(queue);
+            Thread t = new Thread(() -> {
+                try {
+                    replayWorker(queue, start);
+                } catch (SQLException | RuntimeException e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                    // 読込側を停止させないよう、終了通知まで読み捨て
+                    drain(queue);
+                }
+            }, "MySqlReplay-" + i);
+            workers.add(t);
+            t.start();
+        }
+
+        try {
+            Map<String, String> sqlMap = new HashMap<String, String>();
+            try (BufferedReader br = Files.newBufferedReader(captureFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    String[] values = line.split("\t", -1);
+                    if (MySqlCapture.TYPE_SQL.equals(values[0]) && values.length == 3) {
+                        sqlMap.put(values[1], MySqlCapture.unescape(values[2]));
+                        continue;
+                    }
+                    if ((MySqlCapture.TYPE_COMMIT.equals(values[0]) || MySqlCapture.TYPE_ROLLBACK.equals(values[0])) && values.length == 3) {
+                        int worker = Math.floorMod(values[2].hashCode(), workerCount);
+                        put(queues.get(worker), new ReplayEntry(values[0], Long.parseLong(values[1]), null, null));
+                        continue;
+                    }
+                    if (!MySqlCapture.TYPE_EXECUTE.equals(values[0]) || values.length < 6) {
+                        continue;
+                    }
+                    String sql = sqlMap.get(values[5]);
+                    Object[] params = new Object[values.length - 6];
+                    for (int i = 0; i < params.length; i++) {
+                        params[i] = MySqlCapture.decode(values[i + 6]);
+                    }
+                    if (sql == null || MyDatabaseManager.countParameters(sql) != params.length) {
+                        // 記録の破損等
+                        skippedCount.incrementAndGet();
+                        continue;
+                    }
+                    int worker = Math.floorMod(values[2].hashCode(), workerCount);
+                    put(queues.get(worker), new ReplayEntry(values[0], Long.parseLong(values[1]), sql, params));
+                }
+            }
+        } finally {
+            for (BlockingQueue<ReplayEntry> queue : queues) {
+                put(queue, ReplayEntry.END);
+            }
+            for (Thread t : workers) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            elapsedMillis = System.currentTimeMillis() - start;
+        }
+
+        if (!errors.isEmpty()) {
+            throw new SQLException("replay error", errors.get(0));
+        }
+        return statistics;
+    }
+
+    /**
+     * 再生結果の出力<br>
+     * （スループットとSQL形状毎のレイテンシ分布）
+     * @return 再生結果
+     */
+    public String report() {
+        StringBuilder bf = new StringBuilder();
+        bf.append("------------------ SQL再生結果 ------------------").append(System.lineSeparator());
+        bf.append(String.format("executed=%d skipped=%d error=%d elapsed=%dms throughput=%.1f/s concurrency=%d speedUp=%s",
+                                executedCount.get(),
+                                skippedCount.get(),
+                                statistics.getTotalErrorCount(),
+                                elapsedMillis,
+                                elapsedMillis == 0 ? 0d : executedCount.get() * 1000d / elapsedMillis,
+                                Math.max(concurrency, 1),
+                                speedUp > 0 ? String.valueOf(speedUp) : "max"));
+        for (String summary : statistics.getStatementSummaries()) {
+            bf.append(System.lineSeparator()).append(summary);
+        }
+        return bf.toString();
+    }
+
+    /**
+     * ワーカー処理<br>
+     * （専用の接続で順に実行。再生速度の指定時は記録時の開始時刻まで待機。<br>
+     * 記録のコミット・ロールバックを再現。コミット無の時はコミットの代わりにセーブポイントを設定し、ロールバックはそこまで戻す）
+     * @param queue 実行待ち
+     * @param start 再生開始時刻
+     * @throws SQLException
+     */
+    private void replayWorker(BlockingQueue<ReplayEntry> queue,
+                              long start) throws SQLException {
+        Map<String, PreparedStatement> psMap = new HashMap<String, PreparedStatement>();
+        Connection conn = DriverManager.getConnection(url, user, pass);
+        Savepoint committed = null;
+        try {
+            conn.setAutoCommit(false);
+            while (true) {
+                ReplayEntry entry = queue.take();
+                if (entry == ReplayEntry.END) {
+                    break;
+                }
+                if (speedUp > 0) {
+                    long wait = start + (long) (entry.offsetMillis / speedUp) - System.currentTimeMillis();
+                    if (wait > 0) {
+                        Thread.sleep(wait);
+                    }
+                }
+                if (MySqlCapture.TYPE_COMMIT.equals(entry.type)) {
+                    if (commit) {
+                        conn.commit();
+                    } else {
+                        committed = conn.setSavepoint();
+                    }
+                } else if (MySqlCapture.TYPE_ROLLBACK.equals(entry.type)) {
+                    if (commit || committed == null) {
+                        conn.rollback();
+                    } else {
+                        conn.rollback(committed);
+                    }
+                } else {
+                    execute(conn, psMap, entry);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // 終了通知の受信後は例外を送出しない（握りつぶす）
+            try {
+                for (PreparedStatement ps : psMap.values()) {
+                    ps.close();
+                }
+                if (commit) {
+                    // 記録終了後の未コミット分
+                    conn.commit();
+                } else {
+                    conn.rollback();
+                }
+                conn.close();
+            } catch (SQLException e) {
+                logger.error("replay close error", e);
+            }
+        }
+    }
+
+    /**
+     * SQL文の実行と記録
+     * @param conn コネクション
+     * @param psMap PreparedStatement [key：SQL文 / value：PreparedStatement]
+     * @param entry 実行記録
+     */
+    private void execute(Connection conn,
+                         Map<String, PreparedStatement> psMap,
+                         ReplayEntry entry) {
+        long start = System.nanoTime();
+        long rows = 0;
+        boolean error = false;
+        try {
+            PreparedStatement ps = psMap.get(entry.sql);
+            if (ps == null) {
+                ps = conn.prepareStatement(entry.sql);
+                psMap.put(entry.sql, ps);
+            }
+            MySqlUtil.setParameters(ps, entry.params);
+            if (ps.execute()) {
+                try (ResultSet result = ps.getResultSet()) {
+                    while (result.next()) {
+                        rows++;
+                    }
+                }
+            } else {
+                rows = Math.max(ps.getUpdateCount(), 0);
+            }
+        } catch (SQLException e) {
+            error = true;
+            logger.debug("replay error : " + entry.sql, e);
+        }
+        statistics.record(entry.sql, entry.params, System.nanoTime() - start, rows, 0, error);
+        executedCount.incrementAndGet();
+    }
+
+    /**
+     * 終了通知までの読み捨て
+     * @param queue 実行待ち
+     */
+    private static void drain(BlockingQueue<ReplayEntry> queue) {
+        try {
+            while (queue.take() != ReplayEntry.END) {
+                // 読み捨て
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 実行待ちへの追加（割り込み時は中断）
+     * @param queue 実行待ち
+     * @param entry 実行記録
+     */
+    private static void put(BlockingQueue<ReplayEntry> queue,
+                            ReplayEntry entry) {
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("replay interrupted", e);
+        }
+    }
+
+    /**
+     * 接続先を設定します。
+     * @param url 接続先（JDBC URL）
+     * @return thisClassObj
+     */
+    public MySqlReplay setUrl(String url) {
+        this.url = url;
+        return this;
+    }
+
+    /**
+     * ユーザー名を設定します。
+     * @param user ユーザー名
+     * @return thisClassObj
+     */
+    public MySqlReplay setUser(String user) {
+        this.user = user;
+        return this;
+    }
+
+    /**
+     * パスワードを設定します。
+     * @param pass パスワード
+     * @return thisClassObj
+     */
+    public MySqlReplay setPass(String pass) {
+        this.pass = pass;
+        return this;
+    }
+
+    /**
+     * JDBCドライバクラスを設定します。
+     * @param driverClass JDBCドライバクラス
+     * @return thisClassObj
+     */
+    public MySqlReplay setDriverClass(String driverClass) {
+        this.driverClass = driverClass;
+        return this;
+    }
+
+    /**
+     * 並行数を設定します。
+     * @param concurrency 並行数
+     * @return thisClassObj
+     */
+    public MySqlReplay setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * 再生速度の倍率（0以下の時、待機せずに実行）を設定します。
+     * @param speedUp 再生速度の倍率
+     * @return thisClassObj
+     */
+    public MySqlReplay setSpeedUp(double speedUp) {
+        this.speedUp = speedUp;
+        return this;
+    }
+
+    /**
+     * コミット有無（true:記録どおりにコミット false:終了時にロールバック）を設定します。
+     * @param commit コミット有無
+     * @return thisClassObj
+     */
+    public MySqlReplay setCommit(boolean commit) {
+        this.commit = commit;
+        return this;
+    }
+
+    /**
+     * 再生結果のSQL実行統計を取得します。
+     * @return 再生結果のSQL実行統計
+     */
+    public MySqlStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * 実行件数を取得します。
+     * @return 実行件数
+     */
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    /**
+     * スキップ件数を取得します。
+     * @return スキップ件数
+     */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    /**
+     * 再生時間（ミリ秒）を取得します。
+     * @return 再生時間（ミリ秒）
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 起動<br>
+     * 引数：[実行記録ファイル] [接続先] [ユーザー名] [パスワード] [並行数] [再生速度の倍率] [JDBCドライバクラス]
+     * @param args 引数
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: MySqlReplay captureFile jdbcUrl [user] [password] [concurrency] [speedUp] [driverClass]");
+            System.exit(1);
+        }
+        MySqlReplay replay = new MySqlReplay().setUrl(args[1]);
+        if (args.length > 2) replay.setUser(args[2]);
+        if (args.length > 3) replay.setPass(args[3]);
+        if (args.length > 4) replay.setConcurrency(Integer.parseInt(args[4]));
+        if (args.length > 5) replay.setSpeedUp(Double.parseDouble(args[5]));
+        if (args.length > 6) replay.setDriverClass(args[6]);
+
+        replay.run(Paths.get(args[0]));
+        String report = replay.report();
+        logger.info(report);
+        System.out.println(report);
+    }
+}
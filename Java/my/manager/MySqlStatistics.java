@@ -0,0 +1,315 @@
+package my.manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+
+/**
+ * SQL実行統計クラス<br>
+ * （SQL形状毎の実行回数、レイテンシ分布、取得・更新件数、バイト数、コネクション待ち時間を集計。<br>
+ * 閾値を超えたSQLはバインド値と共にスロークエリログへ出力）
+ * @author 7days
+ */
+public class MySqlStatistics implements MySqlStatisticsMBean {
+
+    /** 統計ログ */
+    private static final Logger statisticsLogger = Logger.getLogger("my.sql.statistics");
+    /** スロークエリログ */
+    private static final Logger slowQueryLogger = Logger.getLogger("my.sql.slowquery");
+
+    /** 文字列リテラル */
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    /** 数値リテラル */
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$#])-?\\d+(?:\\.\\d+)?");
+    /** 空白 */
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    /** SQL形状キャッシュ上限数 */
+    private static final int SHAPE_CACHE_MAX_SIZE = 10000;
+
+    /** SQL形状毎の統計 */
+    private final ConcurrentHashMap<String, Stat> statMap = new ConcurrentHashMap<String, Stat>();
+    /** SQL文 ⇒ SQL形状 */
+    private final Map<String, String> shapeCache = new ConcurrentHashMap<String, String>();
+
+    /** コネクション取得の回数 */
+    private final LongAdder connectionWaitCount = new LongAdder();
+    /** コネクション取得の待ち時間合計（ナノ秒） */
+    private final LongAdder connectionWaitNanos = new LongAdder();
+    /** コネクション取得の最大待ち時間（ナノ秒） */
+    private final AtomicLong connectionWaitMaxNanos = new AtomicLong();
+
+    /** スロークエリの閾値（ミリ秒） */
+    private volatile long slowQueryThresholdMillis;
+
+    /**
+     * コンストラクタ
+     * @param slowQueryThresholdMillis スロークエリの閾値（ミリ秒 0以下の時、出力しない）
+     */
+    public MySqlStatistics(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
+    /**
+     * SQL実行の記録
+     * @param sql SQL文
+     * @param params バインド値（なしの時、null）
+     * @param elapsedNanos 実行時間（ナノ秒）
+     * @param rows 取得・更新件数
+     * @param bytes 取得バイト数（文字数×2の概算）
+     * @param error エラー有無
+     */
+    public void record(String sql,
+                       Object[] params,
+                       long elapsedNanos,
+                       long rows,
+                       long bytes,
+                       boolean error) {
+        String shape = toShape(sql);
+        Stat stat = statMap.get(shape);
+        if (stat == null) {
+            stat = statMap.computeIfAbsent(shape, key -> new Stat());
+        }
+        stat.record(elapsedNanos, rows, bytes, error);
+
+        // スロークエリの出力
+        long threshold = slowQueryThresholdMillis;
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (threshold > 0 && elapsedMillis >= threshold) {
+            slowQueryLogger.warn(elapsedMillis + "ms rows=" + rows + (error ? " error" : "") + " : " + sql
+                                 + (params == null ? "" : " " + Arrays.toString(params)));
+        }
+    }
+
+    /**
+     * コネクション取得の待ち時間の記録
+     * @param waitNanos 待ち時間（ナノ秒）
+     */
+    public void recordConnectionWait(long waitNanos) {
+        connectionWaitCount.increment();
+        connectionWaitNanos.add(waitNanos);
+        long max;
+        while (waitNanos > (max = connectionWaitMaxNanos.get())) {
+            if (connectionWaitMaxNanos.compareAndSet(max, waitNanos)) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public long getTotalCount() {
+        long total = 0;
+        for (Stat stat : statMap.values()) {
+            total += stat.count.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalErrorCount() {
+        long total = 0;
+        for (Stat stat : statMap.values()) {
+            total += stat.errorCount.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public int getStatementShapeCount() {
+        return statMap.size();
+    }
+
+    @Override
+    public long getConnectionWaitCount() {
+        return connectionWaitCount.sum();
+    }
+
+    @Override
+    public double getConnectionWaitAvgMillis() {
+        long count = connectionWaitCount.sum();
+        return count == 0 ? 0 : connectionWaitNanos.sum() / (double) count / 1000000;
+    }
+
+    @Override
+    public double getConnectionWaitMaxMillis() {
+        return connectionWaitMaxNanos.get() / 1000000d;
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
+    @Override
+    public String[] getStatementSummaries() {
+        List<Entry<String, Stat>> list = new ArrayList<Entry<String, Stat>>(statMap.entrySet());
+        Collections.sort(list, (a, b) -> Long.compare(b.getValue().totalNanos.sum(), a.getValue().totalNanos.sum()));
+
+        String[] summaries = new String[list.size()];
+        for (int i = 0; i < summaries.length; i++) {
+            Stat stat = list.get(i).getValue();
+            summaries[i] = String.format("count=%d error=%d total=%.1fms p50=%.3fms p95=%.3fms p99=%.3fms max=%.3fms rows=%d bytes=%d : %s",
+                                         stat.count.sum(),
+                                         stat.errorCount.sum(),
+                                         stat.totalNanos.sum() / 1000000d,
+                                         stat.percentileMillis(0.50),
+                                         stat.percentileMillis(0.95),
+                                         stat.percentileMillis(0.99),
+                                         stat.maxNanos.get() / 1000000d,
+                                         stat.rows.sum(),
+                                         stat.bytes.sum(),
+                                         list.get(i).getKey());
+        }
+        return summaries;
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder bf = new StringBuilder();
+        bf.append("------------------ SQL実行統計 ------------------").append(System.lineSeparator());
+        bf.append(String.format("connection wait count=%d avg=%.3fms max=%.3fms",
+                                getConnectionWaitCount(),
+                                getConnectionWaitAvgMillis(),
+                                getConnectionWaitMaxMillis()));
+        for (String summary : getStatementSummaries()) {
+            bf.append(System.lineSeparator()).append(summary);
+        }
+        statisticsLogger.info(bf.toString());
+        return bf.toString();
+    }
+
+    @Override
+    public void reset() {
+        statMap.clear();
+        connectionWaitCount.reset();
+        connectionWaitNanos.reset();
+        connectionWaitMaxNanos.set(0);
+    }
+
+    /**
+     * SQL形状の取得<br>
+     * （文字列・数値リテラルを「?」に置換し、空白を正規化）
+     * @param sql SQL文
+     * @return SQL形状
+     */
+    String toShape(String sql) {
+        String shape = shapeCache.get(sql);
+        if (shape != null) {
+            return shape;
+        }
+        shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        if (shapeCache.size() >= SHAPE_CACHE_MAX_SIZE) {
+            shapeCache.clear();
+        }
+        shapeCache.put(sql, shape);
+        return shape;
+    }
+
+    /**
+     * SQL形状毎の統計
+     */
+    private static class Stat {
+
+        /** レイテンシ分布の区分数（２の累乗毎に４分割、マイクロ秒） */
+        private static final int BUCKET_COUNT = 160;
+
+        final LongAdder count = new LongAdder();
+        final LongAdder errorCount = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final LongAdder rows = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+        void record(long elapsedNanos,
+                    long rowCount,
+                    long byteCount,
+                    boolean error) {
+            count.increment();
+            if (error) {
+                errorCount.increment();
+            }
+            totalNanos.add(elapsedNanos);
+            rows.add(rowCount);
+            bytes.add(byteCount);
+            buckets.incrementAndGet(toBucket(TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+            long max;
+            while (elapsedNanos > (max = maxNanos.get())) {
+                if (maxNanos.compareAndSet(max, elapsedNanos)) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * パーセンタイルの取得（区分の中央値で近似）
+         * @param p パーセンタイル（0～1）
+         * @return レイテンシ（ミリ秒）
+         */
+        double percentileMillis(double p) {
+            long total = 0;
+            long[] counts = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(total * p);
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                cumulative += counts[i];
+                if (cumulative >= target) {
+                    return (lowerBound(i) + lowerBound(i + 1)) / 2d / 1000;
+                }
+            }
+            return maxNanos.get() / 1000000d;
+        }
+
+        /**
+         * 区分番号の取得
+         * @param micros レイテンシ（マイクロ秒）
+         * @return 区分番号
+         */
+        static int toBucket(long micros) {
+            if (micros < 4) {
+                return (int) Math.max(micros, 0);
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(micros);
+            int sub = (int) ((micros >>> (exp - 2)) & 3);
+            return Math.min(4 * (exp - 1) + sub, BUCKET_COUNT - 1);
+        }
+
+        /**
+         * 区分の下限値の取得
+         * @param bucket 区分番号
+         * @return 下限値（マイクロ秒）
+         */
+        static long lowerBound(int bucket) {
+            if (bucket < 4) {
+                return bucket;
+            }
+            int exp = bucket / 4 + 1;
+            int sub = bucket % 4;
+            return (4L + sub) << (exp - 2);
+        }
+    }
+}
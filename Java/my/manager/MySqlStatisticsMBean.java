@@ -0,0 +1,74 @@
+package my.manager;
+
+/**
+ * SQL実行統計のJMXインタフェース
+ * @author 7days
+ */
+public interface MySqlStatisticsMBean {
+
+    /**
+     * 全SQLの実行回数を取得します。
+     * @return 実行回数
+     */
+    long getTotalCount();
+
+    /**
+     * 全SQLのエラー回数を取得します。
+     * @return エラー回数
+     */
+    long getTotalErrorCount();
+
+    /**
+     * SQL形状（リテラルを除いたSQL文）の種類数を取得します。
+     * @return 種類数
+     */
+    int getStatementShapeCount();
+
+    /**
+     * コネクション取得の回数を取得します。
+     * @return 取得回数
+     */
+    long getConnectionWaitCount();
+
+    /**
+     * コネクション取得の平均待ち時間（ミリ秒）を取得します。
+     * @return 平均待ち時間（ミリ秒）
+     */
+    double getConnectionWaitAvgMillis();
+
+    /**
+     * コネクション取得の最大待ち時間（ミリ秒）を取得します。
+     * @return 最大待ち時間（ミリ秒）
+     */
+    double getConnectionWaitMaxMillis();
+
+    /**
+     * スロークエリの閾値（ミリ秒）を取得します。
+     * @return スロークエリの閾値（ミリ秒）
+     */
+    long getSlowQueryThresholdMillis();
+
+    /**
+     * スロークエリの閾値（ミリ秒 0以下の時、出力しない）を設定します。
+     * @param slowQueryThresholdMillis スロークエリの閾値（ミリ秒）
+     */
+    void setSlowQueryThresholdMillis(long slowQueryThresholdMillis);
+
+    /**
+     * SQL形状毎の統計を取得します。<br>
+     * （合計時間の降順）
+     * @return 統計（１形状１行）
+     */
+    String[] getStatementSummaries();
+
+    /**
+     * SQL形状毎の統計をログ出力します。
+     * @return 出力内容
+     */
+    String dump();
+
+    /**
+     * 統計をクリアします。
+     */
+    void reset();
+}
@@ -0,0 +1,159 @@
+package my.manager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import org.apache.log4j.Logger;
+
+/**
+ * PreparedStatementキャッシュクラス<br>
+ * （コネクション毎のLRUキャッシュ。同一コネクションを複数スレッドで同時に利用しないこと。<br>
+ * フェッチサイズ等の設定は再利用時に引き継がれるため、設定する処理は利用毎に設定すること）
+ * @author 7days
+ */
+class MyStatementCache {
+
+    /** Logger */
+    private static final Logger logger = Logger.getLogger(MyStatementCache.class);
+
+    /** コネクション */
+    private final Connection conn;
+    /** 所属プール（プール単位のヒット・ミス件数を集計） */
+    private final MyConnectionPool pool;
+    /** キャッシュ上限数（0以下の時、キャッシュしない） */
+    private final int maxSize;
+    /** キャッシュ [key：SQL文 / value：PreparedStatement]（アクセス順） */
+    private final LinkedHashMap<String, PreparedStatement> cache;
+
+    /** ヒット件数 */
+    private long hitCount = 0;
+    /** ミス件数 */
+    private long missCount = 0;
+
+    /**
+     * コンストラクタ
+     * @param conn コネクション
+     * @param pool 所属プール
+     * @param maxSize キャッシュ上限数
+     */
+    MyStatementCache(Connection conn,
+                     MyConnectionPool pool,
+                     int maxSize) {
+        this.conn = conn;
+        this.pool = pool;
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<String, PreparedStatement> eldest) {
+                if (size() <= MyStatementCache.this.maxSize) {
+                    return false;
+                }
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * PreparedStatementの取得<br>
+     * （キャッシュに存在しない時、生成してキャッシュ）
+     * @param sql SQL文
+     * @return PreparedStatement
+     * @throws SQLException
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = cache.get(sql);
+        if (ps != null) {
+            hitCount++;
+            pool.recordStatementCache(true);
+            return ps;
+        }
+
+        missCount++;
+        pool.recordStatementCache(false);
+        ps = conn.prepareStatement(sql);
+        if (maxSize > 0) {
+            cache.put(sql, ps);
+        }
+        return ps;
+    }
+
+    /**
+     * PreparedStatementの利用終了<br>
+     * （キャッシュ対象外の時、クローズ）
+     * @param sql SQL文
+     * @param ps PreparedStatement
+     */
+    void release(String sql,
+                 PreparedStatement ps) {
+        if (cache.get(sql) != ps) {
+            closeQuietly(ps);
+        }
+    }
+
+    /**
+     * PreparedStatementの破棄<br>
+     * （実行エラー時など、再利用しない場合）
+     * @param sql SQL文
+     */
+    void invalidate(String sql) {
+        PreparedStatement ps = cache.remove(sql);
+        if (ps != null) {
+            closeQuietly(ps);
+        }
+    }
+
+    /**
+     * 全PreparedStatementのクローズ
+     */
+    void clear() {
+        Iterator<PreparedStatement> ite = cache.values().iterator();
+        while (ite.hasNext()) {
+            closeQuietly(ite.next());
+            ite.remove();
+        }
+    }
+
+    /**
+     * キャッシュ件数の取得
+     * @return キャッシュ件数
+     */
+    int size() {
+        return cache.size();
+    }
+
+    /**
+     * ヒット件数の取得
+     * @return ヒット件数
+     */
+    long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * ミス件数の取得
+     * @return ミス件数
+     */
+    long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * PreparedStatementのクローズ（例外は握りつぶす）
+     * @param ps PreparedStatement
+     */
+    private static void closeQuietly(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException e) {
+            // 握りつぶす
+            logger.debug("statement close error", e);
+        }
+    }
+}
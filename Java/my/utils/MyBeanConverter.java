@@ -0,0 +1,568 @@
+package my.utils;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import my.utils.MyBeansUtil.EmptyEnum;
+import my.utils.MyBeansUtil.NullEnum;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Mapからデータ格納クラスへの型変換<br>
+ * （プロパティ毎に、値の型⇒Setterの型の変換処理を初回のみ解決して保持。以降は同じ型の値に再利用。<br>
+ * 直接変換できない型は文字列を経由して変換。変換できない値（数値以外の文字列・範囲外や小数部のある数値等）はnullとして扱い、警告を出力。<br>
+ * 変換処理のない型の値はIllegalArgumentException（MyBeansUtil.copy[格納クラス間]と同じ））
+ * @author 7days
+ */
+final class MyBeanConverter {
+
+    /** Logger */
+    private static final Logger logger = Logger.getLogger(MyBeanConverter.class);
+
+    /** プロパティ情報キャッシュ */
+    private static final ClassValue<Property[]> CACHE = new ClassValue<Property[]>() {
+        @Override
+        protected Property[] computeValue(Class<?> type) {
+            Map<String, Method> setters = MyBeanMetadata.of(type).getSetters();
+            Property[] properties = new Property[setters.size()];
+            int i = 0;
+            for (Entry<String, Method> entry : setters.entrySet()) {
+                properties[i++] = new Property(entry.getKey(), entry.getValue());
+            }
+            return properties;
+        }
+    };
+
+    /** 登録した変換処理 [key：変換後の型 / value：変換処理] */
+    private static final Map<Class<?>, Function<Object, ?>> CONVERTERS = new ConcurrentHashMap<Class<?>, Function<Object, ?>>();
+    /** 変換処理の登録世代（登録時に解決済みの変換処理を破棄） */
+    private static volatile int generation = 0;
+
+    /** 無変換 */
+    private static final Function<Object, Object> IDENTITY = value -> value;
+
+    /** 日付フォーマット [yyyy-MM-dd[ HH:mm[:ss[.S]]]]（「/」「T」区切りは置換して解析） */
+    private static final DateTimeFormatter DATE_TIME = new DateTimeFormatterBuilder().appendPattern("uuuu-MM-dd[ HH:mm[:ss]]")
+                                                                                     .optionalStart()
+                                                                                     .appendFraction(ChronoField.NANO_OF_SECOND, 1, 9, true)
+                                                                                     .toFormatter();
+
+    /**
+     * コンストラクタ
+     */
+    private MyBeanConverter() {
+    }
+
+    /**
+     * プロパティ情報の取得
+     * @param type 格納クラス
+     * @return プロパティ情報（Setter毎）
+     */
+    static Property[] of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * 変換処理の登録<br>
+     * （同じ型は上書き）
+     * @param type 変換後の型
+     * @param converter 変換処理（変換できない時、null）
+     */
+    static synchronized void register(Class<?> type,
+                                      Function<Object, ?> converter) {
+        CONVERTERS.put(MyBeanCopier.wrap(type), converter);
+        generation++;
+    }
+
+    /**
+     * プロパティ情報<br>
+     * （直近の値の型と変換処理を保持）
+     */
+    static final class Property {
+
+        /** プロパティ名 */
+        private final String name;
+        /** Setter関数 */
+        private final BiConsumer<Object, Object> setter;
+        /** Setterの引数の型 */
+        private final Class<?> type;
+        /** 解決済みの変換処理 */
+        private volatile Link link = null;
+
+        /**
+         * コンストラクタ
+         * @param name プロパティ名
+         * @param setter Setter
+         */
+        private Property(String name,
+                         Method setter) {
+            this.name = name;
+            this.setter = MyBeanCopier.toSetter(setter);
+            this.type = setter.getParameterTypes()[0];
+        }
+
+        /**
+         * プロパティ名の取得
+         * @return プロパティ名
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * 値の設定<br>
+         * （型を変換して設定。null・空白の判定は変換前後の値で行い、変換後がnullの時もnullとして判定。<br>
+         * プリミティブ型へのnullは設定しない）
+         * @param bean 格納オブジェクト
+         * @param value 値
+         * @param nullEnum nullのコピー有無
+         * @param emptyEnum 空白のコピー有無
+         * @throws IllegalArgumentException 変換処理のない型の値の時
+         */
+        void set(Object bean,
+                 Object value,
+                 NullEnum nullEnum,
+                 EmptyEnum emptyEnum) {
+            if (!MyBeansUtil.isSetValue(value, nullEnum, emptyEnum)) {
+                return;
+            }
+            Object converted = null;
+            if (value != null) {
+                Function<Object, Object> converter = converterOf(value.getClass());
+                if (converter == null) {
+                    throw new IllegalArgumentException("argument type mismatch : " + name + " " + value.getClass().getSimpleName() + " ⇒ "
+                                                       + type.getSimpleName());
+                }
+                converted = converter.apply(value);
+                if (converted == null && !value.toString().trim().isEmpty()) {
+                    logger.warn("convert error : " + name + " \"" + value + "\" ⇒ " + type.getSimpleName());
+                }
+            }
+            if (converted == null && (type.isPrimitive() || nullEnum == NullEnum.Exclude)) {
+                return;
+            }
+            setter.accept(bean, converted);
+        }
+
+        /**
+         * 変換処理の取得<br>
+         * （値の型が前回と異なる時のみ解決）
+         * @param from 値の型
+         * @return 変換処理（変換できない時、null）
+         */
+        private Function<Object, Object> converterOf(Class<?> from) {
+            Link current = link;
+            if (current == null || current.from != from || current.generation != generation) {
+                int gen = generation;
+                current = new Link(from, gen, resolve(from, type));
+                link = current;
+            }
+            return current.converter;
+        }
+    }
+
+    /**
+     * 解決済みの変換処理
+     */
+    private static final class Link {
+
+        /** 値の型 */
+        private final Class<?> from;
+        /** 登録世代 */
+        private final int generation;
+        /** 変換処理（変換できない時、null） */
+        private final Function<Object, Object> converter;
+
+        /**
+         * コンストラクタ
+         * @param from 値の型
+         * @param generation 登録世代
+         * @param converter 変換処理
+         */
+        private Link(Class<?> from,
+                     int generation,
+                     Function<Object, Object> converter) {
+            this.from = from;
+            this.generation = generation;
+            this.converter = converter;
+        }
+    }
+
+    /**
+     * 変換処理の解決<br>
+     * （代入可能 ⇒ 登録した変換処理 ⇒ 標準の変換処理 ⇒ 文字列を経由した標準の変換処理 の順）
+     * @param from 値の型
+     * @param to 変換後の型
+     * @return 変換処理（変換できない時、null）
+     */
+    @SuppressWarnings("unchecked")
+    static Function<Object, Object> resolve(Class<?> from,
+                                            Class<?> to) {
+        Class<?> type = MyBeanCopier.wrap(to);
+        if (type.isAssignableFrom(from)) {
+            return IDENTITY;
+        }
+        Function<Object, ?> custom = CONVERTERS.get(type);
+        if (custom != null) {
+            return (Function<Object, Object>) custom;
+        }
+        Function<Object, Object> converter = standard(from, type);
+        if (converter == null && from != String.class) {
+            Function<Object, Object> fromString = standard(String.class, type);
+            if (fromString != null) {
+                converter = value -> fromString.apply(value.toString());
+            }
+        }
+        return converter;
+    }
+
+    /**
+     * 標準の変換処理
+     * @param from 値の型
+     * @param type 変換後の型（ラッパー型）
+     * @return 変換処理（変換できない時、null）
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Function<Object, Object> standard(Class<?> from,
+                                                     Class<?> type) {
+        if (type == String.class) {
+            return Object::toString;
+        }
+
+        boolean string = from == String.class;
+        boolean number = Number.class.isAssignableFrom(from);
+        if (type == Integer.class) {
+            return string ? value -> toInteger((String) value) : number ? value -> toInteger((Number) value) : null;
+        }
+        if (type == Long.class) {
+            return string ? value -> parseLong((String) value) : number ? value -> toLong((Number) value) : null;
+        }
+        if (type == Short.class) {
+            return string ? value -> toShort((String) value) : number ? value -> toShort((Number) value) : null;
+        }
+        if (type == Byte.class) {
+            return string ? value -> toByte((String) value) : number ? value -> toByte((Number) value) : null;
+        }
+        if (type == Double.class) {
+            return string ? value -> isDecimal((String) value) ? Double.valueOf(((String) value).trim()) : null
+                          : number ? value -> ((Number) value).doubleValue() : null;
+        }
+        if (type == Float.class) {
+            return string ? value -> isDecimal((String) value) ? Float.valueOf(((String) value).trim()) : null
+                          : number ? value -> toFloat((Number) value) : null;
+        }
+        if (type == BigDecimal.class) {
+            return string ? value -> isDecimal((String) value) ? new BigDecimal(((String) value).trim()) : null : null;
+        }
+        if (type == Boolean.class) {
+            return string ? value -> toBoolean((String) value) : null;
+        }
+        if (type == Character.class) {
+            return string ? value -> ((String) value).length() == 1 ? ((String) value).charAt(0) : null : null;
+        }
+        if (type.isEnum()) {
+            if (!string) {
+                return null;
+            }
+            Map<String, Object> constants = new HashMap<String, Object>();
+            for (Enum constant : ((Class<Enum>) type).getEnumConstants()) {
+                constants.put(constant.name(), constant);
+            }
+            return value -> constants.get(((String) value).trim());
+        }
+
+        // 日付は日時を経由して変換
+        Function<Object, LocalDateTime> source = toDateTime(from);
+        if (source == null) {
+            return null;
+        }
+        Function<LocalDateTime, Object> target;
+        if (type == LocalDateTime.class) {
+            target = dateTime -> dateTime;
+        } else if (type == LocalDate.class) {
+            target = LocalDateTime::toLocalDate;
+        } else if (type == Timestamp.class) {
+            target = Timestamp::valueOf;
+        } else if (type == java.sql.Date.class) {
+            target = dateTime -> java.sql.Date.valueOf(dateTime.toLocalDate());
+        } else if (type == Date.class) {
+            target = dateTime -> new Date(Timestamp.valueOf(dateTime).getTime());
+        } else {
+            return null;
+        }
+        return value -> {
+            LocalDateTime dateTime = source.apply(value);
+            return dateTime == null ? null : target.apply(dateTime);
+        };
+    }
+
+    /**
+     * 日時への変換処理
+     * @param from 値の型
+     * @return 変換処理（日付以外の型の時、null）
+     */
+    private static Function<Object, LocalDateTime> toDateTime(Class<?> from) {
+        if (from == String.class) {
+            return value -> parseDateTime((String) value);
+        }
+        if (Date.class.isAssignableFrom(from)) {
+            // java.sql.DateはtoInstant未対応のため、Timestampを経由
+            return value -> new Timestamp(((Date) value).getTime()).toLocalDateTime();
+        }
+        if (from == LocalDate.class) {
+            return value -> ((LocalDate) value).atStartOfDay();
+        }
+        if (from == LocalDateTime.class) {
+            return value -> (LocalDateTime) value;
+        }
+        return null;
+    }
+
+    /**
+     * 日時の解析<br>
+     * （yyyyMMdd or yyyy/MM/dd or yyyy-MM-dd 時刻は「 」「T」区切りで任意）
+     * @param str 文字列
+     * @return 日時（日時でない時、null）
+     */
+    static LocalDateTime parseDateTime(String str) {
+        String s = str.trim();
+        try {
+            if (s.length() == 8 && parseLong(s) != null) {
+                return LocalDate.parse(s, DateTimeFormatter.BASIC_ISO_DATE).atStartOfDay();
+            }
+            TemporalAccessor parsed = DATE_TIME.parse(s.replace('/', '-').replace('T', ' '));
+            LocalDate date = LocalDate.from(parsed);
+            return parsed.isSupported(ChronoField.HOUR_OF_DAY) ? LocalDateTime.of(date, LocalTime.from(parsed))
+                            : date.atStartOfDay();
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 整数の解析<br>
+     * （例外を発生させずに解析。前後の空白は除去）
+     * @param str 文字列
+     * @return 値（整数でない・範囲外の時、null）
+     */
+    static Long parseLong(String str) {
+        String s = str.trim();
+        int len = s.length();
+        if (len == 0) {
+            return null;
+        }
+        int i = 0;
+        boolean negative = false;
+        char first = s.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == len) {
+                return null;
+            }
+        }
+
+        // 負数で累積（Long.MIN_VALUEまで表現するため）
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long result = 0;
+        for (; i < len; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multmin) {
+                return null;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return null;
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * 数値の判定<br>
+     * （符号・小数点・指数を許可。前後の空白は除去）
+     * @param str 文字列
+     * @return 結果 [true:数値 false:数値以外]
+     */
+    static boolean isDecimal(String str) {
+        String s = str.trim();
+        int len = s.length();
+        int i = 0;
+        if (i < len && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            i++;
+        }
+        boolean digits = false;
+        boolean point = false;
+        for (; i < len; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!digits) {
+            return false;
+        }
+        if (i < len && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            if (++i < len && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                i++;
+            }
+            int begin = i;
+            while (i < len && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+                i++;
+            }
+            if (i == begin) {
+                return false;
+            }
+        }
+        return i == len;
+    }
+
+    /**
+     * Integerへの変換
+     * @param str 文字列
+     * @return 値（整数でない・範囲外の時、null）
+     */
+    private static Integer toInteger(String str) {
+        Long value = parseLong(str);
+        return (value == null || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) ? null : value.intValue();
+    }
+
+    /**
+     * Shortへの変換
+     * @param str 文字列
+     * @return 値（整数でない・範囲外の時、null）
+     */
+    private static Short toShort(String str) {
+        Long value = parseLong(str);
+        return (value == null || value < Short.MIN_VALUE || value > Short.MAX_VALUE) ? null : value.shortValue();
+    }
+
+    /**
+     * Byteへの変換
+     * @param str 文字列
+     * @return 値（整数でない・範囲外の時、null）
+     */
+    private static Byte toByte(String str) {
+        Long value = parseLong(str);
+        return (value == null || value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) ? null : value.byteValue();
+    }
+
+    /**
+     * 数値からLongへの変換（切り捨て・桁あふれをしない）
+     * @param number 数値
+     * @return 値（小数部がある・範囲外の時、null）
+     */
+    private static Long toLong(Number number) {
+        if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            return number.longValue();
+        }
+        BigDecimal value = toBigDecimal(number);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return value.longValueExact();
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 数値からIntegerへの変換（切り捨て・桁あふれをしない）
+     * @param number 数値
+     * @return 値（小数部がある・範囲外の時、null）
+     */
+    private static Integer toInteger(Number number) {
+        Long value = toLong(number);
+        return (value == null || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) ? null : value.intValue();
+    }
+
+    /**
+     * 数値からShortへの変換（切り捨て・桁あふれをしない）
+     * @param number 数値
+     * @return 値（小数部がある・範囲外の時、null）
+     */
+    private static Short toShort(Number number) {
+        Long value = toLong(number);
+        return (value == null || value < Short.MIN_VALUE || value > Short.MAX_VALUE) ? null : value.shortValue();
+    }
+
+    /**
+     * 数値からByteへの変換（切り捨て・桁あふれをしない）
+     * @param number 数値
+     * @return 値（小数部がある・範囲外の時、null）
+     */
+    private static Byte toByte(Number number) {
+        Long value = toLong(number);
+        return (value == null || value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) ? null : value.byteValue();
+    }
+
+    /**
+     * 数値からFloatへの変換（桁あふれをしない）
+     * @param number 数値
+     * @return 値（範囲外の時、null）
+     */
+    private static Float toFloat(Number number) {
+        float value = number.floatValue();
+        return Float.isInfinite(value) && !Double.isInfinite(number.doubleValue()) ? null : value;
+    }
+
+    /**
+     * 数値からBigDecimalへの変換
+     * @param number 数値
+     * @return 値（NaN・無限大・数値表現でない時、null）
+     */
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+        if (number instanceof Double || number instanceof Float) {
+            double d = number.doubleValue();
+            return Double.isNaN(d) || Double.isInfinite(d) ? null : new BigDecimal(number.toString());
+        }
+        try {
+            return new BigDecimal(number.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Booleanへの変換<br>
+     * （true/1 ⇒ true false/0 ⇒ false 大文字小文字は区別しない）
+     * @param str 文字列
+     * @return 値（それ以外の時、null）
+     */
+    private static Boolean toBoolean(String str) {
+        String s = str.trim();
+        if ("1".equals(s) || "true".equalsIgnoreCase(s)) {
+            return Boolean.TRUE;
+        }
+        if ("0".equals(s) || "false".equalsIgnoreCase(s)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,391 @@
+package my.utils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import my.utils.MyBeansUtil.EmptyEnum;
+import my.utils.MyBeansUtil.NullEnum;
+
+import org.apache.log4j.Logger;
+
+/**
+ * データ格納クラス間のコピー処理<br>
+ * （値を渡すクラスと受け取るクラスの組み合わせ毎に、同名プロパティのGetter⇒Setterを初回のみ解決。<br>
+ * 公開メソッドはLambdaMetafactoryで生成した関数で呼び出し（JITによるインライン化が可能）。<br>
+ * それ以外[非公開クラス等]はMethodHandleを保持する関数で呼び出し（定数でないためインライン化されず、リフレクション程度の速度）。<br>
+ * Setterがプリミティブ型の時は拡大変換（int⇒long等）してコピー。<br>
+ * 型に互換性がないプロパティは、値がある時にIllegalArgumentException（Method.invokeと同じ））
+ * @author 7days
+ */
+final class MyBeanCopier {
+
+    /** Logger */
+    private static final Logger logger = Logger.getLogger(MyBeanCopier.class);
+
+    /** コピー処理キャッシュ [値を渡すクラス ⇒ [値を受け取るクラス ⇒ コピー処理]]（両クラスとも強参照で保持しない） */
+    private static final ClassValue<ClassValue<MyBeanCopier>> CACHE = new ClassValue<ClassValue<MyBeanCopier>>() {
+        @Override
+        protected ClassValue<MyBeanCopier> computeValue(Class<?> passingClass) {
+            return new ClassValue<MyBeanCopier>() {
+                @Override
+                protected MyBeanCopier computeValue(Class<?> receiveClass) {
+                    return new MyBeanCopier(passingClass, receiveClass);
+                }
+            };
+        }
+    };
+
+    /** コンストラクタ関数キャッシュ */
+    private static final ClassValue<Supplier<Object>> CONSTRUCTORS = new ClassValue<Supplier<Object>>() {
+        @Override
+        protected Supplier<Object> computeValue(Class<?> type) {
+            return toConstructor(type);
+        }
+    };
+
+    /** Lookup */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /** 拡大変換の順（狭い型から） */
+    private static final List<Class<?>> WIDENING = Arrays.asList(Byte.class,
+                                                                 Short.class,
+                                                                 Integer.class,
+                                                                 Long.class,
+                                                                 Float.class,
+                                                                 Double.class);
+
+    /** Getter */
+    private final Function<Object, Object>[] getters;
+    /** Setter */
+    private final BiConsumer<Object, Object>[] setters;
+    /** Setterの引数がプリミティブ型（nullは設定しない） */
+    private final boolean[] primitives;
+
+    /**
+     * コンストラクタ<br>
+     * （同名プロパティのGetter⇒Setterを解決）
+     * @param passingClass 値を渡すクラス
+     * @param receiveClass 値を受け取るクラス
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private MyBeanCopier(Class<?> passingClass,
+                         Class<?> receiveClass) {
+        Map<String, Method> setterMap = MyBeanMetadata.of(receiveClass).getSetters();
+        List<Function<Object, Object>> getterList = new ArrayList<Function<Object, Object>>();
+        List<BiConsumer<Object, Object>> setterList = new ArrayList<BiConsumer<Object, Object>>();
+        List<Boolean> primitiveList = new ArrayList<Boolean>();
+        for (Entry<String, Method> entry : MyBeanMetadata.of(passingClass).getGetters().entrySet()) {
+            Method getter = entry.getValue();
+            Method setter = setterMap.get(entry.getKey());
+            if (setter == null) {
+                continue;
+            }
+            Class<?> from = wrap(getter.getReturnType());
+            Class<?> type = setter.getParameterTypes()[0];
+            Class<?> to = wrap(type);
+            Function<Object, Object> getterFunction = toGetter(getter);
+            BiConsumer<Object, Object> setterFunction = toSetter(setter);
+            if (!to.isAssignableFrom(from) && !from.isAssignableFrom(to)) {
+                if (type.isPrimitive() && isWidening(from, type)) {
+                    // プリミティブ型の拡大変換
+                    Function<Object, Object> source = getterFunction;
+                    getterFunction = bean -> widen(source.apply(bean), type);
+                } else {
+                    // 互換性がない型（nullのみ設定可能）
+                    String message = "argument type mismatch : " + passingClass.getSimpleName() + "." + entry.getKey() + " "
+                                     + from.getSimpleName() + " ⇒ " + receiveClass.getSimpleName() + "." + entry.getKey() + " "
+                                     + type.getSimpleName();
+                    logger.debug(message);
+                    BiConsumer<Object, Object> target = setterFunction;
+                    setterFunction = (bean, value) -> {
+                        if (value != null) {
+                            throw new IllegalArgumentException(message);
+                        }
+                        target.accept(bean, null);
+                    };
+                }
+            }
+            getterList.add(getterFunction);
+            setterList.add(setterFunction);
+            primitiveList.add(type.isPrimitive());
+        }
+
+        int size = getterList.size();
+        this.getters = getterList.toArray(new Function[size]);
+        this.setters = setterList.toArray(new BiConsumer[size]);
+        this.primitives = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            primitives[i] = primitiveList.get(i);
+        }
+    }
+
+    /**
+     * コピー処理の取得
+     * @param passingClass 値を渡すクラス
+     * @param receiveClass 値を受け取るクラス
+     * @return コピー処理
+     */
+    static MyBeanCopier of(Class<?> passingClass,
+                           Class<?> receiveClass) {
+        return CACHE.get(passingClass).get(receiveClass);
+    }
+
+    /**
+     * コンストラクタ関数の取得<br>
+     * （引数なしコンストラクタ）
+     * @param type 格納クラス
+     * @return コンストラクタ関数
+     */
+    static Supplier<Object> constructorOf(Class<?> type) {
+        return CONSTRUCTORS.get(type);
+    }
+
+    /**
+     * コピー
+     * @param passingBean 値を渡す格納オブジェクト
+     * @param receiveBean 値を受け取る格納オブジェクト
+     * @param nullEnum nullのコピー有無
+     * @param emptyEnum 空白のコピー有無
+     */
+    void copy(Object passingBean,
+              Object receiveBean,
+              NullEnum nullEnum,
+              EmptyEnum emptyEnum) {
+        for (int i = 0; i < getters.length; i++) {
+            Object value = getters[i].apply(passingBean);
+            if (value == null && primitives[i]) {
+                continue;
+            }
+            if (MyBeansUtil.isSetValue(value, nullEnum, emptyEnum)) {
+                setters[i].accept(receiveBean, value);
+            }
+        }
+    }
+
+    /**
+     * コンストラクタ関数の生成
+     * @param type 格納クラス
+     * @return コンストラクタ関数
+     */
+    private static Supplier<Object> toConstructor(Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            boolean linkable = Modifier.isPublic(constructor.getModifiers()) && isVisible(type);
+            if (!linkable) {
+                constructor.setAccessible(true);
+            }
+            MethodHandle handle = LOOKUP.unreflectConstructor(constructor);
+            if (linkable) {
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP,
+                                                              "get",
+                                                              MethodType.methodType(Supplier.class),
+                                                              MethodType.methodType(Object.class),
+                                                              handle,
+                                                              MethodType.methodType(type));
+                @SuppressWarnings("unchecked")
+                Supplier<Object> supplier = (Supplier<Object>) site.getTarget().invokeExact();
+                return supplier;
+            }
+            MethodHandle generic = handle.asType(MethodType.methodType(Object.class));
+            return () -> {
+                try {
+                    return generic.invokeExact();
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        } catch (Throwable e) {
+            throw new IllegalStateException("constructor link error : " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Getter関数の生成
+     * @param method Getter
+     * @return Getter関数
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> toGetter(Method method) {
+        try {
+            MethodHandle handle = LOOKUP.unreflect(method);
+            if (isLinkable(method)) {
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP,
+                                                              "apply",
+                                                              MethodType.methodType(Function.class),
+                                                              MethodType.methodType(Object.class, Object.class),
+                                                              handle,
+                                                              MethodType.methodType(Object.class, method.getDeclaringClass()));
+                return (Function<Object, Object>) site.getTarget().invokeExact();
+            }
+            MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+            return bean -> {
+                try {
+                    return generic.invokeExact(bean);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        } catch (Throwable e) {
+            throw new IllegalStateException("getter link error : " + method, e);
+        }
+    }
+
+    /**
+     * Setter関数の生成
+     * @param method Setter
+     * @return Setter関数
+     */
+    @SuppressWarnings("unchecked")
+    static BiConsumer<Object, Object> toSetter(Method method) {
+        try {
+            MethodHandle handle = LOOKUP.unreflect(method);
+            if (isLinkable(method)) {
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP,
+                                                              "accept",
+                                                              MethodType.methodType(BiConsumer.class),
+                                                              MethodType.methodType(void.class, Object.class, Object.class),
+                                                              handle,
+                                                              MethodType.methodType(void.class,
+                                                                                    method.getDeclaringClass(),
+                                                                                    wrap(method.getParameterTypes()[0])));
+                return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+            }
+            MethodHandle generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (bean, value) -> {
+                try {
+                    generic.invokeExact(bean, value);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        } catch (Throwable e) {
+            throw new IllegalStateException("setter link error : " + method, e);
+        }
+    }
+
+    /**
+     * LambdaMetafactoryによる生成可否<br>
+     * （生成したクラスは本クラスの権限・クラスローダーで解決するため、公開かつ参照可能な型のみ）
+     * @param method メソッド
+     * @return 結果 [true:生成可 false:生成不可]
+     */
+    private static boolean isLinkable(Method method) {
+        if (!Modifier.isPublic(method.getModifiers()) || !isVisible(method.getDeclaringClass())
+            || !isVisible(method.getReturnType())) {
+            return false;
+        }
+        for (Class<?> type : method.getParameterTypes()) {
+            if (!isVisible(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 型の参照可否（公開・本クラスのクラスローダーから同一の型を参照可能）
+     * @param type 型
+     * @return 結果 [true:参照可 false:参照不可]
+     */
+    private static boolean isVisible(Class<?> type) {
+        Class<?> c = type;
+        while (c.isArray()) {
+            c = c.getComponentType();
+        }
+        if (c.isPrimitive()) {
+            return true;
+        }
+        for (Class<?> outer = c; outer != null; outer = outer.getEnclosingClass()) {
+            if (!Modifier.isPublic(outer.getModifiers())) {
+                return false;
+            }
+        }
+        try {
+            return Class.forName(c.getName(), false, MyBeanCopier.class.getClassLoader()) == c;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * プリミティブ型の拡大変換の可否<br>
+     * （byte⇒short⇒int⇒long⇒float⇒double の順に広い型へ。char⇒int以降）
+     * @param from 値の型（ラッパー型）
+     * @param to Setterの型（プリミティブ型）
+     * @return 結果 [true:拡大変換 false:変換不可]
+     */
+    static boolean isWidening(Class<?> from,
+                              Class<?> to) {
+        int toRank = WIDENING.indexOf(wrap(to));
+        int fromRank = from == Character.class ? WIDENING.indexOf(Short.class) : WIDENING.indexOf(from);
+        return fromRank >= 0 && toRank > fromRank;
+    }
+
+    /**
+     * プリミティブ型の拡大変換
+     * @param value 値（数値・文字 nullの時、null）
+     * @param to Setterの型（プリミティブ型）
+     * @return 変換後の値（ラッパー型）
+     */
+    static Object widen(Object value,
+                        Class<?> to) {
+        if (value == null) {
+            return null;
+        }
+        Number number = value instanceof Character ? Integer.valueOf((Character) value) : (Number) value;
+        if (to == short.class) {
+            return number.shortValue();
+        }
+        if (to == int.class) {
+            return number.intValue();
+        }
+        if (to == long.class) {
+            return number.longValue();
+        }
+        if (to == float.class) {
+            return number.floatValue();
+        }
+        return number.doubleValue();
+    }
+
+    /**
+     * ラッパー型の取得
+     * @param type 型
+     * @return ラッパー型（プリミティブ型以外はそのまま）
+     */
+    static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    /**
+     * 例外の再送出（非チェック例外はそのまま、チェック例外はラップ）
+     * @param e 例外
+     * @return 非チェック例外
+     */
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+}
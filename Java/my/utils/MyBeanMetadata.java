@@ -0,0 +1,101 @@
+package my.utils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * データ格納クラスのプロパティ情報<br>
+ * （Getter・Setterをプロパティ名毎に解決し、クラス毎にClassValueでキャッシュ。<br>
+ * 継承クラス（Objectを除く）のメソッドを含み、サブクラスの定義を優先。<br>
+ * ClassValueはクラスに紐付けて保持するため、クラスローダーの破棄を妨げない）
+ * @author 7days
+ */
+final class MyBeanMetadata {
+
+    /** プロパティ情報キャッシュ */
+    private static final ClassValue<MyBeanMetadata> CACHE = new ClassValue<MyBeanMetadata>() {
+        @Override
+        protected MyBeanMetadata computeValue(Class<?> type) {
+            return new MyBeanMetadata(type);
+        }
+    };
+
+    /** Getter [key：プロパティ名 / value：Getter]（get/is 引数なし） */
+    private final Map<String, Method> getters;
+    /** Setter [key：プロパティ名 / value：Setter]（set 引数１つ） */
+    private final Map<String, Method> setters;
+
+    /**
+     * コンストラクタ<br>
+     * （サブクラスから順にメソッドを走査）
+     * @param type 格納クラス
+     */
+    private MyBeanMetadata(Class<?> type) {
+        Map<String, Method> getterMap = new LinkedHashMap<String, Method>();
+        Map<String, Method> setterMap = new LinkedHashMap<String, Method>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                if (Modifier.isStatic(method.getModifiers()) || method.isBridge() || method.isSynthetic()) {
+                    continue;
+                }
+                String methodNm = method.getName();
+                String body = MyBeansUtil.headRemove(methodNm);
+                if (body.isEmpty() || body.length() == methodNm.length()) {
+                    continue;
+                }
+                String key = MyBeansUtil.topLower(body);
+                if (methodNm.startsWith(MyBeansUtil.SET)) {
+                    if (method.getParameterCount() == 1 && !setterMap.containsKey(key)) {
+                        setterMap.put(key, accessible(method));
+                    }
+                } else if (method.getParameterCount() == 0 && method.getReturnType() != void.class && !getterMap.containsKey(key)) {
+                    getterMap.put(key, accessible(method));
+                }
+            }
+        }
+        this.getters = Collections.unmodifiableMap(getterMap);
+        this.setters = Collections.unmodifiableMap(setterMap);
+    }
+
+    /**
+     * プロパティ情報の取得
+     * @param type 格納クラス
+     * @return プロパティ情報
+     */
+    static MyBeanMetadata of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * Getterの取得
+     * @return Getter [key：プロパティ名 / value：Getter]
+     */
+    Map<String, Method> getGetters() {
+        return getters;
+    }
+
+    /**
+     * Setterの取得
+     * @return Setter [key：プロパティ名 / value：Setter]
+     */
+    Map<String, Method> getSetters() {
+        return setters;
+    }
+
+    /**
+     * アクセス制限の解除（非公開クラスのメソッド用 解除できない時はそのまま）
+     * @param method メソッド
+     * @return メソッド
+     */
+    private static Method accessible(Method method) {
+        try {
+            method.setAccessible(true);
+        } catch (RuntimeException e) {
+            // 解除できない時は呼び出し時にエラー
+        }
+        return method;
+    }
+}
@@ -1,11 +1,20 @@
 package my.utils;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.RandomAccess;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * データ格納操作の共通クラス<br>
+ * （プロパティ情報はクラス毎にキャッシュ。継承クラスのプロパティを含む）
  * @author 7days
  */
 public class MyBeansUtil {
@@ -17,6 +26,9 @@ public class MyBeansUtil {
     /** Setterメソッド */
     protected static final String SET = "set";
 
+    /** 一覧のコピーを並列実行する最小件数 */
+    private static final int PARALLEL_THRESHOLD = 10000;
+
     /** Null対象有無 */
     public static enum NullEnum {
         /** コピー除外 */
@@ -35,7 +47,7 @@ public class MyBeansUtil {
 
     /**
      * データ格納オブジェクトから別のデータ格納オブジェクトへ値をコピー<br>
-     * （継承クラスはコピーしない）
+     * （継承クラスのプロパティを含む）
      * @param <T>
      * @param passingBean 値を渡す格納オブジェクト
      * @param receiveClass 値を受け取る格納クラス
@@ -49,7 +61,7 @@ public class MyBeansUtil {
 
     /**
      * データ格納オブジェクトから別のデータ格納オブジェクトへ値をコピー<br>
-     * （継承クラスはコピーしない）
+     * （継承クラスのプロパティを含む）
      * @param <T>
      * @param passingBean 値を渡す格納オブジェクト
      * @param receiveClass 値を受け取る格納クラス
@@ -62,14 +74,79 @@ public class MyBeansUtil {
                                       Class<T> receiveClass,
                                       NullEnum nullEnum,
                                       EmptyEnum emptyEnum) throws Exception {
-        T receiveBean = receiveClass.newInstance();
+        T receiveBean = receiveClass.cast(MyBeanCopier.constructorOf(receiveClass).get());
         copy(passingBean, receiveBean, nullEnum, emptyEnum);
         return receiveBean;
     }
 
+    /**
+     * データ格納オブジェクトの一覧から別のデータ格納オブジェクトの一覧を生成<br>
+     * （継承クラスのプロパティを含む）
+     * @param <T>
+     * @param passingBeans 値を渡す格納オブジェクトの一覧
+     * @param receiveClass 値を受け取る格納クラス
+     * @return receiveBeans 新規格納Beanの一覧（一覧の順。nullの要素はnull）
+     * @throws Exception
+     */
+    public static <T> List<T> copyAll(Collection<?> passingBeans,
+                                      Class<T> receiveClass) throws Exception {
+        return copyAll(passingBeans, receiveClass, NullEnum.Target, EmptyEnum.Target, false);
+    }
+
+    /**
+     * データ格納オブジェクトの一覧から別のデータ格納オブジェクトの一覧を生成<br>
+     * （コピー処理・コンストラクタは最初に解決し、全件で再利用。<br>
+     * 並列指定かつ件数が多い時、共通のForkJoinPoolで分割して並列実行（一覧の順は維持））
+     * @param <T>
+     * @param passingBeans 値を渡す格納オブジェクトの一覧
+     * @param receiveClass 値を受け取る格納クラス
+     * @param nullEnum nullのコピー有無
+     * @param emptyEnum 空白のコピー有無
+     * @param parallel 並列実行有無
+     * @return receiveBeans 新規格納Beanの一覧（一覧の順。nullの要素はnull）
+     * @throws Exception
+     */
+    public static <T> List<T> copyAll(Collection<?> passingBeans,
+                                      Class<T> receiveClass,
+                                      NullEnum nullEnum,
+                                      EmptyEnum emptyEnum,
+                                      boolean parallel) throws Exception {
+        Supplier<Object> constructor = MyBeanCopier.constructorOf(receiveClass);
+        if (parallel && passingBeans.size() >= PARALLEL_THRESHOLD) {
+            List<?> list = (passingBeans instanceof List && passingBeans instanceof RandomAccess) ? (List<?>) passingBeans
+                            : new ArrayList<Object>(passingBeans);
+            return list.parallelStream().map(passingBean -> {
+                if (passingBean == null) {
+                    return null;
+                }
+                T receiveBean = receiveClass.cast(constructor.get());
+                MyBeanCopier.of(passingBean.getClass(), receiveClass).copy(passingBean, receiveBean, nullEnum, emptyEnum);
+                return receiveBean;
+            }).collect(Collectors.toList());
+        }
+
+        List<T> receiveBeans = new ArrayList<T>(passingBeans.size());
+        Class<?> passingClass = null;
+        MyBeanCopier copier = null;
+        for (Object passingBean : passingBeans) {
+            if (passingBean == null) {
+                receiveBeans.add(null);
+                continue;
+            }
+            if (passingBean.getClass() != passingClass) {
+                passingClass = passingBean.getClass();
+                copier = MyBeanCopier.of(passingClass, receiveClass);
+            }
+            T receiveBean = receiveClass.cast(constructor.get());
+            copier.copy(passingBean, receiveBean, nullEnum, emptyEnum);
+            receiveBeans.add(receiveBean);
+        }
+        return receiveBeans;
+    }
+
     /**
      * データ格納オブジェクトから別のデータ格納オブジェクトへ値をコピー<br>
-     * （継承クラスはコピーしない）
+     * （継承クラスのプロパティを含む）
      * @param passingBean 値を渡す格納オブジェクト
      * @param receiveBean 値を受け取る格納オブジェクト
      * @throws Exception
@@ -81,7 +158,8 @@ public class MyBeansUtil {
 
     /**
      * データ格納オブジェクトから別のデータ格納オブジェクトへ値をコピー<br>
-     * （継承クラスはコピーしない）
+     * （継承クラスのプロパティを含む。プリミティブ型へは拡大変換[int⇒long等]してコピーし、nullはコピーしない。<br>
+     * 型に互換性がないプロパティは、値がある時にIllegalArgumentException）
      * @param passingBean 値を渡す格納オブジェクト
      * @param receiveBean 値を受け取る格納オブジェクト
      * @param nullEnum nullのコピー有無
@@ -93,38 +171,13 @@ public class MyBeansUtil {
                             NullEnum nullEnum,
                             EmptyEnum emptyEnum) throws Exception {
 
-        // 値を受け取るbeanの全てのメソッドを取得（継承クラスのメソッドを除く）
-        Map<String, Method> receiveMethodMap = new HashMap<String, Method>();
-        for (Method method : receiveBean.getClass().getDeclaredMethods()) {
-            receiveMethodMap.put(method.getName(), method);
-        }
-
-        // 値を渡すbeanの全てのメソッドを取得（継承クラスのメソッドを除く）
-        Method[] passingMethodList = passingBean.getClass().getDeclaredMethods();
-
-        // get/is ⇒ set に対応して値を設定
-        for (Method passingMethod : passingMethodList) {
-            String passingMethodNm = passingMethod.getName();
-            if (passingMethodNm.startsWith(GET) || passingMethodNm.startsWith(IS)) {
-                String passingBody = headRemove(passingMethodNm);
-                String receiveMethodNm = SET + passingBody;
-                if (receiveMethodMap.containsKey(receiveMethodNm)) {
-                    Method receiveMethod = receiveMethodMap.get(receiveMethodNm);
-
-                    // 値を渡すbeanから値を取得
-                    Object value = passingMethod.invoke(passingBean);
-                    if (isSetValue(value, nullEnum, emptyEnum)) {
-                        // 値を受け取るbeanに値を渡す
-                        receiveMethod.invoke(receiveBean, value);
-                    }
-                }
-            }
-        }
+        // get/is ⇒ set に対応して値を設定（クラスの組み合わせ毎に生成したコピー処理）
+        MyBeanCopier.of(passingBean.getClass(), receiveBean.getClass()).copy(passingBean, receiveBean, nullEnum, emptyEnum);
     }
 
     /**
      * Mapから別のデータ格納オブジェクトへ値をコピー<br>
-     * （継承クラスはコピーしない）
+     * （継承クラスのプロパティを含む）
      * @param passingMap 値を渡すMap
      * @param receiveBean 値を受け取る格納オブジェクト
      * @throws Exception
@@ -136,7 +189,9 @@ public class MyBeansUtil {
 
     /**
      * Mapから別のデータ格納オブジェクトへ値をコピー<br>
-     * （継承クラスはコピーしない）
+     * （継承クラスのプロパティを含む。値はSetterの型へ変換（文字列⇒数値・日付等）。<br>
+     * 変換処理はプロパティ毎に初回のみ解決。変換できない値[範囲外・小数部のある数値⇒整数等]はnull[警告を出力]として判定し、<br>
+     * プリミティブ型へのnullはコピーしない。変換処理のない型の値はIllegalArgumentException）
      * @param passingMap 値を渡すMap
      * @param receiveBean 値を受け取る格納オブジェクト
      * @param nullEnum nullのコピー有無
@@ -148,26 +203,31 @@ public class MyBeansUtil {
                             NullEnum nullEnum,
                             EmptyEnum emptyEnum) throws Exception {
 
-        // 値を渡すbeanの全てのメソッドを取得（継承クラスのメソッドを除く）
-        Method[] receiveMethodList = receiveBean.getClass().getDeclaredMethods();
-
-        for (Method receiveMethod : receiveMethodList) {
-            String receiveMethodNm = receiveMethod.getName();
-            if (receiveMethodNm.startsWith(SET)) {
-                String key = topLower(headRemove(receiveMethodNm));
-                if (passingMap.containsKey(key)) {
-                    Object value = passingMap.get(key);
-                    if (isSetValue(value, nullEnum, emptyEnum)) {
-                        receiveMethod.invoke(receiveBean, value);
-                    }
-                }
+        // 値を受け取るbeanのSetter（キャッシュ）
+        for (MyBeanConverter.Property property : MyBeanConverter.of(receiveBean.getClass())) {
+            String key = property.getName();
+            if (passingMap.containsKey(key)) {
+                property.set(receiveBean, passingMap.get(key), nullEnum, emptyEnum);
             }
         }
     }
 
+    /**
+     * Mapからのコピーで使用する変換処理を登録<br>
+     * （値の型がSetterの型に代入できない時、標準の変換処理より優先して使用。同じ型は上書き）<br>
+     * 例）MyBeansUtil.registerConverter(YearMonth.class, value -&gt; YearMonth.parse(value.toString()));
+     * @param <T>
+     * @param type 変換後の型
+     * @param converter 変換処理（変換できない時、nullを返却）
+     */
+    public static <T> void registerConverter(Class<T> type,
+                                             Function<Object, ? extends T> converter) {
+        MyBeanConverter.register(type, converter);
+    }
+
     /**
      * BeanからMap情報を取得する。<br>
-     * （継承クラスの値は取得しない）
+     * （継承クラスの値を含む）
      * @param bean
      * @return Map [key：get/isを除いたメソッド名 / value：値]
      * @throws Exception
@@ -175,15 +235,9 @@ public class MyBeansUtil {
     public static Map<String, Object> getBeanMap(Object bean) throws Exception {
         Map<String, Object> map = new HashMap<String, Object>();
 
-        // 値を受け取るbeanの全てのメソッドを取得（継承クラスのメソッドを除く）
-        Method[] methodList = bean.getClass().getDeclaredMethods();
-        for (Method method : methodList) {
-            String methodNm = method.getName();
-            if (methodNm.startsWith(GET) || methodNm.startsWith(IS)) {
-                String key = topLower(headRemove(methodNm));
-                Object value = method.invoke(bean);
-                map.put(key, value);
-            }
+        // beanのGetter（キャッシュ）
+        for (Entry<String, Method> entry : MyBeanMetadata.of(bean.getClass()).getGetters().entrySet()) {
+            map.put(entry.getKey(), entry.getValue().invoke(bean));
         }
         return map;
     }
@@ -228,11 +282,11 @@ public class MyBeansUtil {
      */
     protected static String headRemove(String methodNm) {
         if (methodNm.startsWith(GET)) {
-            methodNm = methodNm.replaceFirst(GET, "");
+            methodNm = methodNm.substring(GET.length());
         } else if (methodNm.startsWith(SET)) {
-            methodNm = methodNm.replaceFirst(SET, "");
+            methodNm = methodNm.substring(SET.length());
         } else if (methodNm.startsWith(IS)) {
-            methodNm = methodNm.replaceFirst(IS, "");
+            methodNm = methodNm.substring(IS.length());
         }
         return methodNm;
     }
@@ -1,5 +1,10 @@
 package my.utils;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -17,14 +22,15 @@ public class MySqlUtil {
 
     /**
      * SQLのIN形式で返却<br>
-     * 返却例）'aaa','bbb','ccc'
+     * 返却例）'aaa','bbb','ccc'<br>
+     * ※値毎にSQL文が異なるため、大量の値はMyDatabaseManager.doSelectIn（バインド変数で分割実行）を使用
      * @param list
      * @return 文字列
      */
     public static String createSqlIn(List<String> list) {
         if (list == null || list.isEmpty()) return null;
 
-        StringBuffer bf = new StringBuffer();
+        StringBuilder bf = new StringBuilder(list.size() * 8);
         for (String str : list) {
             bf.append("'").append(str).append("',");
         }
@@ -44,7 +50,7 @@ public class MySqlUtil {
     public static String createSqlIn(List<Map<String, String>> paramList,
                                      String key) {
 
-        StringBuffer bf = new StringBuffer();
+        StringBuilder bf = new StringBuilder(paramList.size() * 8);
 
         for (Map<String, String> map : paramList) {
             bf.append("'").append(map.get(key)).append("',");
@@ -55,4 +61,44 @@ public class MySqlUtil {
         return bf.toString();
     }
 
+    /**
+     * SQLのIN形式（バインド変数）で返却<br>
+     * 返却例）?,?,?
+     * @param count バインド変数の個数
+     * @return 文字列
+     */
+    public static String createSqlInParameters(int count) {
+        StringBuilder bf = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                bf.append(',');
+            }
+            bf.append('?');
+        }
+        return bf.toString();
+    }
+
+    /**
+     * PreparedStatementにパラメータを設定<br>
+     * （nullはVARCHARのnull、java.util.DateはTimestampとして設定）
+     * @param ps PreparedStatement
+     * @param params パラメータ
+     * @throws SQLException
+     */
+    public static void setParameters(PreparedStatement ps,
+                                     Object... params) throws SQLException {
+        if (params == null) return;
+
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            if (param == null) {
+                ps.setNull(i + 1, Types.VARCHAR);
+            } else if (param instanceof Date && !(param instanceof java.sql.Date || param instanceof Timestamp)) {
+                ps.setTimestamp(i + 1, new Timestamp(((Date) param).getTime()));
+            } else {
+                ps.setObject(i + 1, param);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,159 @@
+package my.manager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+import my.bean.MyDatabaseInfo;
+import my.bean.MyLoadInfo;
+
+/**
+ * 区切り文字ファイルのバッチ登録のテスト<br>
+ * （DB停止中[コネクションの取得失敗]の時、読込スレッドが待ち続けずにエラー終了すること）<br>
+ * 実行：java -cp &lt;クラスパス&gt; my.manager.MyDatabaseManagerLoadTest（失敗時は終了コード1）
+ * @author 7days
+ */
+public class MyDatabaseManagerLoadTest {
+
+    /** 待機上限（秒） */
+    private static final long TIMEOUT_SECONDS = 10;
+
+    /**
+     * テスト実行
+     * @param args 未使用
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        MyDatabaseManager db = MyDatabaseManager.INSTANCE;
+        db.setProperty(new MyDatabaseInfo().setDbName("loadTest")
+                                           .setDbUrl(DownDriver.URL)
+                                           .setDriverClass(DownDriver.class.getName())
+                                           .setPoolMinSize(0)
+                                           .setPoolMaxSize(1)
+                                           .setPoolBorrowTimeout(100));
+        if (!db.DBOpen()) {
+            fail("DBOpen failed");
+        }
+
+        // キューの上限を超える行数（全登録スレッドが開始できない時、従来は読込スレッドが無限待機）
+        Path input = Files.createTempFile("MyDatabaseManagerLoadTest", ".csv");
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            lines.add(i + ",name" + i);
+        }
+        Files.write(input, lines, StandardCharsets.UTF_8);
+        MyLoadInfo loadInfo = new MyLoadInfo().setInputPath(input.toString())
+                                              .setSql("INSERT INTO LOAD_TEST (ID, NAME) VALUES (?, ?)")
+                                              .setThreadCount(2)
+                                              .setBatchSize(10)
+                                              .setQueueSize(2);
+
+        try {
+            CompletableFuture<Object> future = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return db.doLoad(loadInfo);
+                } catch (Exception e) {
+                    return e;
+                }
+            });
+            Object result;
+            try {
+                result = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                fail("doLoad did not finish within " + TIMEOUT_SECONDS + "s (reader hang)");
+                return;
+            } catch (ExecutionException e) {
+                result = e.getCause();
+            }
+            if (!(result instanceof SQLException)) {
+                fail("doLoad should fail with SQLException : " + result);
+            }
+            System.out.println("OK : " + ((SQLException) result).getMessage());
+
+        } finally {
+            db.DBClose();
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(input.resolveSibling(input.getFileName() + ".checkpoint"));
+        }
+    }
+
+    /**
+     * テスト失敗
+     * @param message メッセージ
+     */
+    private static void fail(String message) {
+        System.err.println("NG : " + message);
+        System.exit(1);
+    }
+
+    /**
+     * 接続できないJDBCドライバ（DB停止中を再現）
+     */
+    public static class DownDriver implements Driver {
+
+        /** 接続URL */
+        static final String URL = "jdbc:down:test";
+
+        static {
+            try {
+                DriverManager.registerDriver(new DownDriver());
+            } catch (SQLException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        @Override
+        public Connection connect(String url,
+                                  Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            throw new SQLException("database down");
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url != null && url.startsWith(URL);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url,
+                                                    Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}